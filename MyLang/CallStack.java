@@ -0,0 +1,105 @@
+package MyLang;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import MyLang.MyLangAST.FunctionCall;
+
+/**
+ * The calls the program is currently in. A call only records the callee, its call site and
+ * the environment of the caller; the text of a {@link MyLangStacktraceElement} is built when
+ * a stack trace is printed. Iterating starts with the innermost call.
+ * Method calls that did not bind their method also record the receiver. While a JFR
+ * recording runs, the calls are also recorded as {@link Events.Call}.
+ * {@link Profiler.Stack} is the only subclass, it is only loaded when profiling.
+ */
+public class CallStack implements Iterable<MyLangStacktraceElement> {
+    private MyLangCallable[] callees = new MyLangCallable[32];
+    private FunctionCall[] sites = new FunctionCall[32];
+    private MyLangEnviroment[] envs = new MyLangEnviroment[32];
+    private Object[] receivers = new Object[32];
+    // The JFR events of the calls made while a recording was running
+    private Events.Call[] events = new Events.Call[32];
+    private int size = 0;
+
+    public void push(MyLangCallable callee, FunctionCall site, MyLangEnviroment env) {
+        pushMethod(callee, null, site, env);
+    }
+
+    public void pushMethod(MyLangCallable method, Object receiver, FunctionCall site, MyLangEnviroment env) {
+        if(size == callees.length) {
+            callees = Arrays.copyOf(callees, size * 2);
+            sites = Arrays.copyOf(sites, size * 2);
+            envs = Arrays.copyOf(envs, size * 2);
+            receivers = Arrays.copyOf(receivers, size * 2);
+            events = Arrays.copyOf(events, size * 2);
+        }
+        callees[size] = method;
+        sites[size] = site;
+        envs[size] = env;
+        receivers[size] = receiver;
+        if(Events.recording) {
+            events[size] = Events.beginCall(method, receiver, site);
+        }
+        size++;
+    }
+
+    // Errors leave their frames on the stack, so the stack trace can still be printed after unwinding
+    public void pop() {
+        size--;
+        if(events[size] != null) {
+            events[size].commit();
+            events[size] = null;
+        }
+        callees[size] = null;
+        sites[size] = null;
+        envs[size] = null;
+        receivers[size] = null;
+    }
+
+    /** Removes the call below the innermost one, whose frame was taken over by a tail call */
+    public void dropCaller() {
+        size--;
+        if(events[size - 1] != null) {
+            events[size - 1].commit();
+        }
+        events[size - 1] = events[size];
+        events[size] = null;
+        callees[size - 1] = callees[size];
+        sites[size - 1] = sites[size];
+        envs[size - 1] = envs[size];
+        receivers[size - 1] = receivers[size];
+        callees[size] = null;
+        sites[size] = null;
+        envs[size] = null;
+        receivers[size] = null;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public Iterator<MyLangStacktraceElement> iterator() {
+        return new Iterator<>() {
+            private int next = size - 1;
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public MyLangStacktraceElement next() {
+                if(next < 0) {
+                    throw new NoSuchElementException();
+                }
+                var callee = receivers[next] == null ? callees[next] : callees[next].bind(receivers[next]);
+                var element = new MyLangStacktraceElement(callee, sites[next], envs[next]);
+                next--;
+                return element;
+            }
+        };
+    }
+}
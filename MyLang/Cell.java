@@ -0,0 +1,22 @@
+package MyLang;
+
+/**
+ * Holds a local that is captured by a closure and assigned after the closure was created,
+ * see {@link VariableSlot#isCell}. The frame and all copies of it made for closures share the cell.
+ */
+public final class Cell {
+    public Object value;
+
+    public Cell(Object value) {
+        this.value = value;
+    }
+
+    /** Replaces the values of the slots at indices of frame by cells holding them, unless they are cells already */
+    public static void wrap(MyLangEnviroment frame, int[] indices) {
+        for(int index : indices) {
+            if(!(frame.slots[index] instanceof Cell)) {
+                frame.slots[index] = new Cell(frame.slots[index]);
+            }
+        }
+    }
+}
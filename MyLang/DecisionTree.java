@@ -0,0 +1,222 @@
+package MyLang;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import MyLang.MyLangAST.*;
+
+/**
+ * The cases of a match expression compiled into a tree of tests, built by {@link MyLangParser}.
+ * Each node looks at one part of the matched value (the value itself, a field of a variant or
+ * an element of a tuple) and picks the next node by its variant, tuple length or literal value,
+ * so every part is tested once no matter how many cases mention it. The leaves name the
+ * chosen case and where the values of its variables are found.
+ */
+public final class DecisionTree {
+    // Trees larger than this fall back to testing the cases one after another
+    private static final int MAX_NODES = 4096;
+
+    private enum Kind { VARIANT, TUPLE, VALUE }
+
+    private interface Node {}
+
+    private record Switch(int[] path, Kind kind, Map<Object, Node> next, Node otherwise) implements Node {
+        Node select(Object value) {
+            Object key = switch(kind) {
+                case VARIANT -> value instanceof EnumVariantObject o ? o.variant().getName() : null;
+                case TUPLE -> value instanceof Object[] tuple ? tuple.length : null;
+                case VALUE -> Rope.flatten(value);
+            };
+            var node = key == null ? null : next.get(key);
+            return node == null ? otherwise : node;
+        }
+    }
+
+    /** The case with the index branch matched, its variables are bound to the parts at paths */
+    public record Leaf(int branch, VariableBinding[] bindings, int[][] paths) implements Node {
+        public Object valueOf(int binding, Object matched) {
+            return part(matched, paths[binding]);
+        }
+    }
+
+    // A case that is not decided yet: the patterns still to test, one for each column
+    private record Row(List<Pattern> patterns, List<VariableBinding> bindings, List<int[]> paths, int branch) {}
+
+    private final Node root;
+    private int nodes = 0;
+
+    private DecisionTree(List<Pattern> cases) {
+        var column = List.of(new int[0]);
+        var rows = new ArrayList<Row>();
+        for(int i = 0; i < cases.size(); i++) {
+            rows.add(new Row(List.of(cases.get(i)), List.of(), List.of(), i));
+        }
+        Node tree;
+        try {
+            tree = compile(rows, column, null);
+        } catch(TooLarge e) {
+            tree = null;
+            for(int i = rows.size() - 1; i >= 0; i--) {
+                tree = compile(List.of(rows.get(i)), column, tree);
+            }
+        }
+        root = tree;
+    }
+
+    // For ModuleCache, which sets the fields of the trees it reads
+    private DecisionTree() {
+        root = null;
+    }
+
+    public static DecisionTree compile(List<Pattern> cases) {
+        return new DecisionTree(cases);
+    }
+
+    /** The leaf of the first case matching value, or null if none does */
+    public Leaf select(Object value) {
+        var node = root;
+        while(node instanceof Switch s) {
+            node = s.select(part(value, s.path()));
+        }
+        return (Leaf) node;
+    }
+
+    private static Object part(Object value, int[] path) {
+        for(int i : path) {
+            value = value instanceof Object[] tuple ? tuple[i] : ((EnumVariantObject) value).fields()[i];
+        }
+        return value;
+    }
+
+    private Node compile(List<Row> rows, List<int[]> columns, Node onFailure) {
+        if(rows.isEmpty()) {
+            return onFailure;
+        }
+        if(++nodes > MAX_NODES && onFailure == null) {
+            throw new TooLarge();
+        }
+        var first = rows.get(0);
+        int column = -1;
+        for(int c = 0; c < columns.size(); c++) {
+            if(kindOf(first.patterns().get(c)) != null) {
+                column = c;
+                break;
+            }
+        }
+        if(column < 0) {
+            var bindings = new ArrayList<>(first.bindings());
+            var paths = new ArrayList<>(first.paths());
+            for(int c = 0; c < columns.size(); c++) {
+                if(first.patterns().get(c) instanceof VariableBinding v) {
+                    bindings.add(v);
+                    paths.add(columns.get(c));
+                }
+            }
+            return new Leaf(first.branch(), bindings.toArray(new VariableBinding[0]), paths.toArray(new int[0][]));
+        }
+
+        var kind = kindOf(first.patterns().get(column));
+        // The tested keys in the order of the cases, with the number of parts each of them has
+        var arities = new LinkedHashMap<Object, Integer>();
+        var otherwise = new ArrayList<Row>();
+        for(var row : rows) {
+            var pattern = row.patterns().get(column);
+            if(kindOf(pattern) == kind) {
+                arities.putIfAbsent(keyOf(pattern), subPatterns(pattern).size());
+            } else {
+                otherwise.add(row);
+            }
+        }
+
+        var next = new HashMap<Object, Node>();
+        for(var entry : arities.entrySet()) {
+            int arity = entry.getValue();
+            var specialized = new ArrayList<Row>();
+            for(var row : rows) {
+                var pattern = row.patterns().get(column);
+                List<Pattern> parts;
+                if(kindOf(pattern) == null) {
+                    parts = new ArrayList<>();
+                    for(int k = 0; k < arity; k++) {
+                        parts.add(new Wildcard());
+                    }
+                } else if(kindOf(pattern) == kind && keyOf(pattern).equals(entry.getKey())) {
+                    parts = subPatterns(pattern);
+                } else {
+                    continue;
+                }
+                var bindings = row.bindings();
+                var paths = row.paths();
+                if(pattern instanceof VariableBinding v) {
+                    bindings = new ArrayList<>(bindings);
+                    bindings.add(v);
+                    paths = new ArrayList<>(paths);
+                    paths.add(columns.get(column));
+                }
+                specialized.add(new Row(replace(row.patterns(), column, parts), bindings, paths, row.branch()));
+            }
+            var subColumns = new ArrayList<int[]>();
+            for(int k = 0; k < arity; k++) {
+                var path = Arrays.copyOf(columns.get(column), columns.get(column).length + 1);
+                path[path.length - 1] = k;
+                subColumns.add(path);
+            }
+            next.put(entry.getKey(), compile(specialized, replace(columns, column, subColumns), onFailure));
+        }
+        return new Switch(columns.get(column), kind, next, compile(otherwise, columns, onFailure));
+    }
+
+    private static <T> List<T> replace(List<T> list, int index, List<T> replacement) {
+        var replaced = new ArrayList<T>(list.subList(0, index));
+        replaced.addAll(replacement);
+        replaced.addAll(list.subList(index + 1, list.size()));
+        return replaced;
+    }
+
+    // null for patterns that match anything
+    private static Kind kindOf(Pattern pattern) {
+        if(pattern instanceof ConstructorPattern) {
+            return Kind.VARIANT;
+        } else if(pattern instanceof TuplePattern) {
+            return Kind.TUPLE;
+        } else if(pattern instanceof NumberPattern || pattern instanceof BooleanPattern || pattern instanceof StringPattern) {
+            return Kind.VALUE;
+        }
+        return null;
+    }
+
+    private static Object keyOf(Pattern pattern) {
+        if(pattern instanceof ConstructorPattern p) {
+            // interned like the names of the variants, so looking it up compares identities
+            return p.constr().lexeme().intern();
+        } else if(pattern instanceof TuplePattern p) {
+            return p.subPatterns().size();
+        } else if(pattern instanceof NumberPattern p) {
+            return p.value();
+        } else if(pattern instanceof BooleanPattern p) {
+            return p.value();
+        }
+        return ((StringPattern) pattern).value();
+    }
+
+    private static List<Pattern> subPatterns(Pattern pattern) {
+        if(pattern instanceof ConstructorPattern p) {
+            return p.subPatterns();
+        } else if(pattern instanceof TuplePattern p) {
+            return p.subPatterns();
+        }
+        return List.of();
+    }
+
+    private static final class TooLarge extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        TooLarge() {
+            super(null, null, false, false);
+        }
+    }
+}
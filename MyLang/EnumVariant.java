@@ -2,22 +2,86 @@ package MyLang;
 
 import java.util.*;
 
-public record EnumVariant(Token Name, int argCount, Map<String, MyLangCallable> methods, String fileName) implements MyLangCallable {
+/**
+ * The constructor of an enum variant. Its name is interned and serves as the tag of the
+ * variant: patterns compare it by identity. Nullary variants have a single instance.
+ */
+public final class EnumVariant implements MyLangCallable {
+    private final Token Name;
+    private final String name;
+    private final int argCount;
+    private final Map<String, MyLangCallable> methods;
+    private final String fileName;
+    private final EnumVariantObject instance;
+
+    public EnumVariant(Token Name, int argCount, Map<String, MyLangCallable> methods, String fileName) {
+        this.Name = Name;
+        this.name = Name.lexeme().intern();
+        this.argCount = argCount;
+        this.methods = methods;
+        this.fileName = fileName;
+        this.instance = argCount == 0 ? new EnumVariantObject(new Object[0], this) : null;
+    }
+
+    public Token Name() {
+        return Name;
+    }
+    public int argCount() {
+        return argCount;
+    }
+    public Map<String, MyLangCallable> methods() {
+        return methods;
+    }
+    public String fileName() {
+        return fileName;
+    }
+
     public String getName() {
-        return Name.lexeme();
+        return name;
     }
 
     public Object call(MyLangInterpreter interpreter, List<Object> posArgs, Map<String, Object> namedArgs) {
         if(!namedArgs.isEmpty()) {
             throw new InterpreterError("Enum Variant Constructor does not take Named arguments", interpreter.callStack);
         }
-        if(posArgs.size() != argCount()) {
+        return create(interpreter, posArgs.toArray());
+    }
+
+    @Override
+    public Object call0(MyLangInterpreter interpreter) {
+        return instance != null ? instance : create(interpreter);
+    }
+    @Override
+    public Object call1(MyLangInterpreter interpreter, Object a) {
+        return create(interpreter, a);
+    }
+    @Override
+    public Object call2(MyLangInterpreter interpreter, Object a, Object b) {
+        return create(interpreter, a, b);
+    }
+    @Override
+    public Object call3(MyLangInterpreter interpreter, Object a, Object b, Object c) {
+        return create(interpreter, a, b, c);
+    }
+    @Override
+    public Object call4(MyLangInterpreter interpreter, Object a, Object b, Object c, Object d) {
+        return create(interpreter, a, b, c, d);
+    }
+
+    private EnumVariantObject create(MyLangInterpreter interpreter, Object... fields) {
+        if(fields.length != argCount) {
             throw new InterpreterError("Invalid number of Arguments to Enum Variant Constructor: Expected "+
-                argCount+", got "+posArgs.size(), interpreter.callStack);
+                argCount+", got "+fields.length, interpreter.callStack);
         }
-
-        return new EnumVariantObject(posArgs, this);
+        if(instance != null) {
+            return instance;
+        }
+        for(int i = 0; i < fields.length; i++) {
+            fields[i] = Rope.flatten(fields[i]);
+        }
+        return new EnumVariantObject(fields, this);
     }
+
     @Override
     public String toString() {
         return "<enum constructor '"+Name.lexeme()+"'>";
@@ -25,4 +89,7 @@ public record EnumVariant(Token Name, int argCount, Map<String, MyLangCallable>
     public String getFileName() {
         return fileName;
     }
+    public int getLine() {
+        return Name.line();
+    }
 }
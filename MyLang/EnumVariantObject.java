@@ -1,11 +1,19 @@
 package MyLang;
 
-import java.util.List;
+import java.util.Arrays;
 
-public record EnumVariantObject(List<Object> fields, EnumVariant variant) {
+public record EnumVariantObject(Object[] fields, EnumVariant variant) {
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof EnumVariantObject o && variant == o.variant && Arrays.equals(fields, o.fields);
+    }
+    @Override
+    public int hashCode() {
+        return 31 * variant.hashCode() + Arrays.hashCode(fields);
+    }
     @Override
     public String toString() {
-        return variant.Name().lexeme()+MyLangInterpreter.stringify(fields);
+        return variant.Name().lexeme()+MyLangInterpreter.stringify(Arrays.asList(fields));
     }
     public Object getProperty(String name) {
         return variant().methods().get(name).bind(this);
@@ -0,0 +1,131 @@
+package MyLang;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import jdk.jfr.StackTrace;
+
+import MyLang.MyLangAST.FunctionCall;
+
+/**
+ * JFR events of MyLang programs, enabled like any other event by the settings of a recording
+ * (mylang.FunctionCall, mylang.ModuleImport, mylang.ModuleTypecheck, mylang.AllocationSample).
+ * While no recording runs the interpreter only reads {@link #recording}, no event is created.
+ */
+final class Events {
+    /** Whether a recording is running, the events may still be disabled by its settings */
+    static volatile boolean recording = false;
+
+    // Allocations since the last sample
+    private static int allocations = 0;
+    private static final int SAMPLE_INTERVAL = 1024;
+
+    private static final Set<Recording> running = new HashSet<>();
+
+    static {
+        FlightRecorder.addListener(new FlightRecorderListener() {
+            @Override
+            public void recordingStateChanged(Recording changed) {
+                update(changed);
+            }
+        });
+        if(FlightRecorder.isInitialized()) { // started with -XX:StartFlightRecording
+            for(var started : FlightRecorder.getFlightRecorder().getRecordings()) {
+                update(started);
+            }
+        }
+    }
+
+    private static synchronized void update(Recording changed) {
+        if(changed.getState() == RecordingState.RUNNING) {
+            running.add(changed);
+        } else {
+            running.remove(changed);
+        }
+        recording = !running.isEmpty();
+    }
+
+    @Name("mylang.FunctionCall")
+    @Label("MyLang Function Call")
+    @Category("MyLang")
+    @StackTrace(false)
+    static final class Call extends Event {
+        @Label("Function")
+        String function;
+        @Label("File")
+        String file;
+        @Label("Line")
+        @Description("Line of the call")
+        int line;
+    }
+
+    @Name("mylang.ModuleImport")
+    @Label("MyLang Module Import")
+    @Description("Reading and parsing a file")
+    @Category("MyLang")
+    static final class ModuleImport extends Event {
+        @Label("Module")
+        String module;
+        @Label("File")
+        String file;
+        @Label("Succeeded")
+        boolean succeeded;
+    }
+
+    @Name("mylang.ModuleTypecheck")
+    @Label("MyLang Module Typecheck")
+    @Category("MyLang")
+    static final class ModuleTypecheck extends Event {
+        @Label("Module")
+        String module;
+        @Label("Succeeded")
+        boolean succeeded;
+    }
+
+    @Name("mylang.AllocationSample")
+    @Label("MyLang Allocation Sample")
+    @Description("Every 1024th object or list created by the program")
+    @Category("MyLang")
+    static final class AllocationSample extends Event {
+        @Label("Type")
+        String type;
+        @Label("Weight")
+        @Description("Allocations this sample stands for")
+        int weight;
+    }
+
+    /** The started event of a call, null if calls are not recorded */
+    static Call beginCall(MyLangCallable callee, Object receiver, FunctionCall site) {
+        var event = new Call();
+        if(!event.isEnabled()) {
+            return null;
+        }
+        event.function = receiver instanceof MyLangObject o ? o.klass.name() + "." + callee.getName() : callee.getName();
+        event.file = callee.getFileName();
+        event.line = site == null ? 0 : site.dot().line();
+        event.begin();
+        return event;
+    }
+
+    static void allocated(String type) {
+        if(++allocations < SAMPLE_INTERVAL) {
+            return;
+        }
+        allocations = 0;
+        var event = new AllocationSample();
+        if(event.shouldCommit()) {
+            event.type = type;
+            event.weight = SAMPLE_INTERVAL;
+            event.commit();
+        }
+    }
+}
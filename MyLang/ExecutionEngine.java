@@ -0,0 +1,17 @@
+package MyLang;
+
+import java.util.ArrayList;
+
+import MyLang.vm.VMInterpreter;
+
+enum ExecutionEngine {
+    VISITOR, CLOSURES, VM;
+
+    MyLangInterpreter createInterpreter(ArrayList<String> prg_args) {
+        return switch(this) {
+            case VISITOR -> new MyLangInterpreter(prg_args);
+            case CLOSURES -> new MyLangClosureInterpreter(prg_args, new MyLangClosureCompiler());
+            case VM -> new VMInterpreter(prg_args);
+        };
+    }
+}
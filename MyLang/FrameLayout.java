@@ -0,0 +1,29 @@
+package MyLang;
+
+import java.util.Map;
+
+/**
+ * Filled in by {@link MyLangResolver} for every construct that opens a scope.
+ * Scopes that don't need their own frame are flattened into the enclosing one
+ * and cost nothing at runtime.
+ */
+public final class FrameLayout {
+    public boolean ownsFrame = false;
+    public int size = 0;
+    // Slots of named parameters, only used for function frames
+    public Map<String, Integer> namedSlots = Map.of();
+    // Slots that only ever hold numbers, null if there are none. Only set for function frames
+    public boolean[] numericSlots = null;
+    // Slots of enclosing frames used by a function, as pairs of depth (counted from the frame the
+    // function is created in) and index. Null if the function keeps the whole environment
+    public int[] captures = null;
+    // Parameters of a function that are cells
+    public int[] cellParameters = new int[0];
+    // Line the function or class is declared on, only set by the parser for their frames
+    public int line = 0;
+
+    @Override
+    public String toString() {
+        return ownsFrame ? "<frame of size "+size+">" : "<flattened>";
+    }
+}
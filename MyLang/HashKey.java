@@ -0,0 +1,84 @@
+package MyLang;
+
+import java.util.Objects;
+
+/**
+ * Keys of MyLangMap and MyLangSet. Numbers, strings and booleans are used as they are, ropes
+ * are flattened. Tuples are Java arrays, which hash by identity, so tuples and enum variants
+ * holding tuples are wrapped into a HashKey comparing and hashing them by their elements.
+ */
+final class HashKey {
+    private final Object value;
+    private final int hash;
+
+    private HashKey(Object value) {
+        this.value = value;
+        this.hash = hash(value);
+    }
+
+    static Object of(Object value) {
+        value = Rope.flatten(value);
+        return holdsTuple(value) ? new HashKey(value) : value;
+    }
+
+    /** The value a key was made of */
+    static Object valueOf(Object key) {
+        return key instanceof HashKey k ? k.value : key;
+    }
+
+    private static boolean holdsTuple(Object value) {
+        if(value instanceof Object[]) {
+            return true;
+        } else if(value instanceof EnumVariantObject o) {
+            for(var field : o.fields()) {
+                if(holdsTuple(field)) return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean equal(Object left, Object right) {
+        if(left instanceof Object[] l && right instanceof Object[] r) {
+            return equalElements(l, r);
+        } else if(left instanceof EnumVariantObject l && right instanceof EnumVariantObject r) {
+            return l.variant() == r.variant() && equalElements(l.fields(), r.fields());
+        }
+        return Objects.equals(Rope.flatten(left), Rope.flatten(right));
+    }
+
+    private static boolean equalElements(Object[] left, Object[] right) {
+        if(left.length != right.length) {
+            return false;
+        }
+        for(int i = 0; i < left.length; i++) {
+            if(!equal(left[i], right[i])) return false;
+        }
+        return true;
+    }
+
+    private static int hash(Object value) {
+        if(value instanceof Object[] tuple) {
+            return hashElements(1, tuple);
+        } else if(value instanceof EnumVariantObject o) {
+            return hashElements(o.variant().hashCode(), o.fields());
+        }
+        return Objects.hashCode(Rope.flatten(value));
+    }
+
+    private static int hashElements(int hash, Object[] elements) {
+        for(var element : elements) {
+            hash = 31 * hash + hash(element);
+        }
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof HashKey k && hash == k.hash && equal(value, k.value);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
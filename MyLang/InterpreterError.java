@@ -1,18 +1,23 @@
 package MyLang;
 
-import java.util.LinkedList;
+import java.io.PrintStream;
 
 public class InterpreterError extends RuntimeException {
-    LinkedList<MyLangStacktraceElement> callStack;
-    public InterpreterError(String message, LinkedList<MyLangStacktraceElement> callStack) {
+    CallStack callStack;
+    public InterpreterError(String message, CallStack callStack) {
         super(message); this.callStack = callStack;
     }
 
     @Override
     public void printStackTrace() {
-        System.out.println(getMessage()+ ": ");
+        printStackTrace(System.out);
+    }
+
+    @Override
+    public void printStackTrace(PrintStream out) {
+        out.println(getMessage()+ ": ");
         for(MyLangStacktraceElement s : callStack) {
-            System.out.println("\t"+s.name());
+            out.println("\t"+s.name());
         }
     }
 }
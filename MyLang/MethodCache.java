@@ -0,0 +1,84 @@
+package MyLang;
+
+import java.util.List;
+
+/**
+ * Inline cache of a call site of the form receiver.name(...). For the classes of the last
+ * few receivers it remembers the method that is called, so the call neither looks up the
+ * name nor binds the method to the receiver. Classes, enum variants, native classes and the
+ * methods of the builtin lists, maps and sets are cached; anything else (fields holding
+ * functions, list properties, modules) is left to the generic property lookup.
+ */
+public final class MethodCache {
+    private static final int ENTRIES = 4;
+
+    public final String name;
+    // MyLangClass, EnumVariant, NativeClass or a builtin class of the interpreter
+    private final Object[] owners = new Object[ENTRIES];
+    private final MyLangCallable[] methods = new MyLangCallable[ENTRIES];
+    private int size = 0;
+
+    public MethodCache(String name) {
+        this.name = name;
+    }
+
+    /** Returns the method name of receiver, or null if the call needs the generic property lookup */
+    public MyLangCallable lookup(Object receiver, MyLangInterpreter interpreter) {
+        Object owner = ownerOf(receiver, interpreter);
+        if(owner == null) {
+            return null;
+        }
+        for(int k = 0; k < size; k++) {
+            if(owners[k] == owner) {
+                return methods[k];
+            }
+        }
+        var method = find(owner, name);
+        if(size < ENTRIES) { // the site is megamorphic otherwise, later classes are looked up every time
+            owners[size] = owner;
+            methods[size] = method;
+            size++;
+        }
+        return method;
+    }
+
+    /** Uncached lookup for interpreters that have no state per call site */
+    public static MyLangCallable lookup(Object receiver, String name, MyLangInterpreter interpreter) {
+        Object owner = ownerOf(receiver, interpreter);
+        return owner == null ? null : find(owner, name);
+    }
+
+    private static Object ownerOf(Object receiver, MyLangInterpreter interpreter) {
+        if(receiver instanceof MyLangObject o) {
+            return o.klass;
+        } else if(receiver instanceof EnumVariantObject e) {
+            return e.variant();
+        } else if(receiver instanceof List) {
+            return interpreter.listClass;
+        } else if(receiver instanceof MyLangMap) {
+            return interpreter.mapClass;
+        } else if(receiver instanceof MyLangSet) {
+            return interpreter.setClass;
+        }
+        return interpreter.nativeClassOf(receiver);
+    }
+
+    // Same precedence as MyLangInterpreter.getProperty: fields and list properties come before methods
+    private static MyLangCallable find(Object owner, String name) {
+        if(owner instanceof MyLangClass c) {
+            if(c.shape().slotOf(name) >= 0) {
+                return null;
+            }
+            return c.methods().get(name);
+        } else if(owner instanceof EnumVariant v) {
+            return v.methods().get(name);
+        } else if(owner instanceof NativeClass c) {
+            return c.methods().get(name);
+        } else {
+            if(MyLangInterpreter.isListProperty(name)) {
+                return null;
+            }
+            return ((MyLangClass) owner).methods().get(name);
+        }
+    }
+}
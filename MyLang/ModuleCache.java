@@ -0,0 +1,756 @@
+package MyLang;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Parsed and typechecked modules of earlier runs, kept in a directory and, for a script server,
+ * in memory, where the last module loaded for each file is kept. The entry of a file is
+ * named by the hash of the build of the interpreter, the name and the source of the file and holds the resolved MyLangFile and the Module
+ * with its types. Its header tells the imports of the file, so they are found without parsing
+ * it, and the key it was typechecked under, which also hashes the keys of the imports: an entry
+ * is only used if neither the file nor any file it imports changed.
+ *
+ * The directory is pruned when the cache is opened and after every few hundred stores: once it
+ * holds more than MAX_SIZE bytes, the least recently used entries are removed. Finding an entry
+ * marks it as used, so entries of edited files and of other builds, which are never found
+ * again, are removed first.
+ *
+ * Types compare the environments they were declared in by identity. An entry only owns the
+ * environments its own typechecker created, those of imported modules are written as references
+ * into the entries of these modules and are linked to the loaded environments when read.
+ *
+ * Entries are written in a format of their own: records by their components, other classes of
+ * MyLang by their fields that are not transient, strings once and every object after its first
+ * appearance as a handle, so objects shared in the AST are still shared when read. Records
+ * may refer to themselves through the maps of their components.
+ */
+final class ModuleCache {
+    // Entries written by another version of the format are never found
+    private static final String FORMAT = "2";
+    // Entries written by another build of the interpreter are never found either, its ASTs, slots
+    // and types may still be read but mean something else
+    private static final String BUILD = buildFingerprint();
+
+    // The directory is pruned to PRUNED_SIZE bytes when it holds more than MAX_SIZE
+    private static final long MAX_SIZE = 64L << 20, PRUNED_SIZE = 48L << 20;
+    private static final int STORES_BETWEEN_PRUNING = 256;
+
+    private static final int NULL = 0, HANDLE = 1, STRING = 2, NEW_STRING = 3, INT = 4, DOUBLE = 5, TRUE = 6, FALSE = 7,
+        ENUM = 8, RECORD = 9, OBJECT = 10, ARRAY_LIST = 11, LIST = 12, HASH_MAP = 13, LINKED_HASH_MAP = 14, MAP = 15,
+        HASH_SET = 16, LINKED_HASH_SET = 17, SET = 18, ARRAY = 19, INTS = 20, BOOLEANS = 21, ENVIRONMENT = 22,
+        TOKEN = 23;
+
+    // Null if entries are only kept in memory
+    private final Path directory;
+    // The module last loaded or stored for each file, null unless modules are kept in memory
+    private final Map<String, Resident> resident;
+    // The environments owned by each written or loaded file, in the order of its entry
+    private final Map<String, List<TypeEnv>> environments = new ConcurrentHashMap<>();
+    // The file owning an environment and its index there
+    private final Map<TypeEnv, EnvironmentRef> owners = Collections.synchronizedMap(new IdentityHashMap<>());
+    // Entries written since the directory was last pruned
+    private final AtomicInteger stores = new AtomicInteger();
+
+    private static final Map<Class<?>, Shape> shapes = new ConcurrentHashMap<>();
+
+    /** What an entry tells about its file without reading the rest */
+    record Header(List<String> imports, List<MyLangPath> importPaths, String key) {}
+
+    /** An entry read from the directory, the body is only read by load */
+    record Entry(String name, Header header, byte[] bytes, int bodyStart) {}
+
+    record Loaded(MyLangFile file, MyLangAST.Module module) {}
+
+    private record EnvironmentRef(String file, int index) {}
+
+    // owned is null if the module was not written to the directory
+    private record Resident(String name, Header header, Loaded loaded, List<TypeEnv> owned) {}
+
+    ModuleCache(Path directory, boolean keepModules) {
+        this.directory = directory;
+        this.resident = keepModules ? new ConcurrentHashMap<>() : null;
+        if(directory != null) {
+            prune(directory);
+        }
+    }
+
+    /** The cache in $XDG_CACHE_HOME/mylang or else ~/.cache/mylang */
+    static ModuleCache inUserCache() {
+        return new ModuleCache(userDirectory(), false);
+    }
+
+    /** A cache keeping the modules in memory, and in the user's cache directory if onDisk */
+    static ModuleCache resident(boolean onDisk) {
+        return new ModuleCache(onDisk ? userDirectory() : null, true);
+    }
+
+    private static Path userDirectory() {
+        var base = System.getenv("XDG_CACHE_HOME");
+        var directory = base == null || base.isEmpty() ? Path.of(System.getProperty("user.home"), ".cache") : Path.of(base);
+        return directory.resolve("mylang");
+    }
+
+    static String entryName(String fileName, String source) {
+        return hash(List.of(FORMAT, BUILD, fileName, source));
+    }
+
+    // The hash of the class files of the interpreter, or of its jar. If they cannot be read, a
+    // value of this process, so entries are then only used within it
+    private static String buildFingerprint() {
+        try {
+            var location = Path.of(ModuleCache.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+            var digest = MessageDigest.getInstance("SHA-256");
+            if(Files.isDirectory(location)) {
+                List<Path> classes;
+                try(var files = Files.walk(location.resolve("MyLang"))) {
+                    classes = files.filter(file -> file.toString().endsWith(".class")).sorted().toList();
+                }
+                for(var file : classes) {
+                    digest.update(location.relativize(file).toString().getBytes(StandardCharsets.UTF_8));
+                    digest.update(Files.readAllBytes(file));
+                }
+            } else {
+                digest.update(Files.readAllBytes(location));
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch(IOException | URISyntaxException | NoSuchAlgorithmException | RuntimeException e) {
+            return UUID.randomUUID().toString();
+        }
+    }
+
+    // Removes the least recently used files of the directory until it holds at most PRUNED_SIZE
+    // bytes, if it holds more than MAX_SIZE. Files another process removes first are skipped
+    private static void prune(Path directory) {
+        record CacheFile(Path path, long size, FileTime used) {}
+        List<CacheFile> files = new ArrayList<>();
+        long total = 0;
+        try(var list = Files.list(directory)) {
+            for(var path : (Iterable<Path>) list::iterator) {
+                try {
+                    var attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                    if(attributes.isRegularFile()) {
+                        files.add(new CacheFile(path, attributes.size(), attributes.lastModifiedTime()));
+                        total += attributes.size();
+                    }
+                } catch(IOException e) {
+                    // removed meanwhile
+                }
+            }
+        } catch(IOException e) {
+            return; // no directory yet
+        }
+        if(total <= MAX_SIZE) {
+            return;
+        }
+        files.sort(Comparator.comparing(CacheFile::used));
+        for(var file : files) {
+            if(total <= PRUNED_SIZE) {
+                break;
+            }
+            try {
+                Files.deleteIfExists(file.path());
+                total -= file.size();
+            } catch(IOException e) {
+                // left for the next pruning
+            }
+        }
+    }
+
+    /** The key a file with the entry name is typechecked under when its imports have the keys */
+    static String key(String entryName, List<String> importKeys) {
+        var parts = new ArrayList<String>();
+        parts.add(entryName);
+        parts.addAll(importKeys);
+        return hash(parts);
+    }
+
+    private static String hash(List<String> parts) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256");
+            for(var part : parts) {
+                digest.update(part.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch(NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** The entry of the file with the name, null if there is none or it cannot be read */
+    Entry find(String fileName, String name) {
+        var kept = resident == null ? null : resident.get(fileName);
+        if(kept != null && kept.name().equals(name)) {
+            return new Entry(name, kept.header(), null, 0);
+        }
+        if(directory == null) {
+            return null;
+        }
+        var path = directory.resolve(name);
+        Entry entry;
+        try {
+            var bytes = Files.readAllBytes(path);
+            int headerLength = ByteBuffer.wrap(bytes).getInt();
+            var header = (Header) new Reader(bytes, 4).readAll();
+            entry = new Entry(name, header, bytes, 4 + headerLength);
+        } catch(IOException | ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+        try {
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch(IOException e) {
+            // only makes the entry look older to prune
+        }
+        return entry;
+    }
+
+    /** The file and module of the entry, null if it cannot be read. The files it imports must be loaded or stored before */
+    Loaded load(Entry entry, String fileName) {
+        if(entry.bytes() == null) {
+            var kept = resident.get(fileName);
+            register(fileName, kept.owned());
+            return kept.loaded();
+        }
+        try {
+            var in = new Reader(entry.bytes(), entry.bodyStart());
+            var loaded = new Loaded((MyLangFile) in.readAll(), (MyLangAST.Module) in.readAll());
+            register(fileName, in.owned);
+            keep(fileName, entry.name(), entry.header(), loaded, in.owned);
+            return loaded;
+        } catch(IOException | ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes the entry of a typechecked and resolved file, imported are all files it imports
+     * directly or through others. Nothing is written if one of them has no entry, as the
+     * entry would hold copies of their environments.
+     */
+    void store(String name, String fileName, Header header, Set<String> imported, MyLangFile file, MyLangAST.Module module) {
+        // Until it is written, entries of other files must not refer to the environments of this one
+        register(fileName, null);
+        keep(fileName, name, header, new Loaded(file, module), null);
+        if(directory == null) {
+            return;
+        }
+        for(var importedFile : imported) {
+            if(!environments.containsKey(importedFile)) return;
+        }
+        Path temporary = null;
+        try {
+            var body = new Writer(imported);
+            body.writeAll(file);
+            body.writeAll(module);
+            var head = new Writer(Set.of());
+            head.writeAll(header);
+            Files.createDirectories(directory);
+            temporary = Files.createTempFile(directory, name, ".tmp");
+            try(var out = Files.newOutputStream(temporary)) {
+                out.write(ByteBuffer.allocate(4).putInt(head.size).array());
+                head.writeTo(out);
+                body.writeTo(out);
+            }
+            Files.move(temporary, directory.resolve(name), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            register(fileName, body.owned);
+            keep(fileName, name, header, new Loaded(file, module), body.owned);
+            if(stores.incrementAndGet() % STORES_BETWEEN_PRUNING == 0) { // a script server runs for long
+                prune(directory);
+            }
+        } catch(IOException | ReflectiveOperationException | RuntimeException e) {
+            if(temporary != null) {
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch(IOException ignored) {}
+            }
+        }
+    }
+
+    // Makes the environments of the file the ones entries refer to, none if owned is null
+    private void register(String fileName, List<TypeEnv> owned) {
+        var previous = owned == null ? environments.remove(fileName) : environments.put(fileName, owned);
+        if(previous != null && previous != owned) {
+            for(int i = 0; i < previous.size(); i++) {
+                owners.remove(previous.get(i), new EnvironmentRef(fileName, i));
+            }
+        }
+        if(owned != null) {
+            for(int i = 0; i < owned.size(); i++) {
+                owners.putIfAbsent(owned.get(i), new EnvironmentRef(fileName, i));
+            }
+        }
+    }
+
+    private void keep(String fileName, String name, Header header, Loaded loaded, List<TypeEnv> owned) {
+        if(resident != null) {
+            resident.put(fileName, new Resident(name, header, loaded, owned));
+        }
+    }
+
+    // How objects of a class are written: the components of records, the fields of other classes
+    private static final class Shape {
+        final Method[] components;
+        final Field[] fields;
+        final Constructor<?> constructor;
+
+        Shape(Class<?> type) throws ReflectiveOperationException {
+            if(type.isRecord()) {
+                var recordComponents = type.getRecordComponents();
+                components = new Method[recordComponents.length];
+                var types = new Class<?>[recordComponents.length];
+                for(int i = 0; i < components.length; i++) {
+                    components[i] = recordComponents[i].getAccessor();
+                    components[i].setAccessible(true);
+                    types[i] = recordComponents[i].getType();
+                }
+                fields = null;
+                constructor = type.getDeclaredConstructor(types);
+            } else if(type.getPackageName().equals(ModuleCache.class.getPackageName())) {
+                components = null;
+                fields = Arrays.stream(type.getDeclaredFields())
+                    .filter(field -> (field.getModifiers() & (Modifier.STATIC | Modifier.TRANSIENT)) == 0)
+                    .toArray(Field[]::new);
+                for(var field : fields) {
+                    field.setAccessible(true);
+                }
+                constructor = type.getDeclaredConstructor();
+            } else {
+                throw new IllegalArgumentException("Cannot cache objects of " + type.getName());
+            }
+            constructor.setAccessible(true);
+        }
+
+        static Shape of(Class<?> type) throws ReflectiveOperationException {
+            var shape = shapes.get(type);
+            if(shape == null) {
+                shape = new Shape(type);
+                shapes.put(type, shape);
+            }
+            return shape;
+        }
+    }
+
+    // Mutable objects are written as an empty object of their class first, their contents are
+    // written after the value that contained them. Records and immutable collections are
+    // written in place, so a record is never read while one of its components is being read.
+    private final class Writer {
+        private byte[] bytes = new byte[1024];
+        private int size = 0;
+        private final Set<String> imported;
+        private final Map<Object, Integer> handles = new IdentityHashMap<>();
+        private final Map<String, Integer> strings = new HashMap<>();
+        private final Map<Class<?>, Integer> classes = new HashMap<>();
+        private final ArrayDeque<Object> unfilled = new ArrayDeque<>();
+        final List<TypeEnv> owned = new ArrayList<>();
+
+        Writer(Set<String> imported) {
+            this.imported = imported;
+        }
+
+        void writeTo(OutputStream out) throws IOException {
+            out.write(bytes, 0, size);
+        }
+
+        private void add(int b) {
+            if(size == bytes.length) {
+                bytes = Arrays.copyOf(bytes, size * 2);
+            }
+            bytes[size++] = (byte) b;
+        }
+
+        // Unsigned, seven bits per byte
+        private void number(int n) {
+            while((n & ~0x7f) != 0) {
+                add((n & 0x7f) | 0x80);
+                n >>>= 7;
+            }
+            add(n);
+        }
+
+        private void signed(int n) {
+            number((n << 1) ^ (n >> 31));
+        }
+
+        private void string(String s) {
+            var index = strings.get(s);
+            if(index != null) {
+                add(STRING);
+                number(index);
+            } else {
+                strings.put(s, strings.size());
+                var utf8 = s.getBytes(StandardCharsets.UTF_8);
+                add(NEW_STRING);
+                number(utf8.length);
+                for(var b : utf8) add(b);
+            }
+        }
+
+        private void type(Class<?> type) {
+            var index = classes.get(type);
+            if(index != null) {
+                number(index + 1);
+            } else {
+                classes.put(type, classes.size());
+                number(0);
+                string(type.getName());
+            }
+        }
+
+        /** Writes the value and then the contents of the mutable objects in it */
+        void writeAll(Object value) throws IOException, ReflectiveOperationException {
+            write(value);
+            while(!unfilled.isEmpty()) {
+                writeContents(unfilled.poll());
+            }
+        }
+
+        private void write(Object value) throws IOException, ReflectiveOperationException {
+            if(value == null) {
+                add(NULL);
+            } else if(value instanceof String s) {
+                string(s);
+            } else if(value instanceof Boolean b) {
+                add(b ? TRUE : FALSE);
+            } else if(value instanceof Integer i) {
+                add(INT);
+                signed(i);
+            } else if(value instanceof Double d) {
+                add(DOUBLE);
+                long bits = Double.doubleToRawLongBits(d);
+                for(int shift = 56; shift >= 0; shift -= 8) add((int) (bits >>> shift));
+            } else if(value instanceof Enum<?> e) {
+                add(ENUM);
+                type(e.getDeclaringClass());
+                number(e.ordinal());
+            } else if(handles.containsKey(value)) {
+                add(HANDLE);
+                number(handles.get(value));
+            } else if(value instanceof Token token) {
+                // By its lexeme, the text of its source is not written
+                add(TOKEN);
+                number(token.type().ordinal());
+                string(token.lexeme());
+                number(token.start());
+                number(token.end());
+                number(token.line());
+                handles.put(value, handles.size());
+            } else if(value.getClass().isRecord()) {
+                add(RECORD);
+                type(value.getClass());
+                for(var component : Shape.of(value.getClass()).components) {
+                    write(component.invoke(value));
+                }
+                handles.put(value, handles.size());
+            } else if(value instanceof int[] ints) {
+                add(INTS);
+                number(ints.length);
+                for(int i : ints) signed(i);
+                handles.put(value, handles.size());
+            } else if(value instanceof boolean[] booleans) {
+                add(BOOLEANS);
+                number(booleans.length);
+                for(boolean b : booleans) add(b ? 1 : 0);
+                handles.put(value, handles.size());
+            } else if(value instanceof List<?> list && !(value instanceof ArrayList)) {
+                add(LIST);
+                writeElements(list);
+                handles.put(value, handles.size());
+            } else if(value instanceof Set<?> set && !(value instanceof HashSet)) {
+                add(SET);
+                writeElements(set);
+                handles.put(value, handles.size());
+            } else if(value instanceof Map<?, ?> map && !(value instanceof HashMap)) {
+                add(MAP);
+                writeEntries(map);
+                handles.put(value, handles.size());
+            } else {
+                handles.put(value, handles.size());
+                writeEmpty(value);
+            }
+        }
+
+        private void writeEmpty(Object value) throws ReflectiveOperationException {
+            if(value instanceof TypeEnv env) {
+                var ref = owners.get(env);
+                if(ref != null && imported.contains(ref.file())) {
+                    add(ENVIRONMENT);
+                    string(ref.file());
+                    number(ref.index());
+                    return;
+                }
+                owned.add(env);
+            }
+            if(value instanceof ArrayList) {
+                add(ARRAY_LIST);
+            } else if(value instanceof HashSet) {
+                add(value instanceof LinkedHashSet ? LINKED_HASH_SET : HASH_SET);
+            } else if(value instanceof HashMap) {
+                add(value instanceof LinkedHashMap ? LINKED_HASH_MAP : HASH_MAP);
+            } else if(value instanceof Object[] array) {
+                add(ARRAY);
+                type(array.getClass().getComponentType());
+                number(array.length);
+            } else {
+                Shape.of(value.getClass());
+                add(OBJECT);
+                type(value.getClass());
+            }
+            unfilled.add(value);
+        }
+
+        private void writeContents(Object value) throws IOException, ReflectiveOperationException {
+            if(value instanceof Collection<?> collection) {
+                writeElements(collection);
+            } else if(value instanceof Map<?, ?> map) {
+                writeEntries(map);
+            } else if(value instanceof Object[] array) {
+                for(var element : array) write(element);
+            } else {
+                for(var field : Shape.of(value.getClass()).fields) {
+                    write(field.get(value));
+                }
+            }
+        }
+
+        private void writeElements(Collection<?> values) throws IOException, ReflectiveOperationException {
+            number(values.size());
+            for(var value : values) {
+                write(value);
+            }
+        }
+
+        private void writeEntries(Map<?, ?> map) throws IOException, ReflectiveOperationException {
+            number(map.size());
+            for(var entry : map.entrySet()) {
+                write(entry.getKey());
+                write(entry.getValue());
+            }
+        }
+    }
+
+    private final class Reader {
+        private final byte[] bytes;
+        private int position;
+        private final List<Object> handles = new ArrayList<>();
+        private final List<String> strings = new ArrayList<>();
+        private final List<Class<?>> classes = new ArrayList<>();
+        private final ArrayDeque<Object> unfilled = new ArrayDeque<>();
+        final List<TypeEnv> owned = new ArrayList<>();
+
+        Reader(byte[] bytes, int position) {
+            this.bytes = bytes;
+            this.position = position;
+        }
+
+        private int number() {
+            int n = 0;
+            for(int shift = 0; ; shift += 7) {
+                int b = bytes[position++];
+                n |= (b & 0x7f) << shift;
+                if((b & 0x80) == 0) return n;
+            }
+        }
+
+        private int signed() {
+            int n = number();
+            return (n >>> 1) ^ -(n & 1);
+        }
+
+        // A length of something that takes at least a byte per element, checked against the rest
+        // of the entry, so a damaged entry cannot make the reader allocate a huge array
+        private int length() throws IOException {
+            int n = number();
+            if(n < 0 || n > bytes.length - position) {
+                throw new IOException("Invalid length " + n + " at " + position);
+            }
+            return n;
+        }
+
+        private Class<?> type() throws IOException, ReflectiveOperationException {
+            int index = number();
+            if(index > 0) {
+                return classes.get(index - 1);
+            }
+            var type = cacheableType((String) read());
+            classes.add(type);
+            return type;
+        }
+
+        // Only the classes of the interpreter can be read, and the int[] of the decision trees. An
+        // entry planted in the directory cannot make the reader create objects of other classes
+        private static Class<?> cacheableType(String name) throws IOException, ClassNotFoundException {
+            if(name.equals(int[].class.getName())) {
+                return int[].class;
+            }
+            var packagePrefix = ModuleCache.class.getPackageName() + ".";
+            if(!name.startsWith(packagePrefix) || name.indexOf('.', packagePrefix.length()) >= 0) {
+                throw new IOException("Not a class of the interpreter: " + name);
+            }
+            return Class.forName(name, false, ModuleCache.class.getClassLoader());
+        }
+
+        private <T> T handle(T value) {
+            handles.add(value);
+            return value;
+        }
+
+        private <T> T empty(T value) {
+            unfilled.add(handle(value));
+            return value;
+        }
+
+        /** Reads a value written by writeAll */
+        Object readAll() throws IOException, ReflectiveOperationException {
+            var value = read();
+            while(!unfilled.isEmpty()) {
+                readContents(unfilled.poll());
+            }
+            return value;
+        }
+
+        private Object read() throws IOException, ReflectiveOperationException {
+            int tag = bytes[position++];
+            switch(tag) {
+                case NULL: return null;
+                case HANDLE: return handles.get(number());
+                case STRING: return strings.get(number());
+                case NEW_STRING: {
+                    int length = length();
+                    var s = new String(bytes, position, length, StandardCharsets.UTF_8);
+                    position += length;
+                    strings.add(s);
+                    return s;
+                }
+                case INT: return signed();
+                case DOUBLE: {
+                    long bits = 0;
+                    for(int i = 0; i < 8; i++) bits = (bits << 8) | (bytes[position++] & 0xff);
+                    return Double.longBitsToDouble(bits);
+                }
+                case TRUE: return true;
+                case FALSE: return false;
+                case ENUM: return type().getEnumConstants()[number()];
+                case RECORD: {
+                    var shape = Shape.of(type());
+                    var components = new Object[shape.components.length];
+                    for(int i = 0; i < components.length; i++) {
+                        components[i] = read();
+                    }
+                    return handle(shape.constructor.newInstance(components));
+                }
+                case TOKEN: {
+                    var types = TokenType.values();
+                    int type = number();
+                    if(type < 0 || type >= types.length) {
+                        throw new IOException("No token type " + type);
+                    }
+                    var lexeme = (String) read();
+                    int start = number(), end = number();
+                    return handle(new Token(types[type], lexeme, start, end, number()));
+                }
+                case INTS: {
+                    var ints = new int[length()];
+                    for(int i = 0; i < ints.length; i++) ints[i] = signed();
+                    return handle(ints);
+                }
+                case BOOLEANS: {
+                    var booleans = new boolean[length()];
+                    for(int i = 0; i < booleans.length; i++) booleans[i] = bytes[position++] != 0;
+                    return handle(booleans);
+                }
+                case LIST: return handle(Collections.unmodifiableList(readElements(new ArrayList<>())));
+                case SET: return handle(Collections.unmodifiableSet(readElements(new LinkedHashSet<>())));
+                case MAP: return handle(Collections.unmodifiableMap(readEntries(new LinkedHashMap<>())));
+                case ENVIRONMENT: {
+                    var file = (String) read();
+                    var fileEnvironments = environments.get(file);
+                    int index = number();
+                    if(fileEnvironments == null || index >= fileEnvironments.size()) {
+                        throw new IOException("No environment " + index + " of " + file);
+                    }
+                    return handle(fileEnvironments.get(index));
+                }
+                case ARRAY_LIST: return empty(new ArrayList<>());
+                case HASH_SET: return empty(new HashSet<>());
+                case LINKED_HASH_SET: return empty(new LinkedHashSet<>());
+                case HASH_MAP: return empty(new HashMap<>());
+                case LINKED_HASH_MAP: return empty(new LinkedHashMap<>());
+                case ARRAY: {
+                    var type = type();
+                    return empty(Array.newInstance(type, length()));
+                }
+                case OBJECT: {
+                    var object = empty(Shape.of(type()).constructor.newInstance());
+                    if(object instanceof TypeEnv env) owned.add(env);
+                    return object;
+                }
+                default: throw new IOException("Unknown tag " + tag);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void readContents(Object value) throws IOException, ReflectiveOperationException {
+            if(value instanceof Collection<?> collection) {
+                readElements((Collection<Object>) collection);
+            } else if(value instanceof Map<?, ?> map) {
+                readEntries((Map<Object, Object>) map);
+            } else if(value instanceof Object[] array) {
+                for(int i = 0; i < array.length; i++) array[i] = read();
+            } else {
+                for(var field : Shape.of(value.getClass()).fields) {
+                    field.set(value, read());
+                }
+            }
+        }
+
+        private <C extends Collection<Object>> C readElements(C collection) throws IOException, ReflectiveOperationException {
+            int size = length();
+            for(int i = 0; i < size; i++) {
+                collection.add(read());
+            }
+            return collection;
+        }
+
+        private <M extends Map<Object, Object>> M readEntries(M map) throws IOException, ReflectiveOperationException {
+            int size = length();
+            for(int i = 0; i < size; i++) {
+                map.put(read(), read());
+            }
+            return map;
+        }
+    }
+}
@@ -1,26 +1,73 @@
 package MyLang;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 
 public class MyLang {
 
     ArrayList<String> program_args;
+    ExecutionEngine engine = ExecutionEngine.VISITOR;
+    boolean profile = false;
+    boolean cache = true;
+    String server = null;
+
     public void runFile(String filename) throws IOException {
-        MyLangRunner runner = new MyLangRunner(filename, program_args);
+        if(profile) {
+            var name = Path.of(filename).getFileName().toString().replaceFirst("\\.myl$", "");
+            Profiler.current = new Profiler(name + ".folded");
+        }
+        MyLangRunner runner = new MyLangRunner(filename, program_args, engine);
+        if(cache) runner.cache = ModuleCache.inUserCache();
         runner.run();
     }
 
     public static void main(String[] args) throws IOException {
         MyLang myLang = new MyLang();
-        if(args.length >= 1) {
-            myLang.program_args = new ArrayList<>(Arrays.asList(args).subList(1, args.length));
-            myLang.runFile(args[0]);
+        int first = 0;
+        while(first < args.length && args[first].startsWith("--")) {
+            switch(args[first]) {
+                case "--closures" -> myLang.engine = ExecutionEngine.CLOSURES;
+                case "--vm" -> myLang.engine = ExecutionEngine.VM;
+                case "--profile" -> myLang.profile = true;
+                case "--no-cache" -> myLang.cache = false;
+                case "--server" -> {
+                    if(++first == args.length) {
+                        System.err.println("--server braucht den Pfad des Sockets");
+                        return;
+                    }
+                    myLang.server = args[first];
+                }
+                default -> {
+                    System.err.println("Unbekannte Option: "+args[first]);
+                    return;
+                }
+            }
+            first++;
+        }
+        if(myLang.server != null) {
+            new ScriptServer(Path.of(myLang.server), ModuleCache.resident(myLang.cache)).serve();
+        } else if(args.length > first) {
+            myLang.program_args = new ArrayList<>(Arrays.asList(args).subList(first + 1, args.length));
+            myLang.runFile(args[first]);
         } else {
             System.err.println("""
                 Verwendung:
-                java MyLang/MyLang <eingabedatei>
+                java MyLang/MyLang [optionen] <eingabedatei>
+                java MyLang/MyLang [--no-cache] --server <socket>
+
+                Optionen:
+                --closures    Programm vor der Ausfuehrung in Closures uebersetzen, statt den AST zu interpretieren
+                --vm          Funktionen in Bytecode uebersetzen und in der Register-VM ausfuehren
+                --profile     Aufrufe, Laufzeit und Allokationen jeder Funktion messen, am Ende eine
+                              Uebersicht ausgeben und die Aufrufstapel fuer Flame Graphs in
+                              <name der eingabedatei>.folded schreiben
+                --no-cache    Module immer parsen und typpruefen, statt sie aus dem Cache
+                              ($XDG_CACHE_HOME/mylang oder ~/.cache/mylang) zu laden
+                --server      Auf dem Unix-Socket auf Programme von java MyLang/MyLangClient warten
+                              und sie ausfuehren, gepruefte Module bleiben zwischen den Aufrufen im
+                              Speicher und werden neu geprueft, sobald sich ihre Dateien aendern
                 """);
         }
     }
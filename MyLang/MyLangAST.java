@@ -50,7 +50,7 @@ public static record NullLiteral(Token keyword) implements Expression {
 public <T> T accept(ExpressionVisitor<T> visitor) {
     return visitor.visitNullLiteral(this);
 }}
-public static record Identifier(Token value) implements Expression {
+public static record Identifier(Token value, VariableSlot slot) implements Expression {
 public <T> T accept(ExpressionVisitor<T> visitor) {
     return visitor.visitIdentifier(this);
 }}
@@ -62,7 +62,7 @@ public static record UnaryOperation(Token operator, Expression operand) implemen
 public <T> T accept(ExpressionVisitor<T> visitor) {
     return visitor.visitUnaryOperation(this);
 }}
-public static record FunctionCall(Expression callee, Token dot, List<Parameter> arguments, Map<String, Expression> named) implements Expression {
+public static record FunctionCall(Expression callee, Token dot, List<Parameter> arguments, Map<String, Expression> named, TailPosition tail) implements Expression {
 public <T> T accept(ExpressionVisitor<T> visitor) {
     return visitor.visitFunctionCall(this);
 }}
@@ -70,7 +70,7 @@ public static record InstExpression(Expression instantiated, List<Type> args) im
 public <T> T accept(ExpressionVisitor<T> visitor) {
     return visitor.visitInstExpression(this);
 }}
-public static record FunctionExpression(String optionalName, ParameterInformation parameters, Expression body, Type retType) implements Expression {
+public static record FunctionExpression(String optionalName, ParameterInformation parameters, Expression body, Type retType, FrameLayout frame) implements Expression {
 public <T> T accept(ExpressionVisitor<T> visitor) {
     return visitor.visitFunctionExpression(this);
 }}
@@ -78,7 +78,7 @@ public static record IfExpression(Expression condition, Expression thenBranch, E
 public <T> T accept(ExpressionVisitor<T> visitor) {
     return visitor.visitIfExpression(this);
 }}
-public static record IfValExpression(Pattern pat, Expression matched, Expression thenBranch, Expression elseBranch) implements Expression {
+public static record IfValExpression(Pattern pat, Expression matched, Expression thenBranch, Expression elseBranch, FrameLayout frame) implements Expression {
 public <T> T accept(ExpressionVisitor<T> visitor) {
     return visitor.visitIfValExpression(this);
 }}
@@ -98,7 +98,7 @@ public static record PropertyExpression(Expression object, Token name) implement
 public <T> T accept(ExpressionVisitor<T> visitor) {
     return visitor.visitPropertyExpression(this);
 }}
-public static record BlockExpression(List<DeclarationOrStatement> statements, Expression returnValue) implements Expression {
+public static record BlockExpression(List<DeclarationOrStatement> statements, Expression returnValue, FrameLayout frame) implements Expression {
 public <T> T accept(ExpressionVisitor<T> visitor) {
     return visitor.visitBlockExpression(this);
 }}
@@ -106,7 +106,7 @@ public static record WhileYieldExpression(Expression condition, Parameter body)
 public <T> T accept(ExpressionVisitor<T> visitor) {
     return visitor.visitWhileYieldExpression(this);
 }}
-public static record WhileValYieldExpression(Pattern pattern, Expression matched, Expression body) implements Expression {
+public static record WhileValYieldExpression(Pattern pattern, Expression matched, Expression body, FrameLayout frame) implements Expression {
 public <T> T accept(ExpressionVisitor<T> visitor) {
     return visitor.visitWhileValYieldExpression(this);
 }}
@@ -114,11 +114,11 @@ public static record WhileDoExpression(Expression condition, Statement body) imp
 public <T> T accept(ExpressionVisitor<T> visitor) {
     return visitor.visitWhileDoExpression(this);
 }}
-public static record WhileValDoExpression(Pattern pattern, Expression matched, Expression body) implements Expression {
+public static record WhileValDoExpression(Pattern pattern, Expression matched, Expression body, FrameLayout frame) implements Expression {
 public <T> T accept(ExpressionVisitor<T> visitor) {
     return visitor.visitWhileValDoExpression(this);
 }}
-public static record ForYieldExpression(Pattern pat, Expression collection, Expression guard, Parameter body) implements Expression {
+public static record ForYieldExpression(Pattern pat, Expression collection, Expression guard, Parameter body, FrameLayout frame) implements Expression {
 public <T> T accept(ExpressionVisitor<T> visitor) {
     return visitor.visitForYieldExpression(this);
 }}
@@ -126,7 +126,7 @@ public static record RangeExpression(Expression start, Expression end, Expressio
 public <T> T accept(ExpressionVisitor<T> visitor) {
     return visitor.visitRangeExpression(this);
 }}
-public static record ThisExpression(Token keyword) implements Expression {
+public static record ThisExpression(Token keyword, VariableSlot slot) implements Expression {
 public <T> T accept(ExpressionVisitor<T> visitor) {
     return visitor.visitThisExpression(this);
 }}
@@ -134,7 +134,7 @@ public static record ReturnExpression(Expression returnValue) implements Express
 public <T> T accept(ExpressionVisitor<T> visitor) {
     return visitor.visitReturnExpression(this);
 }}
-public static record MatchExpression(Expression matched, List<Pattern> cases, List<Expression> branches) implements Expression {
+public static record MatchExpression(Expression matched, List<Pattern> cases, List<Expression> branches, FrameLayout frame, DecisionTree tree) implements Expression {
 public <T> T accept(ExpressionVisitor<T> visitor) {
     return visitor.visitMatchExpression(this);
 }}
@@ -151,6 +151,8 @@ public T visitEnumDeclaration(EnumDeclaration value);
 public T visitTypeDefDeclaration(TypeDefDeclaration value);
 public T visitModuleDeclaration(ModuleDeclaration value);
 public T visitEmptyDeclaration(EmptyDeclaration value);
+public T visitNativeFunctionDeclaration(NativeFunctionDeclaration value);
+public T visitNativeClassDeclaration(NativeClassDeclaration value);
 }
 public static sealed interface Declaration extends MyLangAST,  DeclarationOrStatement,  ConstructorOrDeclaration {
     public <T> T accept(DeclarationVisitor<T> visitor);
@@ -163,11 +165,11 @@ public static record ValElseDeclaration(Pattern pat, Expression initializer, Exp
 public <T> T accept(DeclarationVisitor<T> visitor) {
     return visitor.visitValElseDeclaration(this);
 }}
-public static record FunctionDeclaration(Token Name, List<Token> typeParams, ParameterInformation parameters, Expression body, Type retType, boolean export) implements Declaration {
+public static record FunctionDeclaration(Token Name, List<Token> typeParams, ParameterInformation parameters, Expression body, Type retType, boolean export, VariableSlot slot, FrameLayout frame) implements Declaration {
 public <T> T accept(DeclarationVisitor<T> visitor) {
     return visitor.visitFunctionDeclaration(this);
 }}
-public static record ClassDeclaration(Token Name, List<Token> args, List<Declaration> fieldsAndMethods, ClassConstructor constructor, boolean export) implements Declaration {
+public static record ClassDeclaration(Token Name, List<Token> args, List<Declaration> fieldsAndMethods, ClassConstructor constructor, boolean export, VariableSlot slot, FrameLayout fieldFrame) implements Declaration {
 public <T> T accept(DeclarationVisitor<T> visitor) {
     return visitor.visitClassDeclaration(this);
 }}
@@ -187,6 +189,14 @@ public static record EmptyDeclaration(Token semicolon) implements Declaration {
 public <T> T accept(DeclarationVisitor<T> visitor) {
     return visitor.visitEmptyDeclaration(this);
 }}
+public static record NativeFunctionDeclaration(Token Name, List<Token> typeParams, FunctionType type, Token path, boolean export, VariableSlot slot) implements Declaration {
+public <T> T accept(DeclarationVisitor<T> visitor) {
+    return visitor.visitNativeFunctionDeclaration(this);
+}}
+public static record NativeClassDeclaration(Token Name, List<Token> args, Token path, Map<String, FunctionType> methods, List<Type> constructor, boolean export, VariableSlot slot) implements Declaration {
+public <T> T accept(DeclarationVisitor<T> visitor) {
+    return visitor.visitNativeClassDeclaration(this);
+}}
 public static interface ImportVisitor<T> {
 public T visitImportDeclaration(ImportDeclaration value);
 }
@@ -219,7 +229,7 @@ public static record SetStatement(Setter setter, Expression expression) implemen
 public <T> T accept(StatementVisitor<T> visitor) {
     return visitor.visitSetStatement(this);
 }}
-public static record ForDoStatement(Pattern pat, Expression collection, Expression guard, Expression body) implements Statement {
+public static record ForDoStatement(Pattern pat, Expression collection, Expression guard, Expression body, FrameLayout frame) implements Statement {
 public <T> T accept(StatementVisitor<T> visitor) {
     return visitor.visitForDoStatement(this);
 }}
@@ -237,7 +247,7 @@ public T visitWildcardSetter(WildcardSetter value);
 public static sealed interface Setter extends MyLangAST {
     public <T> T accept(SetterVisitor<T> visitor);
 }
-public static record VariableSetter(Token name) implements Setter {
+public static record VariableSetter(Token name, VariableSlot slot) implements Setter {
 public <T> T accept(SetterVisitor<T> visitor) {
     return visitor.visitVariableSetter(this);
 }}
@@ -264,11 +274,11 @@ public T visitEnumConstructor(EnumConstructor value);
 public static sealed interface Constructor extends MyLangAST,  ConstructorOrDeclaration {
     public <T> T accept(ConstructorVisitor<T> visitor);
 }
-public static record ClassConstructor(Token keyword, ParameterInformation parameters, Expression body) implements Constructor {
+public static record ClassConstructor(Token keyword, ParameterInformation parameters, Expression body, FrameLayout frame) implements Constructor {
 public <T> T accept(ConstructorVisitor<T> visitor) {
     return visitor.visitClassConstructor(this);
 }}
-public static record EnumConstructor(Token name, List<Type> parameters) implements Constructor {
+public static record EnumConstructor(Token name, List<Type> parameters, VariableSlot slot) implements Constructor {
 public <T> T accept(ConstructorVisitor<T> visitor) {
     return visitor.visitEnumConstructor(this);
 }}
@@ -309,7 +319,7 @@ public T visitConstructorPattern(ConstructorPattern value);
 public static sealed interface Pattern extends MyLangAST {
     public <T> T accept(PatternVisitor<T> visitor);
 }
-public static record VariableBinding(Token name) implements Pattern {
+public static record VariableBinding(Token name, VariableSlot slot) implements Pattern {
 public <T> T accept(PatternVisitor<T> visitor) {
     return visitor.visitVariableBinding(this);
 }}
@@ -0,0 +1,46 @@
+package MyLang;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Runs a program several times with every execution engine and reports the
+ * time spent interpreting it (parsing and typechecking are not measured).
+ * Output of the program is discarded.
+ *
+ * Verwendung: java MyLang.MyLangBenchmark <eingabedatei> [durchlaeufe]
+ */
+public class MyLangBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        if(args.length < 1) {
+            System.err.println("Verwendung: java MyLang.MyLangBenchmark <eingabedatei> [durchlaeufe]");
+            return;
+        }
+        String file = args[0];
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        for(var engine : ExecutionEngine.values()) {
+            long[] times = new long[runs];
+            measure(file, engine); // warmup
+            for(int i = 0; i < runs; i++) {
+                times[i] = measure(file, engine);
+            }
+            Arrays.sort(times);
+            System.out.printf("%-10s min %6d ms   median %6d ms%n", engine, times[0], times[runs / 2]);
+        }
+    }
+
+    private static long measure(String file, ExecutionEngine engine) throws IOException {
+        var runner = new MyLangRunner(file, new ArrayList<>(), engine);
+        if(!runner.gatherAllImports()) {
+            throw new IllegalArgumentException("Could not compile "+file);
+        }
+        runner.out = new PrintStream(OutputStream.nullOutputStream());
+        long start = System.nanoTime();
+        runner.interpreter.interpretFile(runner, runner.mainModule, true);
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
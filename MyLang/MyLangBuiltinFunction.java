@@ -1,7 +1,6 @@
 package MyLang;
 
 import java.util.List;
-import java.util.ArrayList;
 import java.util.Map;
 import static MyLang.MyLangAST.*;
 import java.nio.file.*;
@@ -15,6 +14,14 @@ public abstract class MyLangBuiltinFunction implements MyLangCallable {
         this.name = name; type = t;
     }
 
+    /** Builtins are Java code expecting Strings, so ropes among the arguments are flattened first */
+    @Override
+    public final Object call(MyLangInterpreter interpreter, List<Object> args, Map<String, Object> named) {
+        return apply(interpreter, Rope.flattenAll(args), named);
+    }
+
+    protected abstract Object apply(MyLangInterpreter interpreter, List<Object> args, Map<String, Object> named);
+
     protected void noNamedArgs(Map<String, Object> named, MyLangInterpreter interpreter) {
         if(!named.isEmpty()) {
             throw new InterpreterError("Builtin function '"+this.name+"' does not take named arguments", interpreter.callStack);
@@ -32,7 +39,7 @@ public abstract class MyLangBuiltinFunction implements MyLangCallable {
             new TypeEnv()
         )) {
         @Override
-        public Object call(MyLangInterpreter i, List<Object> args, Map<String, Object> named) {
+        protected Object apply(MyLangInterpreter i, List<Object> args, Map<String, Object> named) {
             return (double) ((String) args.get(0)).length();
         }
     };
@@ -49,7 +56,7 @@ public abstract class MyLangBuiltinFunction implements MyLangCallable {
         )) {
 
             @Override
-            public Object call(MyLangInterpreter interpreter, List<Object> args, Map<String, Object> named) {
+            protected Object apply(MyLangInterpreter interpreter, List<Object> args, Map<String, Object> named) {
                 return interpreter.program_args;
             }
         };
@@ -65,7 +72,7 @@ public abstract class MyLangBuiltinFunction implements MyLangCallable {
             new TypeEnv()
         )) {
             @Override
-            public Object call(MyLangInterpreter interpreter, List<Object> posArgs, Map<String, Object> namedArgs) {
+            protected Object apply(MyLangInterpreter interpreter, List<Object> posArgs, Map<String, Object> namedArgs) {
                 return ((String) posArgs.get(0)).matches((String) posArgs.get(1));
             }
 
@@ -83,15 +90,14 @@ public abstract class MyLangBuiltinFunction implements MyLangCallable {
         )) {
 
             @Override
-            public Object call(MyLangInterpreter interpreter, List<Object> posArgs, Map<String, Object> namedArgs) {
-                System.out.println(posArgs.get(0));
-                System.out.println("Panicked at:");
-                while(!interpreter.callStack.isEmpty()) {
-                    System.out.print("  ");
-                    var element = interpreter.callStack.pop();
-                    System.out.println(element.name());
+            protected Object apply(MyLangInterpreter interpreter, List<Object> posArgs, Map<String, Object> namedArgs) {
+                interpreter.out.println(posArgs.get(0));
+                interpreter.out.println("Panicked at:");
+                for(var element : interpreter.callStack) {
+                    interpreter.out.print("  ");
+                    interpreter.out.println(element.name());
                 }
-                System.exit(0);
+                interpreter.exit(0);
                 return null;
             }
 
@@ -108,7 +114,7 @@ public abstract class MyLangBuiltinFunction implements MyLangCallable {
             new TypeEnv()
         )) {
             @Override
-            public Object call(MyLangInterpreter interpreter, List<Object> posArgs, Map<String, Object> namedArgs) {
+            protected Object apply(MyLangInterpreter interpreter, List<Object> posArgs, Map<String, Object> namedArgs) {
                 return ((String) posArgs.get(0)).replace((String) posArgs.get(1), (String) posArgs.get(2));
             }
             
@@ -124,11 +130,11 @@ public abstract class MyLangBuiltinFunction implements MyLangCallable {
             new TypeEnv()
         )) {
     @Override
-    public Object call(MyLangInterpreter i, List<Object> args, Map<String, Object> named) {
+    protected Object apply(MyLangInterpreter i, List<Object> args, Map<String, Object> named) {
             var toBeSplitted = (String) args.get(0);
             var regex = (String) args.get(1);
             var results = toBeSplitted.split(regex);
-            var result = new ArrayList<Object>(results.length);
+            var result = new PersistentVector();
             for(var r: results) {
                 result.add(r);
             }
@@ -147,9 +153,9 @@ public abstract class MyLangBuiltinFunction implements MyLangCallable {
             new TypeEnv()
         )) {
             @Override
-            public Object call(MyLangInterpreter i, List<Object> args, Map<String, Object> named) {
+            protected Object apply(MyLangInterpreter i, List<Object> args, Map<String, Object> named) {
                 String separator =  (String) args.get(0);
-                ArrayList list = (ArrayList) args.get(1);
+                List list = (List) args.get(1);
                 return String.join(separator, list);
             }
         };
@@ -165,7 +171,7 @@ public abstract class MyLangBuiltinFunction implements MyLangCallable {
             new TypeEnv()
         )) {
         @Override
-        public Object call(MyLangInterpreter i, List<Object> args, Map<String, Object> named) {
+        protected Object apply(MyLangInterpreter i, List<Object> args, Map<String, Object> named) {
             return ((String) args.get(0)).strip();
         }
     };
@@ -180,7 +186,7 @@ public abstract class MyLangBuiltinFunction implements MyLangCallable {
             Typechecker.booleanType, new TypeEnv()
         )) {
         @Override
-        public Object call(MyLangInterpreter i, List<Object> args, Map<String, Object> named) {
+        protected Object apply(MyLangInterpreter i, List<Object> args, Map<String, Object> named) {
             return args.get(0) == null;
         }
     };
@@ -197,12 +203,12 @@ public abstract class MyLangBuiltinFunction implements MyLangCallable {
             new TypeEnv()
         )) {
             @Override
-            public Object call(
+            protected Object apply(
                 MyLangInterpreter interpreter, 
                 List<Object> args, 
                 Map<String, Object> named) {
                 try {
-                    return Files.readString(Paths.get((String) args.get(0)));
+                    return Files.readString(interpreter.pathOf((String) args.get(0)));
                 } catch(IOException e) {
                     return null;
                 }
@@ -221,9 +227,9 @@ public abstract class MyLangBuiltinFunction implements MyLangCallable {
         ) {
 
             @Override
-            public Object call(MyLangInterpreter interpreter, List<Object> posArgs, Map<String, Object> namedArgs) {
+            protected Object apply(MyLangInterpreter interpreter, List<Object> posArgs, Map<String, Object> namedArgs) {
                 noNamedArgs(namedArgs, interpreter);
-                var path = Paths.get((String) posArgs.get(0));
+                var path = interpreter.pathOf((String) posArgs.get(0));
                 try {
                     Files.writeString(path, (String) posArgs.get(1));
                 } catch (IOException e) {
@@ -244,12 +250,12 @@ public abstract class MyLangBuiltinFunction implements MyLangCallable {
                 Typechecker.voidType, 
                 Typechecker.voidType, new TypeEnv())) {
         @Override
-        public Object call(MyLangInterpreter interpreter, List<Object> args, Map<String, Object> named) {
+        protected Object apply(MyLangInterpreter interpreter, List<Object> args, Map<String, Object> named) {
             noNamedArgs(named, interpreter);
             for (Object object : args) {
-                System.out.print(interpreter.stringify(object));
+                interpreter.out.print(interpreter.stringify(object));
             }   
-            System.out.println();
+            interpreter.out.println();
             return null;
         }
     };
@@ -265,12 +271,12 @@ public abstract class MyLangBuiltinFunction implements MyLangCallable {
                 Typechecker.stringType,
             new TypeEnv())) {
         @Override
-        public Object call(MyLangInterpreter interpreter, List<Object> args, Map<String, Object> named) {
+        protected Object apply(MyLangInterpreter interpreter, List<Object> args, Map<String, Object> named) {
             if(args.size() != 1) {
                 throw new InterpreterError("Expected 1 argument, got " + args.size() + " calling function '"+name+"'", interpreter.callStack);
             }
             noNamedArgs(named, interpreter);
-            System.out.print(interpreter.stringify(args.get(0)));
+            interpreter.out.print(interpreter.stringify(args.get(0)));
             return interpreter.inScanner.nextLine();
         }
     };
@@ -286,7 +292,7 @@ public abstract class MyLangBuiltinFunction implements MyLangCallable {
                 Typechecker.numberType,
                 new TypeEnv())) {
         @Override
-        public Object call(MyLangInterpreter interpreter, List<Object> args, Map<String, Object> named) {
+        protected Object apply(MyLangInterpreter interpreter, List<Object> args, Map<String, Object> named) {
             if(args.size() != 1) {
                 throw new InterpreterError("Expected 1 argument, got " + args.size() + " calling function '"+name+"'", interpreter.callStack);
             }
@@ -309,7 +315,7 @@ public abstract class MyLangBuiltinFunction implements MyLangCallable {
                 Typechecker.voidType,
                 new TypeEnv())) {
         @Override
-        public Object call(MyLangInterpreter interpreter, List<Object> args, Map<String, Object> named) {
+        protected Object apply(MyLangInterpreter interpreter, List<Object> args, Map<String, Object> named) {
             if(args.size() != 2) {
                 throw new InterpreterError("Expected 2 arguments, got " + args.size() + " calling function '"+name+"'", interpreter.callStack);
             }
@@ -327,7 +333,7 @@ public abstract class MyLangBuiltinFunction implements MyLangCallable {
             "pop",
             new FunctionTypeRep(List.of(),List.of(), Map.of(), Map.of(), null, Typechecker.voidType, new TypeEnv())) {
         @Override
-        public Object call(MyLangInterpreter interpreter, List<Object> args, Map<String, Object> named) {
+        protected Object apply(MyLangInterpreter interpreter, List<Object> args, Map<String, Object> named) {
             if(args.size() != 1) {
                 throw new InterpreterError("Expected 1 argument, got " + args.size() + " calling function '"+name+"'", interpreter.callStack);
             }
@@ -353,7 +359,7 @@ public abstract class MyLangBuiltinFunction implements MyLangCallable {
             null, 
             Typechecker.voidType, new TypeEnv())) {
         @Override
-        public Object call(MyLangInterpreter interpreter, List<Object> args, Map<String, Object> named) {
+        protected Object apply(MyLangInterpreter interpreter, List<Object> args, Map<String, Object> named) {
             if(args.size() != 1) {
                 throw new InterpreterError("Expected 1 argument, got " + args.size() + " calling function '"+name+"'", interpreter.callStack);
             }
@@ -379,7 +385,7 @@ public abstract class MyLangBuiltinFunction implements MyLangCallable {
                 null, 
                 Typechecker.voidType, new TypeEnv())) {
         @Override
-        public Object call(MyLangInterpreter interpreter, List<Object> args, Map<String, Object> named) {
+        protected Object apply(MyLangInterpreter interpreter, List<Object> args, Map<String, Object> named) {
             if(args.size() != 1) {
                 throw new InterpreterError("Expected 1 argument, got " + args.size() + " calling function '"+name+"'", interpreter.callStack);
             }
@@ -399,7 +405,7 @@ public abstract class MyLangBuiltinFunction implements MyLangCallable {
             "peekLast",
             new FunctionTypeRep(List.of(),List.of(), Map.of(), Map.of(), null, Typechecker.voidType, new TypeEnv())) {
         @Override
-        public Object call(MyLangInterpreter interpreter, List<Object> args, Map<String, Object> named) {
+        protected Object apply(MyLangInterpreter interpreter, List<Object> args, Map<String, Object> named) {
             if(args.size() != 1) {
                 throw new InterpreterError("Expected 1 argument, got " + args.size() + " calling function '"+name+"'", interpreter.callStack);
             }
@@ -426,7 +432,7 @@ public abstract class MyLangBuiltinFunction implements MyLangCallable {
             Typechecker.voidType,
             new TypeEnv())) {
         @Override
-        public Object call(MyLangInterpreter interpreter, List<Object> args, Map<String, Object> named) {
+        protected Object apply(MyLangInterpreter interpreter, List<Object> args, Map<String, Object> named) {
             if(args.size() != 2) {
                 throw new InterpreterError("Expected 2 arguments, got " + args.size() + " calling function '"+name+"'", interpreter.callStack);
             }
@@ -451,7 +457,7 @@ public abstract class MyLangBuiltinFunction implements MyLangCallable {
                 Typechecker.voidType,
                 new TypeEnv())) {
         @Override
-        public Object call(MyLangInterpreter interpreter, List<Object> args, Map<String, Object> named) {
+        protected Object apply(MyLangInterpreter interpreter, List<Object> args, Map<String, Object> named) {
             if(args.size() != 2) {
                 throw new InterpreterError("Expected 2 arguments, got " + args.size() + " calling function '"+name+"'", interpreter.callStack);
             }
@@ -469,7 +475,7 @@ public abstract class MyLangBuiltinFunction implements MyLangCallable {
             "random",
             new FunctionTypeRep(List.of(),List.of(), Map.of(), Map.of(), null, Typechecker.numberType, new TypeEnv())) {
         @Override
-        public Object call(MyLangInterpreter interpreter, List<Object> args, Map<String, Object> named) {
+        protected Object apply(MyLangInterpreter interpreter, List<Object> args, Map<String, Object> named) {
             if(args.size() != 0) {
                 throw new InterpreterError("Expected 0 arguments, got " + args.size() + " calling function '"+name+"'", interpreter.callStack);
             }
@@ -488,7 +494,7 @@ public abstract class MyLangBuiltinFunction implements MyLangCallable {
             null,
             Typechecker.numberType, new TypeEnv())) {
         @Override
-        public Object call(MyLangInterpreter interpreter, List<Object> args, Map<String, Object> named) {
+        protected Object apply(MyLangInterpreter interpreter, List<Object> args, Map<String, Object> named) {
             if(args.size() != 0) {
                 throw new InterpreterError("Expected 0 arguments, got " + args.size() + " calling function '"+name+"'", interpreter.callStack);
             }
@@ -497,6 +503,88 @@ public abstract class MyLangBuiltinFunction implements MyLangCallable {
         }
     };
 
+    @FunctionalInterface
+    private interface Method<T> {
+        Object apply(MyLangInterpreter interpreter, T receiver, List<Object> args);
+    }
+
+    /** A method of the builtin class of receiverClass, the receiver is passed as the first of argCount + 1 arguments */
+    private static <T> MyLangBuiltinFunction method(String name, Class<T> receiverClass, int argCount, Method<T> body) {
+        return new MyLangBuiltinFunction(name,
+                new FunctionTypeRep(List.of(), List.of(), Map.of(), Map.of(), null, Typechecker.voidType, new TypeEnv())) {
+            @Override
+            protected Object apply(MyLangInterpreter interpreter, List<Object> args, Map<String, Object> named) {
+                if(args.size() != argCount + 1) {
+                    throw new InterpreterError("Expected " + (argCount + 1) + " arguments, got " + args.size() + " calling function '"+name+"'", interpreter.callStack);
+                }
+                noNamedArgs(named, interpreter);
+                if(!receiverClass.isInstance(args.get(0))) {
+                    throw new InterpreterError("Invalid this target for " + name, interpreter.callStack);
+                }
+                return body.apply(interpreter, receiverClass.cast(args.get(0)), args);
+            }
+        };
+    }
+
+    // Typed by Typechecker.declareCollectionClasses, Map.[K, V]() and Set.[T]() create empty collections
+    public static final MyLangBuiltinFunction newMap = new MyLangBuiltinFunction("Map", null) {
+        @Override
+        protected Object apply(MyLangInterpreter interpreter, List<Object> args, Map<String, Object> named) {
+            if(args.size() != 0) {
+                throw new InterpreterError("Expected 0 arguments, got " + args.size() + " calling function '"+name+"'", interpreter.callStack);
+            }
+            noNamedArgs(named, interpreter);
+            return new MyLangMap();
+        }
+    };
+    public static final MyLangBuiltinFunction newSet = new MyLangBuiltinFunction("Set", null) {
+        @Override
+        protected Object apply(MyLangInterpreter interpreter, List<Object> args, Map<String, Object> named) {
+            if(args.size() != 0) {
+                throw new InterpreterError("Expected 0 arguments, got " + args.size() + " calling function '"+name+"'", interpreter.callStack);
+            }
+            noNamedArgs(named, interpreter);
+            return new MyLangSet();
+        }
+    };
+
+    public static final MyLangBuiltinFunction mapGet = method("get", MyLangMap.class, 1, (interpreter, map, args) -> {
+        var value = map.get(args.get(1));
+        if(value == null && !map.contains(args.get(1))) {
+            throw new InterpreterError("Map has no key " + MyLangInterpreter.stringify(args.get(1)), interpreter.callStack);
+        }
+        return value;
+    });
+    public static final MyLangBuiltinFunction mapGetOr = method("getOr", MyLangMap.class, 2,
+        (interpreter, map, args) -> map.getOr(args.get(1), args.get(2)));
+    public static final MyLangBuiltinFunction mapPut = method("put", MyLangMap.class, 2, (interpreter, map, args) -> {
+        map.put(args.get(1), args.get(2));
+        return null;
+    });
+    public static final MyLangBuiltinFunction mapContains = method("contains", MyLangMap.class, 1,
+        (interpreter, map, args) -> map.contains(args.get(1)));
+    public static final MyLangBuiltinFunction mapRemove = method("remove", MyLangMap.class, 1, (interpreter, map, args) -> {
+        map.remove(args.get(1));
+        return null;
+    });
+    public static final MyLangBuiltinFunction mapKeys = method("keys", MyLangMap.class, 0,
+        (interpreter, map, args) -> map.keys());
+    public static final MyLangBuiltinFunction mapValues = method("values", MyLangMap.class, 0,
+        (interpreter, map, args) -> map.values());
+
+    public static final MyLangBuiltinFunction setAdd = method("add", MyLangSet.class, 1, (interpreter, set, args) -> {
+        set.add(args.get(1));
+        return null;
+    });
+    public static final MyLangBuiltinFunction setContains = method("contains", MyLangSet.class, 1,
+        (interpreter, set, args) -> set.contains(args.get(1)));
+    public static final MyLangBuiltinFunction setRemove = method("remove", MyLangSet.class, 1, (interpreter, set, args) -> {
+        set.remove(args.get(1));
+        return null;
+    });
+    public static final MyLangBuiltinFunction setElements = method("elements", MyLangSet.class, 0,
+        (interpreter, set, args) -> set.elements());
+
     public String getName() {
         return name;
     }
@@ -1,13 +1,41 @@
 package MyLang;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
 public interface MyLangCallable {
     public String getName();
     public String getFileName();
+    // 0 for builtin and native functions, which are not declared in a file of the program
+    public default int getLine() {
+        return 0;
+    }
     public Object call(MyLangInterpreter interpreter, List<Object> posArgs, Map<String, Object> namedArgs);
 
+    // Calls with up to four positional and no named arguments. Callables that can bind such
+    // arguments directly override these, everyone else gets the arguments as a list.
+    public default Object call0(MyLangInterpreter interpreter) {
+        return call(interpreter, new ArrayList<>(), Map.of());
+    }
+    public default Object call1(MyLangInterpreter interpreter, Object a) {
+        return call(interpreter, arguments(a), Map.of());
+    }
+    public default Object call2(MyLangInterpreter interpreter, Object a, Object b) {
+        return call(interpreter, arguments(a, b), Map.of());
+    }
+    public default Object call3(MyLangInterpreter interpreter, Object a, Object b, Object c) {
+        return call(interpreter, arguments(a, b, c), Map.of());
+    }
+    public default Object call4(MyLangInterpreter interpreter, Object a, Object b, Object c, Object d) {
+        return call(interpreter, arguments(a, b, c, d), Map.of());
+    }
+
+    private static List<Object> arguments(Object... values) {
+        return new ArrayList<>(Arrays.asList(values));
+    }
+
     public default MyLangMethod bind(Object newThis) {
         return new MyLangMethod(newThis, this);
     }
@@ -1,5 +1,6 @@
 package MyLang;
 
+import java.util.ArrayList;
 import java.util.Map;
 import java.util.List;
 import MyLang.MyLangAST.*;
@@ -10,7 +11,20 @@ public record MyLangClass(
         List<VariableDeclaration> fields, 
         MyLangCallable constructor, 
         MyLangEnviroment env,
-        String fileName) implements MyLangCallable {
+        FrameLayout fieldFrame,
+        String fileName,
+        ObjectShape shape) implements MyLangCallable {
+
+    public MyLangClass(
+            String name,
+            Map<String, MyLangCallable> methods,
+            List<VariableDeclaration> fields,
+            MyLangCallable constructor,
+            MyLangEnviroment env,
+            FrameLayout fieldFrame,
+            String fileName) {
+        this(name, methods, fields, constructor, env, fieldFrame, fileName, new ObjectShape(fields));
+    }
 
     public String getName() {
         return name;
@@ -18,26 +32,25 @@ public record MyLangClass(
     public String getFileName() {
         return fileName;
     }
+    public int getLine() {
+        return fieldFrame.line;
+    }
 
     public Object call(MyLangInterpreter interpreter, List<Object> args, Map<String, Object> namedArgs) {
         MyLangEnviroment previousEnv = interpreter.env;
-        interpreter.env = env.openScope();
-
-        MyLangObject instance = new MyLangObject();
-        instance.klass = this;
-        for(var decl : fields) {
-            instance.readability.put(
-                ((VariableBinding) decl.pat()).name().lexeme(), 
-                decl.isReassignable());
-
-            instance.fields.put(
-                ((VariableBinding) decl.pat()).name().lexeme(), 
-                interpreter.interpretExpression(decl.initializer()));
+        interpreter.env = env.openFrame(fieldFrame.size);
+
+        MyLangObject instance = new MyLangObject(this);
+        for(int slot = 0; slot < fields.size(); slot++) {
+            instance.fields[slot] = interpreter.interpretExpression(fields.get(slot).initializer());
         }
         if(constructor != null) {
             boolean prevInConstructor = interpreter.inConstructor;
             interpreter.inConstructor = true;
-            constructor.bind(instance).call(interpreter, args, namedArgs);
+            List<Object> withInstance = new ArrayList<>(args.size() + 1);
+            withInstance.add(instance);
+            withInstance.addAll(args);
+            constructor.call(interpreter, withInstance, namedArgs);
             interpreter.inConstructor = prevInConstructor;
         } else {
             if(args.size() != 0 && !namedArgs.isEmpty()) {
@@ -0,0 +1,91 @@
+package MyLang;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/** Runs a program in a {@link ScriptServer} started with java MyLang.MyLang --server <socket> */
+public class MyLangClient {
+
+    public static void main(String[] args) throws IOException {
+        var engine = ExecutionEngine.VISITOR;
+        int first = 1;
+        while(first < args.length && args[first].startsWith("--")) {
+            switch(args[first]) {
+                case "--closures" -> engine = ExecutionEngine.CLOSURES;
+                case "--vm" -> engine = ExecutionEngine.VM;
+                default -> {
+                    System.err.println("Unbekannte Option: "+args[first]);
+                    System.exit(2);
+                }
+            }
+            first++;
+        }
+        if(args.length <= first) {
+            System.err.println("""
+                Verwendung:
+                java MyLang/MyLangClient <socket> [optionen] <eingabedatei>
+
+                Fuehrt das Programm im Server aus, der mit java MyLang/MyLang --server <socket> gestartet wurde.
+
+                Optionen:
+                --closures    Programm vor der Ausfuehrung in Closures uebersetzen, statt den AST zu interpretieren
+                --vm          Funktionen in Bytecode uebersetzen und in der Register-VM ausfuehren
+                """);
+            System.exit(2);
+        }
+
+        var request = new ByteArrayOutputStream();
+        var data = new DataOutputStream(request);
+        data.writeUTF(Path.of("").toAbsolutePath().toString());
+        data.writeUTF(engine.name());
+        data.writeUTF(args[first]);
+        var programArgs = Arrays.asList(args).subList(first + 1, args.length);
+        data.writeInt(programArgs.size());
+        for(var arg : programArgs) {
+            data.writeUTF(arg);
+        }
+
+        var channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+        channel.connect(UnixDomainSocketAddress.of(args[0]));
+        var connection = new ScriptServer.Connection(channel);
+        connection.write(ScriptServer.RUN, request.toByteArray());
+
+        var input = new Thread(() -> {
+            var buffer = new byte[8192];
+            try {
+                int read;
+                while((read = System.in.read(buffer)) > 0) {
+                    connection.write(ScriptServer.STDIN, buffer, 0, read);
+                }
+                connection.write(ScriptServer.STDIN, new byte[0]);
+            } catch(IOException e) {
+                // the program ended before its input
+            }
+        });
+        input.setDaemon(true);
+        input.start();
+
+        var out = new FileOutputStream(FileDescriptor.out);
+        var err = new FileOutputStream(FileDescriptor.err);
+        ScriptServer.Frame frame;
+        while((frame = connection.read()) != null) {
+            switch(frame.kind()) {
+                case ScriptServer.STDOUT -> out.write(frame.data());
+                case ScriptServer.STDERR -> err.write(frame.data());
+                case ScriptServer.EXIT -> System.exit(ByteBuffer.wrap(frame.data()).getInt());
+                default -> {}
+            }
+        }
+        System.err.println("Verbindung zum Server unterbrochen");
+        System.exit(1);
+    }
+}
@@ -0,0 +1,1459 @@
+package MyLang;
+
+import static MyLang.MyLangAST.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Compiles the AST into a tree of Java lambdas ("closure compilation"). Everything that
+ * only depends on the program text - operators, names, slots, arities - is decided once
+ * here, the lambdas only do the work that has to happen at runtime.
+ * Used by {@link MyLangClosureInterpreter}.
+ */
+public class MyLangClosureCompiler implements ExpressionVisitor<MyLangClosureCompiler.CompiledExpression>,
+       DeclarationVisitor<MyLangClosureCompiler.CompiledStatement>, StatementVisitor<MyLangClosureCompiler.CompiledStatement>,
+       ParameterVisitor<MyLangClosureCompiler.CompiledParameter>, PatternVisitor<MyLangClosureCompiler.CompiledPattern>,
+       SetterVisitor<MyLangClosureCompiler.CompiledSetter> {
+
+    @FunctionalInterface
+    interface CompiledExpression {
+        Object execute(MyLangInterpreter interpreter);
+
+        /** Evaluates an expression the typechecker knows to be a Number without boxing where possible */
+        default double executeDouble(MyLangInterpreter interpreter) {
+            return (double) execute(interpreter);
+        }
+        /** Whether the result is always a number, so executeDouble can be used unconditionally */
+        default boolean producesDouble() {
+            return false;
+        }
+    }
+    @FunctionalInterface
+    interface CompiledStatement {
+        void execute(MyLangInterpreter interpreter);
+    }
+    @FunctionalInterface
+    interface CompiledParameter {
+        void addTo(MyLangInterpreter interpreter, List<Object> arguments);
+    }
+    @FunctionalInterface
+    interface CompiledPattern {
+        boolean matches(MyLangInterpreter interpreter, Object value);
+    }
+    @FunctionalInterface
+    interface CompiledSetter {
+        void set(MyLangInterpreter interpreter, Object value);
+    }
+
+    // Entry points from the interpreter (function bodies, default values, field initializers)
+    private final Map<Expression, CompiledExpression> compiled = new IdentityHashMap<>();
+
+    // Context for compiling patterns, mirrors isMutable/exportCurrentPatterns of the interpreter
+    private boolean bindMutable = false;
+    private boolean bindExport = false;
+    // Numeric slots of the function frame whose body is being compiled, stored in env.numbers
+    private boolean[] numericSlots = null;
+    // Whether the expression being compiled is in a position where a return can set
+    // i.returning instead of throwing: every enclosing node up to the function body checks
+    // the flag after running it. signalReturns counts the returns compiled like this.
+    private boolean signalReturn = false;
+    private int signalReturns = 0;
+
+    private static final class NumberConstant implements CompiledExpression {
+        private final double value;
+        private final Object boxed;
+        NumberConstant(double value) {
+            this.value = value;
+            this.boxed = value;
+        }
+        @Override
+        public Object execute(MyLangInterpreter interpreter) {
+            return boxed;
+        }
+        @Override
+        public double executeDouble(MyLangInterpreter interpreter) {
+            return value;
+        }
+        @Override
+        public boolean producesDouble() {
+            return true;
+        }
+    }
+
+    private static final class NumericLocal implements CompiledExpression {
+        private final int index;
+        NumericLocal(int index) {
+            this.index = index;
+        }
+        @Override
+        public Object execute(MyLangInterpreter interpreter) {
+            return interpreter.env.numbers[index];
+        }
+        @Override
+        public double executeDouble(MyLangInterpreter interpreter) {
+            return interpreter.env.numbers[index];
+        }
+        @Override
+        public boolean producesDouble() {
+            return true;
+        }
+    }
+
+    public CompiledExpression compile(Expression expression) {
+        var result = compiled.get(expression);
+        if(result == null) {
+            var previousNumeric = numericSlots;
+            numericSlots = null;
+            result = compileExpression(expression);
+            numericSlots = previousNumeric;
+            compiled.put(expression, result);
+        }
+        return result;
+    }
+
+    /**
+     * Compiles the body of a function. Its numeric slots get a double[] in the frame and
+     * returns that the body passes on are taken from i.returnedValue.
+     */
+    public CompiledExpression compileFunctionBody(Expression body, FrameLayout layout) {
+        var result = compiled.get(body);
+        if(result == null) {
+            var previousNumeric = numericSlots;
+            var previousSignal = signalReturn;
+            int returnsBefore = signalReturns;
+            numericSlots = layout.numericSlots;
+            signalReturn = true;
+            result = compileControlled(body);
+            numericSlots = previousNumeric;
+            signalReturn = previousSignal;
+            if(signalReturns != returnsBefore) {
+                var returningBody = result;
+                result = i -> {
+                    var value = returningBody.execute(i);
+                    if(i.returning) {
+                        i.returning = false;
+                        value = i.returnedValue;
+                        i.returnedValue = null;
+                    }
+                    return value;
+                };
+            }
+            if(layout.numericSlots != null) {
+                var numericBody = result;
+                int size = layout.size;
+                result = i -> {
+                    i.env.numbers = new double[size];
+                    return numericBody.execute(i);
+                };
+            }
+            compiled.put(body, result);
+        }
+        return result;
+    }
+
+    private boolean isNumericSlot(VariableSlot slot) {
+        return numericSlots != null && slot.depth == 0 && numericSlots[slot.index];
+    }
+
+    CompiledExpression compileExpression(Expression expression) {
+        var previousSignal = signalReturn;
+        signalReturn = false;
+        var result = expression.accept(this);
+        signalReturn = previousSignal;
+        return result;
+    }
+    /** Compiles an expression whose parent stops and passes i.returning on when it is set */
+    private CompiledExpression compileControlled(Expression expression) {
+        return expression.accept(this);
+    }
+    CompiledStatement compileStatement(Statement statement) {
+        return statement.accept(this);
+    }
+    CompiledStatement compileDeclaration(Declaration declaration) {
+        return declaration.accept(this);
+    }
+    private CompiledStatement compileAny(DeclarationOrStatement any) {
+        if(any instanceof Declaration d) {
+            return compileDeclaration(d);
+        } else {
+            return compileStatement((Statement) any);
+        }
+    }
+    private CompiledParameter compileParameter(Parameter parameter) {
+        return parameter.accept(this);
+    }
+    private CompiledSetter compileSetter(Setter setter) {
+        return setter.accept(this);
+    }
+    private CompiledPattern compilePattern(Pattern pattern, boolean mutable, boolean export) {
+        var previousMutable = bindMutable;
+        var previousExport = bindExport;
+        bindMutable = mutable;
+        bindExport = export;
+        var result = pattern.accept(this);
+        bindMutable = previousMutable;
+        bindExport = previousExport;
+        return result;
+    }
+    private CompiledPattern compilePattern(Pattern pattern) {
+        return compilePattern(pattern, false, false);
+    }
+
+    private CompiledExpression[] compileAll(List<Expression> expressions) {
+        var result = new CompiledExpression[expressions.size()];
+        for(int i = 0; i < result.length; i++) {
+            result[i] = compileExpression(expressions.get(i));
+        }
+        return result;
+    }
+    private CompiledParameter[] compileParameters(List<Parameter> parameters) {
+        var result = new CompiledParameter[parameters.size()];
+        for(int i = 0; i < result.length; i++) {
+            result[i] = compileParameter(parameters.get(i));
+        }
+        return result;
+    }
+
+    /** Runs body in the scope described by layout, opening a frame if it owns one */
+    private static CompiledExpression inScope(FrameLayout layout, CompiledExpression body) {
+        if(!layout.ownsFrame) {
+            return body;
+        }
+        int size = layout.size;
+        return i -> {
+            var previous = i.env;
+            i.env = previous.openFrame(size);
+            var result = body.execute(i);
+            i.env = previous;
+            return result;
+        };
+    }
+
+    @Override
+    public CompiledExpression visitNumericLiteral(NumericLiteral value) {
+        return new NumberConstant(value.value());
+    }
+
+    @Override
+    public CompiledExpression visitStringLiteral(StringLiteral value) {
+        String string = value.value();
+        return i -> string;
+    }
+
+    @Override
+    public CompiledExpression visitBooleanLiteral(BooleanLiteral value) {
+        Object bool = value.value();
+        return i -> bool;
+    }
+
+    @Override
+    public CompiledExpression visitNullLiteral(NullLiteral value) {
+        return i -> null;
+    }
+
+    @Override
+    public CompiledExpression visitIdentifier(Identifier value) {
+        var slot = value.slot();
+        String name = value.value().lexeme();
+        int depth = slot.depth, index = slot.index;
+        if(slot.isGlobal()) {
+            return i -> i.env.getVariable(name, i);
+        } else if(slot.isCell) {
+            return i -> ((Cell) i.env.getSlot(depth, index)).value;
+        } else if(isNumericSlot(slot)) {
+            return new NumericLocal(index);
+        } else if(depth == 0) {
+            return i -> i.env.slots[index];
+        } else {
+            return i -> i.env.getSlot(depth, index);
+        }
+    }
+
+    @Override
+    public CompiledExpression visitBinaryOperation(BinaryOperation value) {
+        var left = compileExpression(value.left());
+        var right = compileExpression(value.right());
+        var type = value.operator().type();
+        var specializing = SpecializingOperation.create(type, left, right);
+        if(specializing != null) {
+            return specializing;
+        }
+        return switch(type) {
+            case AND -> i -> {
+                var l = left.execute(i);
+                return i.truthy(l) ? right.execute(i) : l;
+            };
+            case OR -> i -> {
+                var l = left.execute(i);
+                return i.truthy(l) ? l : right.execute(i);
+            };
+            case XOR -> i -> i.truthy(left.execute(i)) ^ i.truthy(right.execute(i));
+            case IN -> i -> {
+                var l = left.execute(i);
+                return i.contains(l, right.execute(i));
+            };
+            default -> i -> {
+                throw new InterpreterError("Unimplemented operator: " + type, i.callStack);
+            };
+        };
+    }
+
+    @Override
+    public CompiledExpression visitUnaryOperation(UnaryOperation value) {
+        var operand = compileExpression(value.operand());
+        var type = value.operator().type();
+        return switch(type) {
+            case BANG -> i -> !(boolean) operand.execute(i);
+            case MINUS -> i -> -(double) operand.execute(i);
+            case PLUS -> i -> +(double) operand.execute(i);
+            default -> i -> {
+                throw new InterpreterError("Unimplemented operator: " + type, i.callStack);
+            };
+        };
+    }
+
+    @Override
+    public CompiledExpression visitFunctionCall(FunctionCall value) {
+        if(value.tail().isTail) {
+            return compileTailCall(value);
+        }
+        if(value.callee() instanceof PropertyExpression property) {
+            return compileMethodCall(value, property);
+        }
+        var callee = compileExpression(value.callee());
+        if(MyLangInterpreter.hasFixedArity(value)) {
+            return compileFixedArityCall(value, callee);
+        }
+        var arguments = compileParameters(value.arguments());
+        var namedNames = value.named().keySet().toArray(new String[0]);
+        var namedValues = new CompiledExpression[namedNames.length];
+        for(int k = 0; k < namedNames.length; k++) {
+            namedValues[k] = compileExpression(value.named().get(namedNames[k]));
+        }
+        return i -> {
+            var function = callee.execute(i);
+            if(function instanceof MyLangCallable theFunction) {
+                List<Object> args = new ArrayList<>(arguments.length);
+                for(var argument : arguments) {
+                    argument.addTo(i, args);
+                }
+                Map<String, Object> namedArgs = new HashMap<>();
+                for(int k = 0; k < namedNames.length; k++) {
+                    namedArgs.put(namedNames[k], namedValues[k].execute(i));
+                }
+                i.callStack.push(theFunction, value, i.env);
+                var result = theFunction.call(i, args, namedArgs);
+                i.callStack.pop();
+                return result;
+            } else {
+                throw new InterpreterError("Cannot call non-Function: " + function.getClass(), i.callStack);
+            }
+        };
+    }
+
+    // One node per arity, so the arguments go straight to MyLangCallable.call0 - call4
+    private CompiledExpression compileFixedArityCall(FunctionCall value, CompiledExpression callee) {
+        var arguments = new CompiledExpression[value.arguments().size()];
+        for(int k = 0; k < arguments.length; k++) {
+            arguments[k] = compileExpression(((ExpressionParameter) value.arguments().get(k)).expr());
+        }
+        switch(arguments.length) {
+            case 0 -> {
+                return i -> {
+                    var function = callable(callee.execute(i), i);
+                    i.callStack.push(function, value, i.env);
+                    var result = function.call0(i);
+                    i.callStack.pop();
+                    return result;
+                };
+            }
+            case 1 -> {
+                var first = arguments[0];
+                return i -> {
+                    var function = callable(callee.execute(i), i);
+                    var a = first.execute(i);
+                    i.callStack.push(function, value, i.env);
+                    var result = function.call1(i, a);
+                    i.callStack.pop();
+                    return result;
+                };
+            }
+            case 2 -> {
+                var first = arguments[0];
+                var second = arguments[1];
+                return i -> {
+                    var function = callable(callee.execute(i), i);
+                    var a = first.execute(i);
+                    var b = second.execute(i);
+                    i.callStack.push(function, value, i.env);
+                    var result = function.call2(i, a, b);
+                    i.callStack.pop();
+                    return result;
+                };
+            }
+            case 3 -> {
+                var first = arguments[0];
+                var second = arguments[1];
+                var third = arguments[2];
+                return i -> {
+                    var function = callable(callee.execute(i), i);
+                    var a = first.execute(i);
+                    var b = second.execute(i);
+                    var c = third.execute(i);
+                    i.callStack.push(function, value, i.env);
+                    var result = function.call3(i, a, b, c);
+                    i.callStack.pop();
+                    return result;
+                };
+            }
+            default -> {
+                var first = arguments[0];
+                var second = arguments[1];
+                var third = arguments[2];
+                var fourth = arguments[3];
+                return i -> {
+                    var function = callable(callee.execute(i), i);
+                    var a = first.execute(i);
+                    var b = second.execute(i);
+                    var c = third.execute(i);
+                    var d = fourth.execute(i);
+                    i.callStack.push(function, value, i.env);
+                    var result = function.call4(i, a, b, c, d);
+                    i.callStack.pop();
+                    return result;
+                };
+            }
+        }
+    }
+
+    // receiver.name(...) calls the method found by a MethodCache without binding it to the receiver
+    private CompiledExpression compileMethodCall(FunctionCall value, PropertyExpression property) {
+        var receiverExpr = compileExpression(property.object());
+        var cache = new MethodCache(property.name().lexeme());
+        if(MyLangInterpreter.hasFixedArity(value) && value.arguments().size() < 4) {
+            return compileFixedArityMethodCall(value, receiverExpr, cache);
+        }
+        var arguments = compileParameters(value.arguments());
+        var namedNames = value.named().keySet().toArray(new String[0]);
+        var namedValues = new CompiledExpression[namedNames.length];
+        for(int k = 0; k < namedNames.length; k++) {
+            namedValues[k] = compileExpression(value.named().get(namedNames[k]));
+        }
+        return i -> {
+            var receiver = receiverExpr.execute(i);
+            var method = cache.lookup(receiver, i);
+            var function = method == null ? callable(i.getProperty(receiver, cache.name), i) : null;
+            List<Object> args = new ArrayList<>(arguments.length + 1);
+            if(method != null) {
+                args.add(receiver);
+            }
+            for(var argument : arguments) {
+                argument.addTo(i, args);
+            }
+            Map<String, Object> namedArgs = new HashMap<>();
+            for(int k = 0; k < namedNames.length; k++) {
+                namedArgs.put(namedNames[k], namedValues[k].execute(i));
+            }
+            if(method != null) {
+                i.callStack.pushMethod(method, receiver, value, i.env);
+            } else {
+                i.callStack.push(function, value, i.env);
+            }
+            var result = (method != null ? method : function).call(i, args, namedArgs);
+            i.callStack.pop();
+            return result;
+        };
+    }
+
+    private CompiledExpression compileFixedArityMethodCall(FunctionCall value, CompiledExpression receiverExpr, MethodCache cache) {
+        var arguments = new CompiledExpression[value.arguments().size()];
+        for(int k = 0; k < arguments.length; k++) {
+            arguments[k] = compileExpression(((ExpressionParameter) value.arguments().get(k)).expr());
+        }
+        switch(arguments.length) {
+            case 0 -> {
+                return i -> {
+                    var receiver = receiverExpr.execute(i);
+                    var method = cache.lookup(receiver, i);
+                    if(method == null) {
+                        return callProperty(i, value, receiver, cache.name, arguments);
+                    }
+                    i.callStack.pushMethod(method, receiver, value, i.env);
+                    var result = method.call1(i, receiver);
+                    i.callStack.pop();
+                    return result;
+                };
+            }
+            case 1 -> {
+                var first = arguments[0];
+                return i -> {
+                    var receiver = receiverExpr.execute(i);
+                    var method = cache.lookup(receiver, i);
+                    if(method == null) {
+                        return callProperty(i, value, receiver, cache.name, arguments);
+                    }
+                    var a = first.execute(i);
+                    i.callStack.pushMethod(method, receiver, value, i.env);
+                    var result = method.call2(i, receiver, a);
+                    i.callStack.pop();
+                    return result;
+                };
+            }
+            case 2 -> {
+                var first = arguments[0];
+                var second = arguments[1];
+                return i -> {
+                    var receiver = receiverExpr.execute(i);
+                    var method = cache.lookup(receiver, i);
+                    if(method == null) {
+                        return callProperty(i, value, receiver, cache.name, arguments);
+                    }
+                    var a = first.execute(i);
+                    var b = second.execute(i);
+                    i.callStack.pushMethod(method, receiver, value, i.env);
+                    var result = method.call3(i, receiver, a, b);
+                    i.callStack.pop();
+                    return result;
+                };
+            }
+            default -> {
+                var first = arguments[0];
+                var second = arguments[1];
+                var third = arguments[2];
+                return i -> {
+                    var receiver = receiverExpr.execute(i);
+                    var method = cache.lookup(receiver, i);
+                    if(method == null) {
+                        return callProperty(i, value, receiver, cache.name, arguments);
+                    }
+                    var a = first.execute(i);
+                    var b = second.execute(i);
+                    var c = third.execute(i);
+                    i.callStack.pushMethod(method, receiver, value, i.env);
+                    var result = method.call4(i, receiver, a, b, c);
+                    i.callStack.pop();
+                    return result;
+                };
+            }
+        }
+    }
+
+    /**
+     * A call in tail position. If the callee is a MyLangFunction its frame is opened here and
+     * the call is left to MyLangFunction.invoke of the function we are in, anything else is
+     * called right away.
+     */
+    private CompiledExpression compileTailCall(FunctionCall value) {
+        var property = value.callee() instanceof PropertyExpression p ? p : null;
+        var calleeExpr = compileExpression(property != null ? property.object() : value.callee());
+        var cache = property != null ? new MethodCache(property.name().lexeme()) : null;
+        int count = value.arguments().size();
+        if(MyLangInterpreter.hasFixedArity(value) && count < (cache == null ? 5 : 4)) {
+            var arguments = new CompiledExpression[count];
+            for(int k = 0; k < count; k++) {
+                arguments[k] = compileExpression(((ExpressionParameter) value.arguments().get(k)).expr());
+            }
+            return i -> {
+                Object receiver = null;
+                MyLangCallable function;
+                var callee = calleeExpr.execute(i);
+                if(cache == null) {
+                    function = callable(callee, i);
+                } else if((function = cache.lookup(callee, i)) != null) {
+                    receiver = callee;
+                } else {
+                    function = callable(i.getProperty(callee, cache.name), i);
+                }
+                var a = count > 0 ? arguments[0].execute(i) : null;
+                var b = count > 1 ? arguments[1].execute(i) : null;
+                var c = count > 2 ? arguments[2].execute(i) : null;
+                var d = count > 3 ? arguments[3].execute(i) : null;
+                if(function instanceof MyLangFunction target) {
+                    var frame = receiver == null
+                        ? target.frame(i, count, a, b, c, d)
+                        : target.frame(i, count + 1, receiver, a, b, c);
+                    return i.tailCall.to(target, frame, value, receiver, i.env);
+                }
+                i.callStack.pushMethod(function, receiver, value, i.env);
+                var result = receiver == null
+                    ? callFixed(function, i, count, a, b, c, d)
+                    : callFixed(function, i, count + 1, receiver, a, b, c);
+                i.callStack.pop();
+                return result;
+            };
+        }
+        var arguments = compileParameters(value.arguments());
+        var namedNames = value.named().keySet().toArray(new String[0]);
+        var namedValues = new CompiledExpression[namedNames.length];
+        for(int k = 0; k < namedNames.length; k++) {
+            namedValues[k] = compileExpression(value.named().get(namedNames[k]));
+        }
+        return i -> {
+            Object receiver = null;
+            MyLangCallable function;
+            var callee = calleeExpr.execute(i);
+            if(cache == null) {
+                function = callable(callee, i);
+            } else if((function = cache.lookup(callee, i)) != null) {
+                receiver = callee;
+            } else {
+                function = callable(i.getProperty(callee, cache.name), i);
+            }
+            List<Object> args = new ArrayList<>(arguments.length + 1);
+            if(receiver != null) {
+                args.add(receiver);
+            }
+            for(var argument : arguments) {
+                argument.addTo(i, args);
+            }
+            Map<String, Object> namedArgs = new HashMap<>();
+            for(int k = 0; k < namedNames.length; k++) {
+                namedArgs.put(namedNames[k], namedValues[k].execute(i));
+            }
+            if(function instanceof MyLangFunction target) {
+                var frame = target.bindArguments(i, args, namedArgs, target.layout().size);
+                return i.tailCall.to(target, frame, value, receiver, i.env);
+            }
+            i.callStack.pushMethod(function, receiver, value, i.env);
+            var result = function.call(i, args, namedArgs);
+            i.callStack.pop();
+            return result;
+        };
+    }
+
+    private static Object callFixed(MyLangCallable function, MyLangInterpreter i, int count, Object a, Object b, Object c, Object d) {
+        return switch(count) {
+            case 0 -> function.call0(i);
+            case 1 -> function.call1(i, a);
+            case 2 -> function.call2(i, a, b);
+            case 3 -> function.call3(i, a, b, c);
+            default -> function.call4(i, a, b, c, d);
+        };
+    }
+
+    // receiver.name holds something else than a method (a function in a field, a module member)
+    private static Object callProperty(MyLangInterpreter i, FunctionCall site, Object receiver, String name, CompiledExpression[] arguments) {
+        var function = callable(i.getProperty(receiver, name), i);
+        List<Object> args = new ArrayList<>(arguments.length);
+        for(var argument : arguments) {
+            args.add(argument.execute(i));
+        }
+        i.callStack.push(function, site, i.env);
+        var result = function.call(i, args, Map.of());
+        i.callStack.pop();
+        return result;
+    }
+
+    private static MyLangCallable callable(Object function, MyLangInterpreter i) {
+        if(function instanceof MyLangCallable theFunction) {
+            return theFunction;
+        }
+        throw new InterpreterError("Cannot call non-Function: " + function.getClass(), i.callStack);
+    }
+
+    @Override
+    public CompiledExpression visitInstExpression(InstExpression value) {
+        return compileExpression(value.instantiated());
+    }
+
+    @Override
+    public CompiledExpression visitFunctionExpression(FunctionExpression value) {
+        var name = value.optionalName();
+        var parameters = value.parameters();
+        var body = value.body();
+        var frame = value.frame();
+        return i -> new MyLangFunction(
+                name,
+                parameters.names(),
+                parameters.varargsName(),
+                parameters.optionals(),
+                parameters.optionalNamed(),
+                i.env.capture(frame.captures),
+                body,
+                frame,
+                i.currentFileName);
+    }
+
+    @Override
+    public CompiledExpression visitIfExpression(IfExpression value) {
+        var condition = compileExpression(value.condition());
+        var thenBranch = compileControlled(value.thenBranch());
+        var elseBranch = compileControlled(value.elseBranch());
+        return i -> i.truthy(condition.execute(i)) ? thenBranch.execute(i) : elseBranch.execute(i);
+    }
+
+    @Override
+    public CompiledExpression visitIfValExpression(IfValExpression value) {
+        var matched = compileExpression(value.matched());
+        var pattern = compilePattern(value.pat());
+        var thenBranch = compileControlled(value.thenBranch());
+        var elseBranch = compileControlled(value.elseBranch());
+        var frame = value.frame();
+        if(!frame.ownsFrame) {
+            return i -> pattern.matches(i, matched.execute(i)) ? thenBranch.execute(i) : elseBranch.execute(i);
+        }
+        int size = frame.size;
+        return i -> {
+            var m = matched.execute(i);
+            var previous = i.env;
+            i.env = previous.openFrame(size);
+            if(pattern.matches(i, m)) {
+                var result = thenBranch.execute(i);
+                i.env = previous;
+                return result;
+            }
+            i.env = previous;
+            return elseBranch.execute(i);
+        };
+    }
+
+    @Override
+    public CompiledExpression visitListExpression(ListExpression value) {
+        var elements = compileParameters(value.elements());
+        return i -> {
+            List<Object> list = new PersistentVector();
+            for(var element : elements) {
+                element.addTo(i, list);
+            }
+            return list;
+        };
+    }
+
+    @Override
+    public CompiledExpression visitTupleExpression(TupleExpression value) {
+        var elements = compileAll(value.elements());
+        return i -> {
+            var tuple = new Object[elements.length];
+            for(int k = 0; k < tuple.length; k++) {
+                tuple[k] = elements[k].execute(i);
+            }
+            return tuple;
+        };
+    }
+
+    @Override
+    public CompiledExpression visitIndexExpression(IndexExpression value) {
+        var listExpr = compileExpression(value.list());
+        var indexExpr = compileExpression(value.index());
+        return i -> {
+            var list = Rope.flatten(listExpr.execute(i));
+            if(list instanceof List<?> theList) {
+                var index = (double) indexExpr.execute(i);
+                if(!(index >= 0 && index < theList.size()) || index % 1 != 0) {
+                    throw new InterpreterError("Index out of bounds or invalid index: " + MyLangInterpreter.stringify(index), i.callStack);
+                }
+                return theList.get((int) index);
+            } else if(list instanceof String str) {
+                var index = (double) indexExpr.execute(i);
+                if(index % 1 != 0) {
+                    throw new InterpreterError("Index out of bounds or invalid index: " + MyLangInterpreter.stringify(index), i.callStack);
+                }
+                return String.valueOf(str.charAt((int) index));
+            } else {
+                throw new InterpreterError("Invalid list type: " + list.getClass(), i.callStack);
+            }
+        };
+    }
+
+    @FunctionalInterface
+    private interface ListProperty {
+        Object get(MyLangInterpreter interpreter, List<Object> list);
+    }
+
+    private static ListProperty listProperty(String name) {
+        return switch(name) {
+            case "length" -> (i, list) -> (double) list.size();
+            case "first" -> (i, list) -> list.get(0);
+            case "last" -> (i, list) -> list.get(list.size() - 1);
+            case "rest" -> (i, list) -> MyLangInterpreter.rest(list);
+            case "firsts" -> (i, list) -> MyLangInterpreter.firsts(list);
+            default -> (i, list) -> {
+                if(i.listClass.methods().containsKey(name)) {
+                    return i.listClass.methods().get(name).bind(list);
+                }
+                throw new InterpreterError("List has no property '"+name+"'", i.callStack);
+            };
+        };
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public CompiledExpression visitPropertyExpression(PropertyExpression value) {
+        var objectExpr = compileExpression(value.object());
+        String name = value.name().lexeme();
+        var listProperty = listProperty(name);
+        var cache = new PropertyCache(name);
+        return i -> {
+            var object = objectExpr.execute(i);
+            if(object instanceof MyLangObject theObject) {
+                return cache.get(theObject, i);
+            } else if(object instanceof List<?> theList) {
+                return listProperty.get(i, (List<Object>) theList);
+            } else if(object instanceof EnumVariantObject e) {
+                return e.getProperty(name);
+            } else if(object instanceof MyLangModule m) {
+                if(m.names.localVariableDeclared(name)) {
+                    return m.names.getVariable(name, i);
+                } else {
+                    throw new InterpreterError("Module '"+m.name.toString()+"' does not export '"+name+"'", i.callStack);
+                }
+            } else {
+                return i.getProperty(object, name);
+            }
+        };
+    }
+
+    @Override
+    public CompiledExpression visitBlockExpression(BlockExpression value) {
+        int returnsBefore = signalReturns;
+        var statements = new CompiledStatement[value.statements().size()];
+        for(int k = 0; k < statements.length; k++) {
+            statements[k] = compileAny(value.statements().get(k));
+        }
+        boolean statementsReturn = signalReturns != returnsBefore;
+        var returnValue = compileControlled(value.returnValue());
+        if(statementsReturn) {
+            return inScope(value.frame(), i -> {
+                for(var statement : statements) {
+                    statement.execute(i);
+                    if(i.returning) {
+                        return null;
+                    }
+                }
+                return returnValue.execute(i);
+            });
+        }
+        CompiledExpression body = switch(statements.length) {
+            case 0 -> returnValue;
+            case 1 -> {
+                var statement = statements[0];
+                yield i -> {
+                    statement.execute(i);
+                    return returnValue.execute(i);
+                };
+            }
+            default -> i -> {
+                for(var statement : statements) {
+                    statement.execute(i);
+                }
+                return returnValue.execute(i);
+            };
+        };
+        return inScope(value.frame(), body);
+    }
+
+    @Override
+    public CompiledExpression visitWhileYieldExpression(WhileYieldExpression value) {
+        var condition = compileExpression(value.condition());
+        var body = compileParameter(value.body());
+        return i -> {
+            List<Object> results = new PersistentVector();
+            while(i.truthy(condition.execute(i))) {
+                body.addTo(i, results);
+            }
+            return results;
+        };
+    }
+
+    @Override
+    public CompiledExpression visitWhileValYieldExpression(WhileValYieldExpression value) {
+        var matched = compileExpression(value.matched());
+        var pattern = compilePattern(value.pattern());
+        var body = compileExpression(value.body());
+        var ownsFrame = value.frame().ownsFrame;
+        int size = value.frame().size;
+        return i -> {
+            List<Object> results = new PersistentVector();
+            while(true) {
+                var previous = i.env;
+                if(ownsFrame) {
+                    i.env = previous.openFrame(size);
+                }
+                if(pattern.matches(i, matched.execute(i))) {
+                    results.add(body.execute(i));
+                    i.env = previous;
+                } else {
+                    i.env = previous;
+                    break;
+                }
+            }
+            return results;
+        };
+    }
+
+    @Override
+    public CompiledExpression visitWhileDoExpression(WhileDoExpression value) {
+        var condition = compileExpression(value.condition());
+        int returnsBefore = signalReturns;
+        var body = compileStatement(value.body());
+        if(signalReturns != returnsBefore) {
+            return i -> {
+                while(i.truthy(condition.execute(i))) {
+                    body.execute(i);
+                    if(i.returning) {
+                        break;
+                    }
+                }
+                return null;
+            };
+        }
+        return i -> {
+            while(i.truthy(condition.execute(i))) {
+                body.execute(i);
+            }
+            return null;
+        };
+    }
+
+    @Override
+    public CompiledExpression visitWhileValDoExpression(WhileValDoExpression value) {
+        var matched = compileExpression(value.matched());
+        var pattern = compilePattern(value.pattern());
+        int returnsBefore = signalReturns;
+        var body = compileControlled(value.body());
+        boolean bodyReturns = signalReturns != returnsBefore;
+        var ownsFrame = value.frame().ownsFrame;
+        int size = value.frame().size;
+        return i -> {
+            while(true) {
+                var previous = i.env;
+                if(ownsFrame) {
+                    i.env = previous.openFrame(size);
+                }
+                if(pattern.matches(i, matched.execute(i))) {
+                    body.execute(i);
+                    i.env = previous;
+                    if(bodyReturns && i.returning) {
+                        break;
+                    }
+                } else {
+                    i.env = previous;
+                    break;
+                }
+            }
+            return null;
+        };
+    }
+
+    @Override
+    public CompiledExpression visitForYieldExpression(ForYieldExpression value) {
+        var collectionExpr = compileExpression(value.collection());
+        var pattern = compilePattern(value.pat());
+        var guard = compileExpression(value.guard());
+        var body = compileParameter(value.body());
+        var ownsFrame = value.frame().ownsFrame;
+        int size = value.frame().size;
+        if(value.collection() instanceof RangeExpression range) {
+            var bounds = compileRangeBounds(range);
+            return i -> {
+                List<Object> results = new PersistentVector();
+                var startStepEnd = bounds.apply(i);
+                for(double k = startStepEnd[0]; k < startStepEnd[2]; k += startStepEnd[1]) {
+                    var previous = i.env;
+                    if(ownsFrame) {
+                        i.env = previous.openFrame(size);
+                    }
+                    if(pattern.matches(i, k) && i.truthy(guard.execute(i))) {
+                        body.addTo(i, results);
+                    }
+                    i.env = previous;
+                }
+                return results;
+            };
+        }
+        return i -> {
+            List<Object> results = new PersistentVector();
+            var collection = collectionExpr.execute(i);
+            if(collection instanceof List<?> theList) {
+                for(Object element : theList) {
+                    var previous = i.env;
+                    if(ownsFrame) {
+                        i.env = previous.openFrame(size);
+                    }
+                    if(pattern.matches(i, element) && i.truthy(guard.execute(i))) {
+                        body.addTo(i, results);
+                    }
+                    i.env = previous;
+                }
+                return results;
+            } else {
+                throw new InterpreterError("Invalid list type: " + collection.getClass(), i.callStack);
+            }
+        };
+    }
+
+    /**
+     * For loops over a range expression count through the range themselves, the list of
+     * the range is never created. Same values as MyLangInterpreter.range for every step.
+     */
+    private Function<MyLangInterpreter, double[]> compileRangeBounds(RangeExpression value) {
+        var startExpr = compileExpression(value.start());
+        var stepExpr = compileExpression(value.step());
+        var endExpr = compileExpression(value.end());
+        return i -> {
+            var start = startExpr.execute(i);
+            var step = stepExpr.execute(i);
+            var end = endExpr.execute(i);
+            if(start instanceof Double s && step instanceof Double c && end instanceof Double e) {
+                return new double[] {s, c, e};
+            } else {
+                throw new InterpreterError("Invalid Types for Range expression", i.callStack);
+            }
+        };
+    }
+
+    @Override
+    public CompiledExpression visitRangeExpression(RangeExpression value) {
+        var startExpr = compileExpression(value.start());
+        var stepExpr = compileExpression(value.step());
+        var endExpr = compileExpression(value.end());
+        return i -> {
+            var start = startExpr.execute(i);
+            var step = stepExpr.execute(i);
+            var end = endExpr.execute(i);
+            return i.range(start, step, end);
+        };
+    }
+
+    @Override
+    public CompiledExpression visitThisExpression(ThisExpression value) {
+        var slot = value.slot();
+        int depth = slot.depth, index = slot.index;
+        if(slot.isGlobal()) {
+            return i -> {
+                throw new InterpreterError("Cannot use 'this' outside of a class.", i.callStack);
+            };
+        }
+        return i -> i.env.getSlot(depth, index);
+    }
+
+    @Override
+    public CompiledExpression visitReturnExpression(ReturnExpression value) {
+        boolean signal = signalReturn;
+        var returnValue = compileExpression(value.returnValue());
+        if(signal) {
+            signalReturns++;
+            return i -> {
+                i.returnedValue = returnValue.execute(i);
+                i.returning = true;
+                return null;
+            };
+        }
+        return i -> {
+            throw i.returnSignal.carrying(returnValue.execute(i));
+        };
+    }
+
+    @Override
+    public CompiledExpression visitMatchExpression(MatchExpression value) {
+        var matchedExpr = compileExpression(value.matched());
+        var tree = value.tree();
+        var branches = new CompiledExpression[value.branches().size()];
+        for(int k = 0; k < branches.length; k++) {
+            branches[k] = compileControlled(value.branches().get(k));
+        }
+        var ownsFrame = value.frame().ownsFrame;
+        int size = value.frame().size;
+        return i -> {
+            var matched = matchedExpr.execute(i);
+            var leaf = tree.select(matched);
+            if(leaf != null) {
+                var previous = i.env;
+                if(ownsFrame) {
+                    i.env = previous.openFrame(size);
+                }
+                var bindings = leaf.bindings();
+                for(int k = 0; k < bindings.length; k++) {
+                    i.declare(bindings[k].slot(), bindings[k].name().lexeme(), leaf.valueOf(k, matched), false);
+                }
+                var result = branches[leaf.branch()].execute(i);
+                i.env = previous;
+                return result;
+            }
+            throw new InterpreterError("Non exhaustive match while matching "+MyLangInterpreter.stringify(matched), i.callStack);
+        };
+    }
+
+    @Override
+    public CompiledExpression visitWildcardExpression(WildcardExpression value) {
+        int line = value.position().line();
+        return i -> {
+            throw new InterpreterError("Reached Wildcard on line "+line, i.callStack);
+        };
+    }
+
+    @Override
+    public CompiledStatement visitVariableDeclaration(VariableDeclaration value) {
+        var initializer = compileExpression(value.initializer());
+        if(value.pat() instanceof VariableBinding binding && isNumericSlot(binding.slot())) {
+            int index = binding.slot().index;
+            return i -> i.env.numbers[index] = initializer.executeDouble(i);
+        }
+        var pattern = compilePattern(value.pat(), value.isReassignable(), value.export());
+        return i -> pattern.matches(i, initializer.execute(i));
+    }
+
+    @Override
+    public CompiledStatement visitValElseDeclaration(ValElseDeclaration value) {
+        var initializer = compileExpression(value.initializer());
+        var pattern = compilePattern(value.pat());
+        var elseBranch = compileControlled(value.elseBranch());
+        return i -> {
+            if(!pattern.matches(i, initializer.execute(i))) {
+                elseBranch.execute(i);
+            }
+        };
+    }
+
+    @Override
+    public CompiledStatement visitFunctionDeclaration(FunctionDeclaration value) {
+        String name = value.Name().lexeme();
+        var parameters = value.parameters();
+        var body = value.body();
+        var frame = value.frame();
+        var slot = value.slot();
+        boolean export = value.export();
+        return i -> {
+            if(slot.isCell) { // the function uses itself, its copy of the frame has to hold the cell
+                i.declare(slot, name, null, false);
+            }
+            var function = new MyLangFunction(
+                    name,
+                    parameters.names(),
+                    parameters.varargsName(),
+                    parameters.optionals(),
+                    parameters.optionalNamed(),
+                    i.env.capture(frame.captures),
+                    body, frame, i.currentFileName);
+            if(slot.isCell) {
+                ((Cell) i.env.slots[slot.index]).value = function;
+            } else {
+                i.declare(slot, name, function, false);
+            }
+            if(export) {
+                if(i.currentModule.names != i.env) {
+                    throw new InterpreterError("Cannot export local variable ('"+name+"')", i.callStack);
+                }
+                i.currentModule.exports.add(name);
+            }
+        };
+    }
+
+    // Classes, enums, modules and native declarations are only declared once, the interpreter handles them directly
+    @Override
+    public CompiledStatement visitClassDeclaration(ClassDeclaration value) {
+        return i -> value.accept(i);
+    }
+    @Override
+    public CompiledStatement visitEnumDeclaration(EnumDeclaration value) {
+        return i -> value.accept(i);
+    }
+    @Override
+    public CompiledStatement visitModuleDeclaration(ModuleDeclaration value) {
+        return i -> value.accept(i);
+    }
+    @Override
+    public CompiledStatement visitNativeFunctionDeclaration(NativeFunctionDeclaration value) {
+        return i -> value.accept(i);
+    }
+    @Override
+    public CompiledStatement visitNativeClassDeclaration(NativeClassDeclaration value) {
+        return i -> value.accept(i);
+    }
+    @Override
+    public CompiledStatement visitTypeDefDeclaration(TypeDefDeclaration value) {
+        return i -> {};
+    }
+    @Override
+    public CompiledStatement visitEmptyDeclaration(EmptyDeclaration value) {
+        return i -> {};
+    }
+
+    @Override
+    public CompiledStatement visitExpressionStatement(ExpressionStatement value) {
+        var expression = compileControlled(value.expression());
+        return i -> expression.execute(i);
+    }
+
+    @Override
+    public CompiledStatement visitIfStatement(IfStatement value) {
+        var condition = compileExpression(value.condition());
+        var body = compileStatement(value.body());
+        return i -> {
+            if(i.truthy(condition.execute(i))) {
+                body.execute(i);
+            }
+        };
+    }
+
+    @Override
+    public CompiledStatement visitSetStatement(SetStatement value) {
+        var expression = compileExpression(value.expression());
+        if(value.setter() instanceof VariableSetter setter && isNumericSlot(setter.slot())) {
+            int index = setter.slot().index;
+            return i -> i.env.numbers[index] = expression.executeDouble(i);
+        }
+        var setter = compileSetter(value.setter());
+        return i -> setter.set(i, expression.execute(i));
+    }
+
+    @Override
+    public CompiledStatement visitForDoStatement(ForDoStatement value) {
+        var collectionExpr = compileExpression(value.collection());
+        var pattern = compilePattern(value.pat());
+        var guard = compileExpression(value.guard());
+        int returnsBefore = signalReturns;
+        var body = compileControlled(value.body());
+        boolean bodyReturns = signalReturns != returnsBefore;
+        var ownsFrame = value.frame().ownsFrame;
+        int size = value.frame().size;
+        // returns false once the body has returned from the function
+        CompiledPattern iteration = (i, element) -> {
+            var previous = i.env;
+            if(ownsFrame) {
+                i.env = previous.openFrame(size);
+            }
+            if(pattern.matches(i, element) && i.truthy(guard.execute(i))) {
+                body.execute(i);
+            }
+            i.env = previous;
+            return !(bodyReturns && i.returning);
+        };
+        if(value.collection() instanceof RangeExpression range) {
+            var bounds = compileRangeBounds(range);
+            return i -> {
+                var startStepEnd = bounds.apply(i);
+                for(double k = startStepEnd[0]; k < startStepEnd[2]; k += startStepEnd[1]) {
+                    if(!iteration.matches(i, k)) {
+                        break;
+                    }
+                }
+            };
+        }
+        return i -> {
+            var collection = collectionExpr.execute(i);
+            if(collection instanceof List<?> theList) {
+                for(Object element : theList) {
+                    if(!iteration.matches(i, element)) {
+                        break;
+                    }
+                }
+            } else {
+                throw new InterpreterError("Invalid list type: " + collection.getClass(), i.callStack);
+            }
+        };
+    }
+
+    @Override
+    public CompiledStatement visitEmptyStatement(EmptyStatement value) {
+        return i -> {};
+    }
+
+    @Override
+    public CompiledParameter visitExpressionParameter(ExpressionParameter value) {
+        var expression = compileExpression(value.expr());
+        return (i, arguments) -> arguments.add(expression.execute(i));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public CompiledParameter visitSpreadParameter(SpreadParameter value) {
+        var collection = compileExpression(value.collection());
+        return (i, arguments) -> {
+            var result = collection.execute(i);
+            if(result instanceof List<?> list) {
+                arguments.addAll(list);
+            } else {
+                throw new InterpreterError("Invalid type for spread operator: "+result.getClass(), i.callStack);
+            }
+        };
+    }
+
+    @Override
+    public CompiledParameter visitNamedParameter(NamedParameter value) {
+        return (i, arguments) -> {
+            throw new InterpreterError("Unexpected named parameter: "+value, i.callStack);
+        };
+    }
+
+    @Override
+    public CompiledParameter visitConditionalParameter(ConditionalParameter value) {
+        var guard = compileExpression(value.guard());
+        var body = compileExpression(value.body());
+        return (i, arguments) -> {
+            if(i.truthy(guard.execute(i))) {
+                arguments.add(body.execute(i));
+            }
+        };
+    }
+
+    @Override
+    public CompiledPattern visitVariableBinding(VariableBinding value) {
+        String name = value.name().lexeme();
+        var slot = value.slot();
+        boolean mutable = bindMutable;
+        boolean export = bindExport;
+        if(slot.isGlobal()) {
+            return (i, matched) -> {
+                i.env.declareVariable(name, matched, mutable);
+                if(export) {
+                    if(i.currentModule.names != i.env) {
+                        throw new InterpreterError("Cannot export local variable "+name, i.callStack);
+                    }
+                    i.currentModule.exports.add(name);
+                }
+                return true;
+            };
+        }
+        if(export) {
+            return (i, matched) -> {
+                throw new InterpreterError("Cannot export local variable "+name, i.callStack);
+            };
+        }
+        int index = slot.index;
+        if(slot.isCell) {
+            return (i, matched) -> {
+                i.env.slots[index] = new Cell(matched);
+                return true;
+            };
+        }
+        return (i, matched) -> {
+            i.env.slots[index] = matched;
+            return true;
+        };
+    }
+
+    @Override
+    public CompiledPattern visitWildcard(Wildcard value) {
+        return (i, matched) -> true;
+    }
+
+    @Override
+    public CompiledPattern visitNumberPattern(NumberPattern value) {
+        Object number = value.value();
+        return (i, matched) -> matched.equals(number);
+    }
+
+    @Override
+    public CompiledPattern visitBooleanPattern(BooleanPattern value) {
+        Object bool = value.value();
+        return (i, matched) -> matched.equals(bool);
+    }
+
+    @Override
+    public CompiledPattern visitStringPattern(StringPattern value) {
+        String string = value.value();
+        return (i, matched) -> string.equals(Rope.flatten(matched));
+    }
+
+    @Override
+    public CompiledPattern visitTuplePattern(TuplePattern value) {
+        var subPatterns = new CompiledPattern[value.subPatterns().size()];
+        for(int k = 0; k < subPatterns.length; k++) {
+            subPatterns[k] = compilePattern(value.subPatterns().get(k), bindMutable, bindExport);
+        }
+        return (i, matched) -> {
+            if(matched instanceof Object[] tuple) {
+                if(tuple.length != subPatterns.length) {
+                    return false;
+                }
+                boolean allMatch = true;
+                for(int k = 0; k < tuple.length; k++) {
+                    allMatch &= subPatterns[k].matches(i, tuple[k]);
+                }
+                return allMatch;
+            } else {
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public CompiledPattern visitConstructorPattern(ConstructorPattern value) {
+        String constructor = value.constr().lexeme().intern();
+        var subPatterns = new CompiledPattern[value.subPatterns().size()];
+        for(int k = 0; k < subPatterns.length; k++) {
+            subPatterns[k] = compilePattern(value.subPatterns().get(k), false, bindExport);
+        }
+        return (i, matched) -> {
+            // variant names are interned
+            if(matched instanceof EnumVariantObject o && constructor == o.variant().getName()) {
+                for(int k = 0; k < subPatterns.length; k++) {
+                    if(!subPatterns[k].matches(i, o.fields()[k])) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            return false;
+        };
+    }
+
+    @Override
+    public CompiledSetter visitVariableSetter(VariableSetter value) {
+        String name = value.name().lexeme();
+        var slot = value.slot();
+        int depth = slot.depth, index = slot.index;
+        if(slot.isGlobal()) {
+            return (i, v) -> i.env.setVariable(name, v, i);
+        } else if(slot.isCell) {
+            return (i, v) -> ((Cell) i.env.getSlot(depth, index)).value = v;
+        } else if(depth == 0) {
+            return (i, v) -> i.env.slots[index] = v;
+        } else {
+            return (i, v) -> i.env.setSlot(depth, index, v);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public CompiledSetter visitIndexSetter(IndexSetter value) {
+        var listExpr = compileExpression(value.list());
+        var indexExpr = compileExpression(value.index());
+        return (i, v) -> {
+            var list = (List<Object>) listExpr.execute(i);
+            var index = (Double) indexExpr.execute(i);
+            if(index % 1 != 0) {
+                throw new InterpreterError("Invalid index "+index, i.callStack);
+            }
+            if(index < 0 || index >= list.size()) {
+                throw new InterpreterError("Index "+index+" out of range for list of length "+list.size(), i.callStack);
+            }
+            list.set((int) (double) index, v);
+        };
+    }
+
+    @Override
+    public CompiledSetter visitPropertySetter(PropertySetter value) {
+        var objectExpr = compileExpression(value.object());
+        var cache = new PropertyCache(value.name().lexeme());
+        return (i, v) -> {
+            var object = (MyLangObject) objectExpr.execute(i);
+            cache.set(object, v, i);
+        };
+    }
+
+    @Override
+    public CompiledSetter visitTupleSetter(TupleSetter value) {
+        var setters = new CompiledSetter[value.setters().size()];
+        for(int k = 0; k < setters.length; k++) {
+            setters[k] = compileSetter(value.setters().get(k));
+        }
+        return (i, v) -> {
+            var tuple = (Object[]) v;
+            for(int k = 0; k < tuple.length; k++) {
+                setters[k].set(i, tuple[k]);
+            }
+        };
+    }
+
+    @Override
+    public CompiledSetter visitWildcardSetter(WildcardSetter value) {
+        return (i, v) -> {};
+    }
+}
@@ -0,0 +1,43 @@
+package MyLang;
+
+import static MyLang.MyLangAST.*;
+
+import java.util.ArrayList;
+
+/**
+ * Interpreter that executes the closures produced by {@link MyLangClosureCompiler}
+ * instead of visiting the AST. Imported files share the same compiler.
+ */
+public class MyLangClosureInterpreter extends MyLangInterpreter {
+    private final MyLangClosureCompiler compiler;
+
+    public MyLangClosureInterpreter(ArrayList<String> prg_args, MyLangClosureCompiler compiler) {
+        super(prg_args);
+        this.compiler = compiler;
+    }
+
+    @Override
+    public Object interpretExpression(Expression expression) {
+        return compiler.compile(expression).execute(this);
+    }
+
+    @Override
+    public Object interpretFunctionBody(Expression body, FrameLayout layout) {
+        return compiler.compileFunctionBody(body, layout).execute(this);
+    }
+
+    @Override
+    public void interpretStatement(Statement statement) {
+        compiler.compileStatement(statement).execute(this);
+    }
+
+    @Override
+    public void interpretDeclaration(Declaration declaration) {
+        compiler.compileDeclaration(declaration).execute(this);
+    }
+
+    @Override
+    protected MyLangInterpreter createImportInterpreter() {
+        return new MyLangClosureInterpreter(program_args, compiler);
+    }
+}
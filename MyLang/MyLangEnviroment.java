@@ -1,26 +1,92 @@
 package MyLang;
 
+import java.util.Arrays;
 import java.util.Map;
 import java.util.HashMap;
 
+/**
+ * Module-level environments store their variables by name, everything below
+ * module level is a frame whose variables live in slots assigned by {@link MyLangResolver}.
+ */
 public class MyLangEnviroment {
+    private static final Object[] NO_SLOTS = new Object[0];
+
     MyLangEnviroment outer = null;
-    Map<String, Object> variables = new HashMap<>();
-    private Map<String, Boolean> readability = new HashMap<>();
+    final MyLangEnviroment globals;
+    public final Object[] slots;
+    // Unboxed numeric locals (see FrameLayout.numericSlots), only used by the closure compiler
+    public double[] numbers;
+    Map<String, Object> variables;
+    private Map<String, Boolean> readability;
 
-    public MyLangEnviroment(MyLangEnviroment outer) {
+    private MyLangEnviroment(MyLangEnviroment outer, int size) {
         this.outer = outer;
+        this.globals = outer.globals;
+        this.slots = size == 0 ? NO_SLOTS : new Object[size];
     }
     public MyLangEnviroment() {
-        
+        this.globals = this;
+        this.slots = NO_SLOTS;
+        this.variables = new HashMap<>();
+        this.readability = new HashMap<>();
     }
 
     public MyLangEnviroment closeScope() {
         return outer;
     }
 
-    public MyLangEnviroment openScope() {
-        return new MyLangEnviroment(this);
+    public MyLangEnviroment openFrame(int size) {
+        return new MyLangEnviroment(this, size);
+    }
+
+    /**
+     * The environment for a function created in this frame that uses the slots at captures
+     * (see FrameLayout.captures): copies of the frames of this chain holding nothing but those
+     * slots, so the function doesn't keep the other locals alive.
+     */
+    public MyLangEnviroment capture(int[] captures) {
+        if(captures == null) {
+            return this;
+        }
+        int depth = -1;
+        for(int k = 0; k < captures.length; k += 2) {
+            depth = Math.max(depth, captures[k]);
+        }
+        var sizes = new int[depth + 1];
+        for(int k = 0; k < captures.length; k += 2) {
+            sizes[captures[k]] = Math.max(sizes[captures[k]], captures[k + 1] + 1);
+        }
+        var originals = new MyLangEnviroment[depth + 1];
+        var copies = new MyLangEnviroment[depth + 1];
+        var frame = this;
+        for(int d = 0; d <= depth; d++) {
+            originals[d] = frame;
+            frame = frame.outer;
+        }
+        var copy = globals;
+        for(int d = depth; d >= 0; d--) {
+            copy = copies[d] = new MyLangEnviroment(copy, sizes[d]);
+        }
+        for(int k = 0; k < captures.length; k += 2) {
+            copies[captures[k]].slots[captures[k + 1]] = originals[captures[k]].slots[captures[k + 1]];
+        }
+        return copy;
+    }
+
+    public Object getSlot(int depth, int index) {
+        MyLangEnviroment frame = this;
+        for(int i = 0; i < depth; i++) {
+            frame = frame.outer;
+        }
+        return frame.slots[index];
+    }
+
+    public void setSlot(int depth, int index, Object value) {
+        MyLangEnviroment frame = this;
+        for(int i = 0; i < depth; i++) {
+            frame = frame.outer;
+        }
+        frame.slots[index] = value;
     }
 
     public void declareVariable(String name, Object value, boolean readable) {
@@ -29,32 +95,25 @@ public class MyLangEnviroment {
     }
 
     public boolean localVariableDeclared(String name) {
-        return variables.containsKey(name) || (outer != null && outer.localVariableDeclared(name));
+        return globals.variables.containsKey(name);
     }
-    
+
     public Object getVariable(String name, MyLangInterpreter interpreter) {
-        if(variables.containsKey(name)) {
-            return variables.get(name);
-        } else if(outer != null) {
-            return outer.getVariable(name, interpreter);
-        } else {
+        var value = globals.variables.get(name);
+        if(value == null && !globals.variables.containsKey(name)) {
             throw new InterpreterError("Variable '"+name+"' not declared", interpreter.callStack);
         }
+        return value;
     }
 
     public void setVariable(String name, Object value, MyLangInterpreter interpreter) {
-       if(variables.containsKey(name) && readability.get(name)) {
-            variables.put(name, value);
-        } else if(outer != null) {
-            outer.setVariable(name, value, interpreter);
+        if(globals.variables.containsKey(name) && globals.readability.get(name)) {
+            globals.variables.put(name, value);
         } else {
             throw new InterpreterError("Variable '"+name+"' not declared", interpreter.callStack);
         }
     }
 
-    public boolean isInClass() {
-        return variables.containsKey("this") || (outer != null && outer.isInClass());
-    }
     public void declareModule(MyLangPath path, MyLangModule module, MyLangInterpreter interpreter) {
         MyLangEnviroment currentEnclosing = this;
         for(int i = 0; i < path.names().size() - 1; i++) {
@@ -75,7 +134,7 @@ public class MyLangEnviroment {
     @Override
     public String toString() {
         StringBuilder b = new StringBuilder();
-        b.append(variables);
+        b.append(variables != null ? variables : Arrays.toString(slots));
         if(outer != null) {
             b.append(" in:\n");
             b.append(outer.toString());
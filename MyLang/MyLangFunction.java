@@ -1,5 +1,7 @@
 package MyLang;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import MyLang.MyLangAST.Expression;
@@ -12,6 +14,7 @@ public record MyLangFunction(
         Map<String, OptionalParam> optionalNamed,
         MyLangEnviroment env, 
         Expression body,
+        FrameLayout layout,
         String fileName) implements MyLangCallable {
 
     public String getName() {
@@ -20,6 +23,9 @@ public record MyLangFunction(
     public String getFileName() {
         return fileName;
     }
+    public int getLine() {
+        return layout.line;
+    }
 
     @Override
     public Object call(
@@ -27,48 +33,128 @@ public record MyLangFunction(
         List<Object> args, 
         Map<String, Object> namedArgs) {
 
+        return invoke(interpreter, bindArguments(interpreter, args, namedArgs, layout.size));
+    }
+
+    @Override
+    public Object call0(MyLangInterpreter interpreter) {
+        return invoke(interpreter, frame(interpreter, 0, null, null, null, null));
+    }
+    @Override
+    public Object call1(MyLangInterpreter interpreter, Object a) {
+        return invoke(interpreter, frame(interpreter, 1, a, null, null, null));
+    }
+    @Override
+    public Object call2(MyLangInterpreter interpreter, Object a, Object b) {
+        return invoke(interpreter, frame(interpreter, 2, a, b, null, null));
+    }
+    @Override
+    public Object call3(MyLangInterpreter interpreter, Object a, Object b, Object c) {
+        return invoke(interpreter, frame(interpreter, 3, a, b, c, null));
+    }
+    @Override
+    public Object call4(MyLangInterpreter interpreter, Object a, Object b, Object c, Object d) {
+        return invoke(interpreter, frame(interpreter, 4, a, b, c, d));
+    }
+
+    /** Opens the frame for a call with the first count of the positional arguments a, b, c and d */
+    MyLangEnviroment frame(MyLangInterpreter interpreter, int count, Object a, Object b, Object c, Object d) {
+        if(!hasArity(count)) {
+            var args = new ArrayList<>(Arrays.asList(a, b, c, d).subList(0, count));
+            return bindArguments(interpreter, args, Map.of(), layout.size);
+        }
+        var frame = env.openFrame(layout.size);
+        var slots = frame.slots;
+        if(count > 0) slots[0] = a;
+        if(count > 1) slots[1] = b;
+        if(count > 2) slots[2] = c;
+        if(count > 3) slots[3] = d;
+        return frame;
+    }
+
+    // Whether count positional arguments fill exactly the parameters, so no defaults have to be evaluated
+    private boolean hasArity(int count) {
+        return parameters.size() == count && optionals.isEmpty() && varargsName == null && optionalNamed.isEmpty();
+    }
+
+    private Object invoke(MyLangInterpreter interpreter, MyLangEnviroment frame) {
         MyLangEnviroment previousEnv = interpreter.env;
-        interpreter.env = env.openScope();
+        Object result = run(interpreter, frame);
+        // Calls in tail position were left to us, making them here keeps the Java stack flat
+        var tailCall = interpreter.tailCall;
+        while(result == tailCall) {
+            var function = tailCall.function;
+            interpreter.callStack.pushMethod(function, tailCall.receiver, tailCall.site, tailCall.callerEnv);
+            result = function.run(interpreter, tailCall.frame);
+            interpreter.callStack.pop();
+        }
+        interpreter.env = previousEnv;
+
+        return result;
+    }
+
+    private Object run(MyLangInterpreter interpreter, MyLangEnviroment frame) {
+        Cell.wrap(frame, layout.cellParameters);
+        interpreter.env = frame;
+        interpreter.currentFileName = fileName;
+        try {
+            return interpreter.interpretFunctionBody(body, layout);
+        } catch(ReturnException r) {
+            return r.takeValue();
+        }
+    }
+
+    /**
+     * Opens a frame with room for frameSize slots and stores the arguments of a call in the
+     * slots of the parameters. Default values are evaluated inside of the new frame.
+     */
+    public MyLangEnviroment bindArguments(
+        MyLangInterpreter interpreter,
+        List<Object> args,
+        Map<String, Object> namedArgs,
+        int frameSize) {
 
         if(!checkSize(args)) {
             throw new InterpreterError(
                     "Wrong number of arguments: expected "+parameters.size()+
                     ", got "+args.size()+" ("+args+")", interpreter.callStack);
         }
-        for(int i = 0; i < parameters.size(); i++) {
-            interpreter.env.declareVariable(parameters.get(i).lexeme(), args.remove(0), false);
+        MyLangEnviroment previousEnv = interpreter.env;
+        var frame = env.openFrame(frameSize);
+        interpreter.env = frame;
+
+        int slot = 0;
+        for(; slot < parameters.size(); slot++) {
+            frame.slots[slot] = args.get(slot);
         }
-        var remaining  = args;
         for(var param: optionals) {
-            if(remaining.isEmpty()) {
-                interpreter.env.declareVariable(param.name(), interpreter.interpretExpression(param.defaultValue()), false);
+            if(slot < args.size()) {
+                frame.slots[slot] = args.get(slot);
             } else {
-                interpreter.env.declareVariable(param.name(), remaining.remove(0), false);
+                // default values see the parameters before them, in their cells
+                Cell.wrap(frame, layout.cellParameters);
+                frame.slots[slot] = interpreter.interpretExpression(param.defaultValue());
             }
+            slot++;
         }
         if(varargsName != null) {
-            var varargs = remaining;
-            interpreter.env.declareVariable(varargsName.lexeme(), varargs, false);
+            frame.slots[slot] = slot < args.size() ? new PersistentVector(args.subList(slot, args.size())) : new PersistentVector();
         }
         namedArgs.forEach((var name,var value) -> {
-            interpreter.env.declareVariable(name, value, false);
+            var index = layout.namedSlots.get(name);
+            if(index == null) {
+                throw new InterpreterError("Unknown named argument '"+name+"' for function "+this.name, interpreter.callStack);
+            }
+            frame.slots[index] = value;
         });
         optionalNamed.forEach((var name, var value) -> {
-            if(!interpreter.env.localVariableDeclared(name)) {
-                interpreter.env.declareVariable(name, interpreter.interpretExpression(value.defaultValue()), false);
+            if(!namedArgs.containsKey(name)) {
+                Cell.wrap(frame, layout.cellParameters);
+                frame.slots[layout.namedSlots.get(name)] = interpreter.interpretExpression(value.defaultValue());
             }
         });
-        String prevFileName = interpreter.currentFileName;
-        interpreter.currentFileName = fileName;
-        Object result;
-        try {
-            result = interpreter.interpretExpression(body);
-        } catch(ReturnException r) {
-            result = r.returnValue;
-        }
         interpreter.env = previousEnv;
-
-        return result;
+        return frame;
     }
 
     private boolean checkSize(List<Object> args) {
@@ -2,10 +2,11 @@ package MyLang;
 
 import static MyLang.MyLangAST.*;
 
+import java.io.PrintStream;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
-import java.util.LinkedList;
 import java.util.Map;
 import java.util.Random;
 import java.util.Scanner;
@@ -22,6 +23,7 @@ public class MyLangInterpreter implements ExpressionVisitor<Object>,
     private MyLangRunner runner;
 
     public Scanner inScanner = new Scanner(System.in);
+    public PrintStream out = System.out;
     public Random random = new Random();
 
     boolean inConstructor = false;
@@ -37,11 +39,36 @@ public class MyLangInterpreter implements ExpressionVisitor<Object>,
         Map.entry("prepend", MyLangBuiltinFunction.listPrepend),
         Map.entry("append", MyLangBuiltinFunction.listAppend)
     );
-    private MyLangClass listClass = new MyLangClass("List", listMethods, List.of(), null, new MyLangEnviroment(), "builtins");
+    MyLangClass listClass = new MyLangClass("List", listMethods, List.of(), null, new MyLangEnviroment(), new FrameLayout(), "builtins");
+    MyLangClass mapClass = new MyLangClass("Map", Map.ofEntries(
+        Map.entry("get", MyLangBuiltinFunction.mapGet),
+        Map.entry("getOr", MyLangBuiltinFunction.mapGetOr),
+        Map.entry("put", MyLangBuiltinFunction.mapPut),
+        Map.entry("contains", MyLangBuiltinFunction.mapContains),
+        Map.entry("remove", MyLangBuiltinFunction.mapRemove),
+        Map.entry("keys", MyLangBuiltinFunction.mapKeys),
+        Map.entry("values", MyLangBuiltinFunction.mapValues)
+    ), List.of(), null, new MyLangEnviroment(), new FrameLayout(), "builtins");
+    MyLangClass setClass = new MyLangClass("Set", Map.ofEntries(
+        Map.entry("add", MyLangBuiltinFunction.setAdd),
+        Map.entry("contains", MyLangBuiltinFunction.setContains),
+        Map.entry("remove", MyLangBuiltinFunction.setRemove),
+        Map.entry("elements", MyLangBuiltinFunction.setElements)
+    ), List.of(), null, new MyLangEnviroment(), new FrameLayout(), "builtins");
+
+    // Declared by native class declarations, the receivers of their methods are found by instanceof.
+    // Shared with the runner, so objects of a class declared in an imported module are found too
+    List<NativeClass> nativeClasses = new ArrayList<>();
 
     private boolean exportCurrentPatterns;
 
-    LinkedList<MyLangStacktraceElement> callStack = new LinkedList<>();
+    public final CallStack callStack = Profiler.current == null ? new CallStack() : Profiler.current.newCallStack();
+    final ReturnException returnSignal = new ReturnException();
+    // Set by returns that MyLangClosureCompiler turns into a flag instead of a throw
+    boolean returning = false;
+    Object returnedValue = null;
+    // Returned by calls in tail position, see MyLangFunction.invoke
+    final TailCall tailCall = new TailCall();
     
     ArrayList<String> program_args;
 
@@ -75,6 +102,8 @@ public class MyLangInterpreter implements ExpressionVisitor<Object>,
         for(MyLangBuiltinFunction builtin : builtins) {
             env.declareVariable(builtin.name, builtin, false);
         }
+        env.declareVariable(MyLangBuiltinFunction.newMap.name, MyLangBuiltinFunction.newMap, false);
+        env.declareVariable(MyLangBuiltinFunction.newSet.name, MyLangBuiltinFunction.newSet, false);
     }
 
     public Object interpretAny(MyLangAST ast) {
@@ -90,6 +119,9 @@ public class MyLangInterpreter implements ExpressionVisitor<Object>,
 
     public void interpretFile(MyLangRunner r, MyLangFile file, boolean isMainFile) {
         this.runner = r;
+        this.nativeClasses = r.nativeClasses;
+        this.out = r.out;
+        this.inScanner = r.in;
         this.currentFileName = file.fileName();
         for(var i: file.imports()) {
             visitImport(i);
@@ -99,7 +131,7 @@ public class MyLangInterpreter implements ExpressionVisitor<Object>,
         }
 
         if(isMainFile) {
-            ((MyLangFunction) env.getVariable("main", this)).call(this, List.of(), Map.of());
+            ((MyLangCallable) env.getVariable("main", this)).call(this, List.of(), Map.of());
         }
     }
 
@@ -114,16 +146,48 @@ public class MyLangInterpreter implements ExpressionVisitor<Object>,
         return expression.accept(this);
     }
 
+    /** Runs the body of a function, env is the frame described by layout */
+    public Object interpretFunctionBody(Expression body, FrameLayout layout) {
+        return interpretExpression(body);
+    }
+
     public List<Object> interpretParameter(Parameter parameter) {
         return parameter.accept(this);
     }
 
-    private void openScope() {
-        env = env.openScope();
+    private Object lookup(VariableSlot slot, String name) {
+        if(slot.isGlobal()) {
+            return env.getVariable(name, this);
+        }
+        var value = env.getSlot(slot.depth, slot.index);
+        return slot.isCell ? ((Cell) value).value : value;
+    }
+
+    private void assign(VariableSlot slot, String name, Object value) {
+        if(slot.isGlobal()) {
+            env.setVariable(name, value, this);
+        } else if(slot.isCell) {
+            ((Cell) env.getSlot(slot.depth, slot.index)).value = value;
+        } else {
+            env.setSlot(slot.depth, slot.index, value);
+        }
+    }
+
+    // Declarations always happen in the current frame
+    void declare(VariableSlot slot, String name, Object value, boolean reassignable) {
+        if(slot.isGlobal()) {
+            env.declareVariable(name, value, reassignable);
+        } else {
+            env.slots[slot.index] = slot.isCell ? new Cell(value) : value;
+        }
     }
 
-    private void closeScope() {
-        env = env.closeScope();
+    private MyLangEnviroment enterScope(FrameLayout layout) {
+        var previous = env;
+        if(layout.ownsFrame) {
+            env = env.openFrame(layout.size);
+        }
+        return previous;
     }
 
     public static String stringify(Object obj) {
@@ -184,7 +248,7 @@ public class MyLangInterpreter implements ExpressionVisitor<Object>,
 
     @Override
     public Object visitIdentifier(Identifier value) {
-        return env.getVariable(value.value().lexeme(), this);
+        return lookup(value.slot(), value.value().lexeme());
     }
 
     public boolean truthy(Object object) {
@@ -217,17 +281,7 @@ public class MyLangInterpreter implements ExpressionVisitor<Object>,
         var left = value.left().accept(this);
         var right = value.right().accept(this);
         return switch(value.operator().type()) {
-            case PLUS -> {
-                if (left instanceof Double l1 && right instanceof Double l2) {
-                    yield l1 + l2;
-                } else if (left instanceof String s1) {
-                    yield s1 + stringify(right);
-                } else if (right instanceof String s2) {
-                    yield stringify(left) + s2;
-                } else {
-                    throw new InterpreterError("Unsupported operand types for +: " + left.getClass() + ", " + right.getClass(), callStack);
-                }
-            }
+            case PLUS -> plus(left, right);
             case MINUS -> (double) left - (double) right;
             case STAR -> {
                 if(left instanceof Double l1 && right instanceof Double l2) {
@@ -239,8 +293,8 @@ public class MyLangInterpreter implements ExpressionVisitor<Object>,
             case SLASH -> (double) left / (double) right;
             case PERCENT -> (double) left % (double) right;
             case EXPO -> Math.pow((double) left, (double) right);
-            case EQUAL -> left.equals(right);
-            case NOT_EQUAL -> !left.equals(right);
+            case EQUAL -> isEqual(left, right);
+            case NOT_EQUAL -> !isEqual(left, right);
             case GREATER -> (double) left > (double) right;
             case GREATER_EQUAL -> (double) left >= (double) right;
             case LESS -> (double) left < (double) right;
@@ -251,8 +305,33 @@ public class MyLangInterpreter implements ExpressionVisitor<Object>,
         };
     }
 
-    private boolean contains(Object left, Object right) {
-        if(right instanceof List<?> r) {
+    public Object plus(Object left, Object right) {
+        if (left instanceof Double l1 && right instanceof Double l2) {
+            return l1 + l2;
+        } else if (left instanceof String s1) {
+            return Rope.concat(s1, stringify(right));
+        } else if (left instanceof Rope r1) {
+            return Rope.concat(r1, stringify(right));
+        } else if (right instanceof String || right instanceof Rope) {
+            return stringify(left) + right;
+        } else {
+            throw new InterpreterError("Unsupported operand types for +: " + left.getClass() + ", " + right.getClass(), callStack);
+        }
+    }
+
+    // A String and a Rope with the same characters are equal
+    public static boolean isEqual(Object left, Object right) {
+        return Rope.flatten(left).equals(Rope.flatten(right));
+    }
+
+    public boolean contains(Object left, Object right) {
+        left = Rope.flatten(left);
+        right = Rope.flatten(right);
+        if(right instanceof MyLangSet r) {
+            return r.contains(left);
+        } else if(right instanceof MyLangMap r) {
+            return r.contains(left);
+        } else if(right instanceof List<?> r) {
             return r.contains(left);
         } else if(right instanceof String s) {
             return s.contains((String) left);
@@ -274,8 +353,80 @@ public class MyLangInterpreter implements ExpressionVisitor<Object>,
 
     @Override
     public Object visitFunctionCall(FunctionCall value) {
-        var function = interpretExpression(value.callee());
+        if(value.callee() instanceof PropertyExpression property) {
+            var receiver = interpretExpression(property.object());
+            var method = MethodCache.lookup(receiver, property.name().lexeme(), this);
+            if(method != null) {
+                return callMethod(value, method, receiver);
+            }
+            return callFunction(value, getProperty(receiver, property.name().lexeme()));
+        }
+        return callFunction(value, interpretExpression(value.callee()));
+    }
+
+    // Calls method with receiver as its first argument, without binding it
+    private Object callMethod(FunctionCall value, MyLangCallable method, Object receiver) {
+        var arguments = value.arguments();
+        if(hasFixedArity(value) && arguments.size() < 4) {
+            int count = arguments.size();
+            var a = count > 0 ? interpretArgument(arguments.get(0)) : null;
+            var b = count > 1 ? interpretArgument(arguments.get(1)) : null;
+            var c = count > 2 ? interpretArgument(arguments.get(2)) : null;
+            if(value.tail().isTail && method instanceof MyLangFunction target) {
+                return tailCall.to(target, target.frame(this, count + 1, receiver, a, b, c), value, receiver, env);
+            }
+            callStack.pushMethod(method, receiver, value, env);
+            var result = switch(count) {
+                case 0 -> method.call1(this, receiver);
+                case 1 -> method.call2(this, receiver, a);
+                case 2 -> method.call3(this, receiver, a, b);
+                default -> method.call4(this, receiver, a, b, c);
+            };
+            callStack.pop();
+            return result;
+        }
+        List<Object> withReceiver = new ArrayList<>();
+        withReceiver.add(receiver);
+        for (Parameter argument : arguments) {
+            withReceiver.addAll(interpretParameter(argument));
+        }
+        Map<String, Object> namedArgs = new HashMap<>();
+        value.named().forEach((var name, var param) -> {
+            namedArgs.put(name, interpretExpression(param));
+        });
+        if(value.tail().isTail && method instanceof MyLangFunction target) {
+            var frame = target.bindArguments(this, withReceiver, namedArgs, target.layout().size);
+            return tailCall.to(target, frame, value, receiver, env);
+        }
+        callStack.pushMethod(method, receiver, value, env);
+        var result = method.call(this, withReceiver, namedArgs);
+        callStack.pop();
+        return result;
+    }
+
+    private Object callFunction(FunctionCall value, Object function) {
         if(function instanceof MyLangCallable theFunction) {
+            if(hasFixedArity(value)) {
+                var arguments = value.arguments();
+                int count = arguments.size();
+                var a = count > 0 ? interpretArgument(arguments.get(0)) : null;
+                var b = count > 1 ? interpretArgument(arguments.get(1)) : null;
+                var c = count > 2 ? interpretArgument(arguments.get(2)) : null;
+                var d = count > 3 ? interpretArgument(arguments.get(3)) : null;
+                if(value.tail().isTail && theFunction instanceof MyLangFunction target) {
+                    return tailCall.to(target, target.frame(this, count, a, b, c, d), value, null, env);
+                }
+                callStack.push(theFunction, value, env);
+                var result = switch(count) {
+                    case 0 -> theFunction.call0(this);
+                    case 1 -> theFunction.call1(this, a);
+                    case 2 -> theFunction.call2(this, a, b);
+                    case 3 -> theFunction.call3(this, a, b, c);
+                    default -> theFunction.call4(this, a, b, c, d);
+                };
+                callStack.pop();
+                return result;
+            }
             List<Object> arguments = new ArrayList<>();
             for (Parameter argument : value.arguments()) {
                 arguments.addAll(interpretParameter(argument));
@@ -284,7 +435,11 @@ public class MyLangInterpreter implements ExpressionVisitor<Object>,
             value.named().forEach((var name, var param) -> {
                 namedArgs.put(name, interpretExpression(param));
             });
-            callStack.push(new MyLangStacktraceElement(theFunction.getName()+"() at line "+value.dot().line()+" in file "+theFunction.getFileName(), env));
+            if(value.tail().isTail && theFunction instanceof MyLangFunction target) {
+                var frame = target.bindArguments(this, arguments, namedArgs, target.layout().size);
+                return tailCall.to(target, frame, value, null, env);
+            }
+            callStack.push(theFunction, value, env);
             var result = theFunction.call(this, arguments, namedArgs);
             callStack.pop();
             return result;
@@ -293,19 +448,41 @@ public class MyLangInterpreter implements ExpressionVisitor<Object>,
         }
     }
 
-    @Override
-    public Object visitFunctionExpression(FunctionExpression value) {
+    /** Whether call passes at most four plain positional arguments, see {@link MyLangCallable#call0} */
+    static boolean hasFixedArity(FunctionCall call) {
+        if(call.arguments().size() > 4 || !call.named().isEmpty()) {
+            return false;
+        }
+        for(var argument : call.arguments()) {
+            if(!(argument instanceof ExpressionParameter)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Object interpretArgument(Parameter argument) {
+        return interpretExpression(((ExpressionParameter) argument).expr());
+    }
+
+    protected MyLangCallable createFunction(String name, ParameterInformation parameters, Expression body, FrameLayout layout) {
         return new MyLangFunction(
-                value.optionalName(), 
-                value.parameters().names(), 
-                value.parameters().varargsName(), 
-                value.parameters().optionals(),
-                value.parameters().optionalNamed(),
-                env, 
-                value.body(),
+                name, 
+                parameters.names(), 
+                parameters.varargsName(), 
+                parameters.optionals(),
+                parameters.optionalNamed(),
+                env.capture(layout.captures),
+                body,
+                layout,
                 currentFileName);
     }
 
+    @Override
+    public Object visitFunctionExpression(FunctionExpression value) {
+        return createFunction(value.optionalName(), value.parameters(), value.body(), value.frame());
+    }
+
     @Override
     public Object visitIfExpression(IfExpression value) {
         if(truthy(interpretExpression(value.condition()))) {
@@ -317,20 +494,19 @@ public class MyLangInterpreter implements ExpressionVisitor<Object>,
     @Override
     public Object visitIfValExpression(IfValExpression value) {
         var matched = interpretExpression(value.matched());
-        openScope();
-        Object result;
+        var previous = enterScope(value.frame());
         if(matches(matched, value.pat())) {
-            result = interpretExpression(value.thenBranch());
-        } else {
-            result = interpretExpression(value.elseBranch());
+            var result = interpretExpression(value.thenBranch());
+            env = previous;
+            return result;
         }
-        closeScope();
-        return result;
+        env = previous;
+        return interpretExpression(value.elseBranch());
     }
 
     @Override
     public Object visitListExpression(ListExpression value) {
-        List<Object> elements = new ArrayList<>();
+        List<Object> elements = new PersistentVector();
         for(Parameter element : value.elements()) {
             elements.addAll(interpretParameter(element));
         }
@@ -340,14 +516,19 @@ public class MyLangInterpreter implements ExpressionVisitor<Object>,
     @Override
     public Object visitIndexExpression(IndexExpression value) {
         var list = interpretExpression(value.list());
+        return getIndex(list, interpretExpression(value.index()));
+    }
+
+    public Object getIndex(Object list, Object theIndex) {
+        list = Rope.flatten(list);
         if(list instanceof List theList) {
-            var index = (double) interpretExpression(value.index());
+            var index = (double) theIndex;
             if(!(index >= 0 && index < theList.size()) || index % 1 != 0) {
                 throw new InterpreterError("Index out of bounds or invalid index: " + stringify(index), callStack);
             }
             return theList.get((int) index);
         } else if(list instanceof String str) {
-            var index = (double) interpretExpression(value.index());
+            var index = (double) theIndex;
             if(index % 1 != 0) {
                 throw new InterpreterError("Index out of bounds or invalid index: " + stringify(index), callStack);
             }
@@ -359,48 +540,90 @@ public class MyLangInterpreter implements ExpressionVisitor<Object>,
 
     @Override
     public Object visitPropertyExpression(PropertyExpression value) {
-        var object = interpretExpression(value.object());
+        return getProperty(interpretExpression(value.object()), value.name().lexeme());
+    }
+
+    // Properties of lists that are not methods
+    static boolean isListProperty(String name) {
+        return switch(name) {
+            case "length", "first", "last", "rest", "firsts" -> true;
+            default -> false;
+        };
+    }
+
+    // Slices of the lists created by programs share the elements without keeping the list alive
+    static List<?> rest(List<?> list) {
+        return list instanceof PersistentVector v ? v.slice(1, v.size()) : list.subList(1, list.size());
+    }
+
+    static List<?> firsts(List<?> list) {
+        return list instanceof PersistentVector v ? v.slice(0, v.size() - 1) : list.subList(0, list.size() - 1);
+    }
+
+    public Object getProperty(Object object, String name) {
         if(object instanceof MyLangObject theObject) {
-            return theObject.getField(value.name().lexeme(), this);
+            return theObject.getField(name, this);
         } else if(object instanceof List theList) {
-            if(value.name().lexeme().equals("length")) {
+            if(name.equals("length")) {
                 return (double) theList.size();
-            } else if(value.name().lexeme().equals("first")) {
+            } else if(name.equals("first")) {
                 return theList.get(0);
-            } else if(value.name().lexeme().equals("last")) {
+            } else if(name.equals("last")) {
                 return theList.get(theList.size() - 1);
-            } else if(value.name().lexeme().equals("rest")) {
-                return theList.subList(1, theList.size());
-            } else if(value.name().lexeme().equals("firsts")) {
-                return theList.subList(0, theList.size() - 1);
-            } else if(listClass.methods().containsKey(value.name().lexeme())){
-                return listClass.methods().get(value.name().lexeme()).bind(theList);
+            } else if(name.equals("rest")) {
+                return rest(theList);
+            } else if(name.equals("firsts")) {
+                return firsts(theList);
+            } else if(listClass.methods().containsKey(name)){
+                return listClass.methods().get(name).bind(theList);
+            } else {
+                throw new InterpreterError("List has no property '"+ name+"'", callStack);
+            }
+        } else if(object instanceof MyLangMap theMap) {
+            if(name.equals("length")) {
+                return (double) theMap.size();
+            } else if(mapClass.methods().containsKey(name)) {
+                return mapClass.methods().get(name).bind(theMap);
+            } else {
+                throw new InterpreterError("Map has no property '"+ name+"'", callStack);
+            }
+        } else if(object instanceof MyLangSet theSet) {
+            if(name.equals("length")) {
+                return (double) theSet.size();
+            } else if(setClass.methods().containsKey(name)) {
+                return setClass.methods().get(name).bind(theSet);
             } else {
-                throw new InterpreterError("List has no property '"+ value.name().lexeme()+"'", callStack);
+                throw new InterpreterError("Set has no property '"+ name+"'", callStack);
             }
         } else if(object instanceof EnumVariantObject e) {
-            return e.getProperty(value.name().lexeme());
+            return e.getProperty(name);
         } else if(object instanceof MyLangModule m) {
-            if(m.names.localVariableDeclared(value.name().lexeme())) {
-                return m.names.getVariable(value.name().lexeme(), this);
+            if(m.names.localVariableDeclared(name)) {
+                return m.names.getVariable(name, this);
             } else {
-                throw new InterpreterError("Module '"+m.name.toString()+"' does not export '"+value.name().lexeme()+"'", callStack);
+                throw new InterpreterError("Module '"+m.name.toString()+"' does not export '"+name+"'", callStack);
             }
         } else {
-            throw new InterpreterError("Invalid object type: " + object.getClass(), callStack);
+            var nativeClass = nativeClassOf(object);
+            if(nativeClass == null) {
+                throw new InterpreterError("Invalid object type: " + object.getClass(), callStack);
+            } else if(nativeClass.methods().containsKey(name)) {
+                return nativeClass.methods().get(name).bind(object);
+            } else {
+                throw new InterpreterError("Native class '"+nativeClass.name()+"' has no method '"+name+"'", callStack);
+            }
         }
     }
 
     @Override
     public Object visitBlockExpression(BlockExpression value) {
-        openScope();
+        var previous = enterScope(value.frame());
         for(DeclarationOrStatement statement : value.statements()) {
             interpretAny(statement);
         }
         var result = interpretExpression(value.returnValue());
-        closeScope();
+        env = previous;
         return result;
-    
     }
 
     @Override
@@ -442,15 +665,12 @@ public class MyLangInterpreter implements ExpressionVisitor<Object>,
 
     @Override
     public Void visitFunctionDeclaration(FunctionDeclaration value) {
-        MyLangFunction function = new MyLangFunction(
-                value.Name().lexeme(),
-                value.parameters().names(), 
-                value.parameters().varargsName(), 
-                value.parameters().optionals(),
-                value.parameters().optionalNamed(),
-                env, 
-                value.body(), currentFileName);
-        env.declareVariable(value.Name().lexeme(), function, false);
+        if(value.slot().isCell) { // the function uses itself, its copy of the frame has to hold the cell
+            declare(value.slot(), value.Name().lexeme(), null, false);
+            assign(value.slot(), value.Name().lexeme(), createFunction(value.Name().lexeme(), value.parameters(), value.body(), value.frame()));
+        } else {
+            declare(value.slot(), value.Name().lexeme(), createFunction(value.Name().lexeme(), value.parameters(), value.body(), value.frame()), false);
+        }
         if(value.export()) {
             if(currentModule.names != env) {
                 throw new InterpreterError("Cannot export local variable ('"+value.Name().lexeme()+"')", callStack);
@@ -461,7 +681,7 @@ public class MyLangInterpreter implements ExpressionVisitor<Object>,
     }
     @Override
     public Object visitWhileYieldExpression(WhileYieldExpression value) {
-        List<Object> results = new ArrayList<>();
+        List<Object> results = new PersistentVector();
         while(truthy(interpretExpression(value.condition()))) {
             results.addAll(interpretParameter(value.body()));
         }
@@ -469,15 +689,15 @@ public class MyLangInterpreter implements ExpressionVisitor<Object>,
     }
     @Override
     public Object visitWhileValYieldExpression(WhileValYieldExpression value) {
-        List<Object> results = new ArrayList<>();
+        List<Object> results = new PersistentVector();
         while(true) {
-            openScope();
+            var previous = enterScope(value.frame());
             var matches = matches(interpretExpression(value.matched()), value.pattern());
             if(matches) {
                 results.add(interpretExpression(value.body()));
-                closeScope();
+                env = previous;
             } else {
-                closeScope();
+                env = previous;
                 break;
             }
         }
@@ -495,13 +715,13 @@ public class MyLangInterpreter implements ExpressionVisitor<Object>,
     @Override
     public Object visitWhileValDoExpression(WhileValDoExpression value) {
         while(true) {
-            openScope();
+            var previous = enterScope(value.frame());
             var matches = matches(interpretExpression(value.matched()), value.pattern());
             if(matches) {
                 interpretExpression(value.body());
-                closeScope();
+                env = previous;
             } else {
-                closeScope();
+                env = previous;
                 break;
             }
         }
@@ -510,15 +730,15 @@ public class MyLangInterpreter implements ExpressionVisitor<Object>,
 
     @Override
     public Object visitForYieldExpression(ForYieldExpression value) {
-        List<Object> results = new ArrayList<>();
+        List<Object> results = new PersistentVector();
         var collection = interpretExpression(value.collection());
         if(collection instanceof List theList) {
             for(Object element : theList) {
-                openScope();
+                var previous = enterScope(value.frame());
                 if(matches(element, value.pat()) && truthy(interpretExpression(value.guard()))) {
                     results.addAll(interpretParameter(value.body()));
                 }
-                closeScope();
+                env = previous;
             }
             return results;
         } else {
@@ -531,11 +751,11 @@ public class MyLangInterpreter implements ExpressionVisitor<Object>,
         var collection = interpretExpression(value.collection());
         if(collection instanceof List theList) {
             for(Object element : theList) {
-                openScope();
+                var previous = enterScope(value.frame());
                 if(matches(element, value.pat()) && truthy(interpretExpression(value.guard()))) {
                     interpretExpression(value.body());
                 }
-                closeScope();
+                env = previous;
             }
             return null;
         } else {
@@ -548,8 +768,19 @@ public class MyLangInterpreter implements ExpressionVisitor<Object>,
         var start = interpretExpression(value.start());
         var step = interpretExpression(value.step());
         var end = interpretExpression(value.end());
-        var resultingList = new ArrayList<Double>();
+        return range(start, step, end);
+    }
+
+    public List<Object> range(Object start, Object step, Object end) {
+        var resultingList = new PersistentVector();
         if(start instanceof Double s && step instanceof Double c && end instanceof Double e) {
+            // elements computed by multiplication only equal the summed ones for whole numbers
+            if(c > 0 && s == Math.rint(s) && c == Math.rint(c)) {
+                if(RangeList.size(s, c, e) > RangeList.MAX_SIZE) {
+                    throw new InterpreterError("Range too large: [" + s + ".." + e + " : " + c + "]", callStack);
+                }
+                return new RangeList(s, c, e);
+            }
             for(double i = s; i < e; i += c) {
                 resultingList.add(i);
             }
@@ -561,18 +792,16 @@ public class MyLangInterpreter implements ExpressionVisitor<Object>,
 
     @Override
     public Void visitClassDeclaration(ClassDeclaration value) {
-        env = env.openScope();
         var constructor = value.constructor() != null ? 
             compileConstructorToMethod(value.Name().lexeme(), value.constructor()) : null;
         var fields = compileFields(value.fieldsAndMethods());
         Map<String, MyLangCallable> methods = compileMethods(value.fieldsAndMethods());
-        env = env.closeScope();
         var result = new MyLangClass(value.Name().lexeme(),
                                      methods,
                                      fields,
                                      constructor,
-                                     env, currentFileName);
-        env.declareVariable(value.Name().lexeme(), result, false);
+                                     env, value.fieldFrame(), currentFileName);
+        declare(value.slot(), value.Name().lexeme(), result, false);
         if(value.export()) {
             if(currentModule.names != env) {
                 throw new InterpreterError("Cannot export local variable ('"+value.Name().lexeme()+"')", callStack);
@@ -582,6 +811,62 @@ public class MyLangInterpreter implements ExpressionVisitor<Object>,
         return null;
     }
 
+    @Override
+    public Void visitNativeFunctionDeclaration(NativeFunctionDeclaration value) {
+        var name = value.Name().lexeme();
+        NativeFunction function;
+        try {
+            function = NativeFunction.function(name, value.path().lexeme(), value.type().parameters(), currentFileName);
+        } catch(IllegalArgumentException e) {
+            throw new InterpreterError(e.getMessage(), callStack);
+        }
+        declare(value.slot(), name, function, false);
+        if(value.export()) {
+            if(currentModule.names != env) {
+                throw new InterpreterError("Cannot export local variable ('"+name+"')", callStack);
+            }
+            currentModule.exports.add(name);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitNativeClassDeclaration(NativeClassDeclaration value) {
+        var name = value.Name().lexeme();
+        NativeClass result;
+        try {
+            var javaClass = NativeFunction.javaClass(value.path().lexeme());
+            Map<String, MyLangCallable> methods = new HashMap<>();
+            for(var method : value.methods().entrySet()) {
+                methods.put(method.getKey(), NativeFunction.method(javaClass, method.getKey(), method.getValue().parameters(), currentFileName));
+            }
+            var constructor = value.constructor() != null
+                ? NativeFunction.constructor(javaClass, name, value.constructor(), currentFileName) : null;
+            result = new NativeClass(name, javaClass, methods, constructor, currentFileName);
+        } catch(IllegalArgumentException e) {
+            throw new InterpreterError(e.getMessage(), callStack);
+        }
+        nativeClasses.add(result);
+        declare(value.slot(), name, result, false);
+        if(value.export()) {
+            if(currentModule.names != env) {
+                throw new InterpreterError("Cannot export local variable ('"+name+"')", callStack);
+            }
+            currentModule.exports.add(name);
+        }
+        return null;
+    }
+
+    /** The native class of a Java object, null for the values of MyLang and undeclared classes */
+    NativeClass nativeClassOf(Object object) {
+        for(var c : nativeClasses) {
+            if(c.javaClass().isInstance(object)) {
+                return c;
+            }
+        }
+        return null;
+    }
+
     private List<VariableDeclaration> compileFields(List<Declaration> fieldsAndMethods) {
         return fieldsAndMethods.stream()
             .filter((var fieldOrMethod) -> (fieldOrMethod instanceof VariableDeclaration))
@@ -593,40 +878,22 @@ public class MyLangInterpreter implements ExpressionVisitor<Object>,
         return fieldsAndMethods.stream()
             .filter((var fieldOrMethod) -> (fieldOrMethod instanceof FunctionDeclaration))
             .map(field -> (FunctionDeclaration) field)
-            .map((FunctionDeclaration declaration) -> {
-                declaration.parameters().names().add(0, new Token(TokenType.VALUE_THIS, "this", declaration.Name().line()));
-                return new MyLangFunction(
-                        declaration.Name().lexeme(),
-                        declaration.parameters().names(),
-                        declaration.parameters().varargsName(),
-                        declaration.parameters().optionals(),
-                        declaration.parameters().optionalNamed(),
-                        env,
-                        declaration.body(), currentFileName);
-            }).collect(Collectors.toMap((MyLangCallable method) -> (method.getName()),
+            .map((FunctionDeclaration declaration) -> 
+                createFunction(declaration.Name().lexeme(), declaration.parameters(), declaration.body(), declaration.frame())
+            ).collect(Collectors.toMap((MyLangCallable method) -> (method.getName()),
                     (MyLangCallable method) -> (method)));
     }
 
-    private MyLangFunction compileConstructorToMethod(String className, ClassConstructor constructor) {
-        constructor.parameters().names().add(0, new Token(TokenType.VALUE_THIS, "this", constructor.keyword().line()));
-        return new MyLangFunction(
-                className+"Init", 
-                constructor.parameters().names(),
-                constructor.parameters().varargsName(),
-                constructor.parameters().optionals(),
-                constructor.parameters().optionalNamed(),
-                env, 
-                constructor.body(),
-                currentFileName);
+    private MyLangCallable compileConstructorToMethod(String className, ClassConstructor constructor) {
+        return createFunction(className+"Init", constructor.parameters(), constructor.body(), constructor.frame());
     }
 
     @Override
     public Object visitThisExpression(ThisExpression value) {
-        if(!env.isInClass()) {
-            System.out.println(env);
+        if(value.slot().isGlobal()) {
             throw new InterpreterError("Cannot use 'this' outside of a class.", callStack);
         }
-        return env.getVariable("this", this);
+        return env.getSlot(value.slot().depth, value.slot().index);
     }
 
     @Override
@@ -669,6 +936,21 @@ public class MyLangInterpreter implements ExpressionVisitor<Object>,
         return null;
     }
 
+    /** The file at path, relative paths start at the directory the program was run from */
+    public Path pathOf(String path) {
+        return runner == null ? Path.of(path) : runner.baseDirectory.resolve(path);
+    }
+
+    /** Ends the program, only the request if it runs in a script server */
+    public void exit(int status) {
+        if(runner == null) System.exit(status);
+        runner.exit.accept(status);
+    }
+
+    protected MyLangInterpreter createImportInterpreter() {
+        return new MyLangInterpreter(program_args);
+    }
+
     public Void visitImport(Import value) {
         var v = (ImportDeclaration) value;
         var resolvedPath = runner.resolvePath(v.Name());
@@ -676,7 +958,7 @@ public class MyLangInterpreter implements ExpressionVisitor<Object>,
             env.declareModule(v.Name(), runner.interpretedFiles.get(resolvedPath), this);
         } else {
             var code = runner.compiledFiles.get(resolvedPath);
-            var interpreter = new MyLangInterpreter(program_args);
+            var interpreter = createImportInterpreter();
             interpreter.interpretFile(runner, code, false);
             runner.interpretedFiles.put(resolvedPath, interpreter.currentModule);
             env.declareModule(v.Name(), interpreter.currentModule, this);
@@ -706,7 +988,7 @@ public class MyLangInterpreter implements ExpressionVisitor<Object>,
     } 
     @Override
     public Void visitReturnExpression(ReturnExpression r) {
-        throw new ReturnException(interpretExpression(r.returnValue()));
+        throw returnSignal.carrying(interpretExpression(r.returnValue()));
     }
     @Override
     public List<Object> visitNamedParameter(NamedParameter n) {
@@ -722,20 +1004,22 @@ public class MyLangInterpreter implements ExpressionVisitor<Object>,
     }
 
     private void declareEnumConstructor(EnumConstructor e, Map<String, MyLangCallable> methods) {
-        env.declareVariable(e.name().lexeme(), new EnumVariant(e.name(), e.parameters().size(), methods, currentFileName), true);
+        declare(e.slot(), e.name().lexeme(), new EnumVariant(e.name(), e.parameters().size(), methods, currentFileName), true);
     }
 
     @Override
     public Object visitMatchExpression(MatchExpression m) {
         var matched = interpretExpression(m.matched());
-        for(int i = 0; i < m.cases().size(); i++) {
-            openScope();
-            if(matches(matched, m.cases().get(i))) {
-                var result = interpretExpression(m.branches().get(i));
-                closeScope();
-                return result;
+        var leaf = m.tree().select(matched);
+        if(leaf != null) {
+            var previous = enterScope(m.frame());
+            var bindings = leaf.bindings();
+            for(int i = 0; i < bindings.length; i++) {
+                declare(bindings[i].slot(), bindings[i].name().lexeme(), leaf.valueOf(i, matched), false);
             }
-            closeScope();
+            var result = interpretExpression(m.branches().get(leaf.branch()));
+            env = previous;
+            return result;
         }
 
         throw new InterpreterError("Non exhaustive match while matching "+stringify(matched), callStack);
@@ -762,7 +1046,7 @@ public class MyLangInterpreter implements ExpressionVisitor<Object>,
     }
     @Override
     public Boolean visitVariableBinding(VariableBinding v) {
-        env.declareVariable(v.name().lexeme(), currentMatcher, isMutable);
+        declare(v.slot(), v.name().lexeme(), currentMatcher, isMutable);
 
         if(exportCurrentPatterns) {
             if(currentModule.names != env) {
@@ -774,7 +1058,7 @@ public class MyLangInterpreter implements ExpressionVisitor<Object>,
     }
     @Override
     public Boolean visitStringPattern(StringPattern s) {
-        return s.value().equals(currentMatcher);
+        return s.value().equals(Rope.flatten(currentMatcher));
     }
     @Override
     public Boolean visitNumberPattern(NumberPattern n) {
@@ -787,9 +1071,9 @@ public class MyLangInterpreter implements ExpressionVisitor<Object>,
     @Override
     public Boolean visitConstructorPattern(ConstructorPattern p) {
         if(currentMatcher instanceof EnumVariantObject o) {
-            if(p.constr().lexeme().equals(o.variant().Name().lexeme())) {
+            if(p.constr().lexeme().equals(o.variant().getName())) {
                 for(int i = 0; i < p.subPatterns().size(); i++) {
-                    if(!matches(o.fields().get(i), p.subPatterns().get(i))) {
+                    if(!matches(o.fields()[i], p.subPatterns().get(i))) {
                         return false;
                     }
                 }
@@ -835,10 +1119,7 @@ public class MyLangInterpreter implements ExpressionVisitor<Object>,
     }
     @Override
     public Void visitVariableSetter(VariableSetter s) {
-        if(!env.localVariableDeclared(s.name().lexeme())) {
-            System.out.println(env);
-        }
-        env.setVariable(s.name().lexeme(), currentMatcher, this);
+        assign(s.slot(), s.name().lexeme(), currentMatcher);
         return null;
     }
     @Override
@@ -851,23 +1132,31 @@ public class MyLangInterpreter implements ExpressionVisitor<Object>,
     }
     @Override
     public Void visitIndexSetter(IndexSetter i) {
-        var list = (List) interpretExpression(i.list());
-        var index = (Double) interpretExpression(i.index());
+        setIndex(interpretExpression(i.list()), interpretExpression(i.index()), currentMatcher);
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void setIndex(Object theList, Object theIndex, Object value) {
+        var list = (List<Object>) theList;
+        var index = (Double) theIndex;
         if(index % 1 != 0) {
             throw new InterpreterError("Invalid index "+index, callStack);
         }
         if(index < 0 || index >= list.size()) {
             throw new InterpreterError("Index "+index+" out of range for list of length "+list.size(), callStack);
         }
-        list.set((int) (double) index, currentMatcher);
-        return null;
+        list.set((int) (double) index, value);
     }
     @Override
     public Void visitPropertySetter(PropertySetter p) {
-        var object = (MyLangObject) interpretExpression(p.object());
-        object.setField(p.name().lexeme(), currentMatcher, inConstructor, this);
+        setProperty(interpretExpression(p.object()), p.name().lexeme(), currentMatcher);
         return null;
     }
+
+    public void setProperty(Object object, String name, Object value) {
+        ((MyLangObject) object).setField(name, value, inConstructor, this);
+    }
     @Override
     public Object visitInstExpression(InstExpression i) {
         return interpretExpression(i.instantiated());
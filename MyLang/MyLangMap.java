@@ -0,0 +1,64 @@
+package MyLang;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/** The objects of the builtin class Map(K, V), iterated in the order the keys were added */
+public final class MyLangMap {
+    private final LinkedHashMap<Object, Object> entries = new LinkedHashMap<>();
+
+    public boolean contains(Object key) {
+        return entries.containsKey(HashKey.of(key));
+    }
+
+    /** The value of key, null if there is none */
+    public Object get(Object key) {
+        return entries.get(HashKey.of(key));
+    }
+
+    /** The value of key, or otherwise if there is none */
+    public Object getOr(Object key, Object otherwise) {
+        return entries.getOrDefault(HashKey.of(key), otherwise);
+    }
+
+    public void put(Object key, Object value) {
+        entries.put(HashKey.of(key), Rope.flatten(value));
+    }
+
+    public void remove(Object key) {
+        entries.remove(HashKey.of(key));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public List<Object> keys() {
+        var keys = new ArrayList<Object>(entries.size());
+        for(var key : entries.keySet()) {
+            keys.add(HashKey.valueOf(key));
+        }
+        return new PersistentVector(keys);
+    }
+
+    public List<Object> values() {
+        return new PersistentVector(entries.values());
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("{");
+        boolean needComma = false;
+        for(var entry : entries.entrySet()) {
+            if(needComma) builder.append(", ");
+            builder.append(MyLangInterpreter.stringify(HashKey.valueOf(entry.getKey())));
+            builder.append(": ");
+            builder.append(MyLangInterpreter.stringify(entry.getValue()));
+            needComma = true;
+        }
+        builder.append("}");
+        return builder.toString();
+    }
+}
@@ -1,5 +1,6 @@
 package MyLang;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -13,10 +14,32 @@ public record MyLangMethod(Object instance, MyLangCallable method) implements My
     public String getFileName() {
         return method.getFileName();
     }
+    public int getLine() {
+        return method.getLine();
+    }
 
     public Object call(MyLangInterpreter interpreter, List<Object> args, Map<String, Object> named) {
-        args.add(0, instance);
-        return method.call(interpreter, args, named);
+        List<Object> withInstance = new ArrayList<>(args.size() + 1);
+        withInstance.add(instance);
+        withInstance.addAll(args);
+        return method.call(interpreter, withInstance, named);
+    }
+
+    @Override
+    public Object call0(MyLangInterpreter interpreter) {
+        return method.call1(interpreter, instance);
+    }
+    @Override
+    public Object call1(MyLangInterpreter interpreter, Object a) {
+        return method.call2(interpreter, instance, a);
+    }
+    @Override
+    public Object call2(MyLangInterpreter interpreter, Object a, Object b) {
+        return method.call3(interpreter, instance, a, b);
+    }
+    @Override
+    public Object call3(MyLangInterpreter interpreter, Object a, Object b, Object c) {
+        return method.call4(interpreter, instance, a, b, c);
     }
 
     @Override
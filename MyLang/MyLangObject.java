@@ -1,16 +1,22 @@
 package MyLang;
 
-import java.util.HashMap;
-import java.util.Map;
-
 public class MyLangObject {
-    MyLangClass klass;
-    Map<String, Object> fields = new HashMap<>();
-    Map<String, Boolean> readability = new HashMap<>();
+    final MyLangClass klass;
+    // Laid out by the shape of the class
+    final Object[] fields;
+
+    MyLangObject(MyLangClass klass) {
+        this.klass = klass;
+        this.fields = new Object[klass.shape().size()];
+        if(Events.recording) {
+            Events.allocated(klass.name());
+        }
+    }
 
     public Object getField(String name, MyLangInterpreter interpreter) {
-        if(fields.containsKey(name)) {
-            return fields.get(name);
+        int slot = klass.shape().slotOf(name);
+        if(slot >= 0) {
+            return fields[slot];
         } else if(klass.methods().containsKey(name)) {
             return klass.methods().get(name).bind(this);
         } else {
@@ -23,11 +29,12 @@ public class MyLangObject {
     }
 
     public void setField(String name, Object value, boolean overrideImmutable, MyLangInterpreter interpreter) {
+        int slot = klass.shape().slotOf(name);
         if(klass.methods().containsKey(name)) {
             throw new InterpreterError("Cannot reassign methods of objects", interpreter.callStack);
-        } else if(fields.containsKey(name)) {
-            if(readability.get(name) || overrideImmutable) {
-                fields.put(name, value);
+        } else if(slot >= 0) {
+            if(klass.shape().isReassignable(slot) || overrideImmutable) {
+                fields[slot] = value;
             } else {
                 throw new InterpreterError("Error: cannot write to field that is not reassignable: "+name +" (class is "+ klass.name()+")", interpreter.callStack);
             }
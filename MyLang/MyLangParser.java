@@ -1,7 +1,9 @@
 package MyLang;
 
+import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -99,6 +101,10 @@ public class MyLangParser {
     }
 
     public static Optional<MyLangFile> parseFile(String source, String fileName) {
+        return parseFile(source, fileName, System.out, System.err);
+    }
+
+    public static Optional<MyLangFile> parseFile(String source, String fileName, PrintStream out, PrintStream err) {
         var parser = new MyLangParser(source, fileName);
         
         try {
@@ -114,7 +120,8 @@ public class MyLangParser {
             var file = new MyLangFile(program, imports, fileName);
             return Optional.of(file);
         } catch(ParseError error) {
-            error.printStackTrace();
+            out.println(error.getMessage());
+            error.printStackTrace(err);
             return Optional.empty();
         }
     }
@@ -135,6 +142,7 @@ public class MyLangParser {
             consume(TokenType.EOF);
             return Optional.of(value);
         } catch(ParseError e) {
+            System.out.println(e.getMessage());
             e.printStackTrace();
             return Optional.empty();
         }
@@ -171,7 +179,7 @@ public class MyLangParser {
                 }
                 if(match(TokenType.DO)) {
                     var body = finishBlockExpression();
-                    return new ForDoStatement(pattern, collection, guard, body);
+                    return new ForDoStatement(pattern, collection, guard, body, new FrameLayout());
                 } else {
                     current = start;
                 }
@@ -220,7 +228,7 @@ public class MyLangParser {
         consume(TokenType.RPAREN);
         consume(TokenType.DO);
         var body = finishBlockExpression();
-        return new ClassConstructor(keyword, parameters, body);
+        return new ClassConstructor(keyword, parameters, body, declarationFrame(keyword.line()));
     }
 
     private Type parseType() {
@@ -263,69 +271,73 @@ public class MyLangParser {
             return new VoidType();
         } else {
             consume(TokenType.TYPE_FUN);
-            consume(TokenType.LPAREN);
-            List<Type> parameters = new ArrayList<>();
-            Map<String, Type> named = new HashMap<>();
-            List<Type> optionalParams = new ArrayList<>();
-            Map<String, Type> optionalNamed = new HashMap<>();
-            Type varargsType = null;
-            if(!match(TokenType.RPAREN)) {
-                do {
-                    if(peek().type() == TokenType.LBRACKET) {
-                        break;
-                    }
-                    if(peek().type() == TokenType.LBRACE) { // Named Params
-                        break;
-                    }
-                    var nextType = parseType();
-                    if(match(TokenType.DOTS)) {
-                        varargsType = nextType;
-                        break;
-                    } else {
-                        parameters.add(nextType);
-                    }
-                } while(match(TokenType.COMMA));
-                if(match(TokenType.LBRACKET)) {
-                    if(!match(TokenType.RBRACKET)) {
-                        do {
-                            optionalParams.add(parseType());
-                        } while(match(TokenType.COMMA));
-                        consume(TokenType.RBRACKET);
-                        match(TokenType.COMMA);
-                    }
+            return finishFunctionType();
+        }
+    }
+
+    // The parameter types and the return type of Fun(...): ... or of a native function
+    private FunctionType finishFunctionType() {
+        consume(TokenType.LPAREN);
+        List<Type> parameters = new ArrayList<>();
+        Map<String, Type> named = new HashMap<>();
+        List<Type> optionalParams = new ArrayList<>();
+        Map<String, Type> optionalNamed = new HashMap<>();
+        Type varargsType = null;
+        if(!match(TokenType.RPAREN)) {
+            do {
+                if(peek().type() == TokenType.LBRACKET) {
+                    break;
                 }
-                if(match(TokenType.LBRACE)) { // Named Params
-                    if(!match(TokenType.RBRACE)) {
-                        do {
-                            var name = consume(TokenType.IDENTIFIER);
-                            var isOptional = match(TokenType.QUESTION_MARK);
-                            consume(TokenType.COLON);
-                            var type = parseType();
-                            if(isOptional) {
-                                optionalNamed.put(name.lexeme(), type);
-                            } else {
-                                named.put(name.lexeme(), type);
-                            }
-                        } while(match(TokenType.COMMA));
-                        consume(TokenType.RBRACE);
-                    }
+                if(peek().type() == TokenType.LBRACE) { // Named Params
+                    break;
+                }
+                var nextType = parseType();
+                if(match(TokenType.DOTS)) {
+                    varargsType = nextType;
+                    break;
+                } else {
+                    parameters.add(nextType);
+                }
+            } while(match(TokenType.COMMA));
+            if(match(TokenType.LBRACKET)) {
+                if(!match(TokenType.RBRACKET)) {
+                    do {
+                        optionalParams.add(parseType());
+                    } while(match(TokenType.COMMA));
+                    consume(TokenType.RBRACKET);
+                    match(TokenType.COMMA);
                 }
-                consume(TokenType.RPAREN);
             }
-            Type returnType = new VoidType();
-            if(match(TokenType.COLON)) {
-                returnType = parseType();
+            if(match(TokenType.LBRACE)) { // Named Params
+                if(!match(TokenType.RBRACE)) {
+                    do {
+                        var name = consume(TokenType.IDENTIFIER);
+                        var isOptional = match(TokenType.QUESTION_MARK);
+                        consume(TokenType.COLON);
+                        var type = parseType();
+                        if(isOptional) {
+                            optionalNamed.put(name.lexeme(), type);
+                        } else {
+                            named.put(name.lexeme(), type);
+                        }
+                    } while(match(TokenType.COMMA));
+                    consume(TokenType.RBRACE);
+                }
             }
-            return new FunctionType(
-                    parameters,
-                    optionalParams,
-                    named,
-                    optionalNamed,
-                    varargsType,
-                    returnType
-                    );
+            consume(TokenType.RPAREN);
         }
-
+        Type returnType = new VoidType();
+        if(match(TokenType.COLON)) {
+            returnType = parseType();
+        }
+        return new FunctionType(
+                parameters,
+                optionalParams,
+                named,
+                optionalNamed,
+                varargsType,
+                returnType
+                );
     }
 
     private Type tupleType() {
@@ -362,6 +374,7 @@ public class MyLangParser {
             case CLASS -> finalizeClassDeclaration(export);
             case ENUM -> finalizeEnumDeclaration(export);
             case TYPE -> finalizeTypeDefDeclaration(export);
+            case NATIVE -> finalizeNativeDeclaration(export);
             case SEMICOLON -> new EmptyDeclaration(declarationType);
             default -> throw new ParseError("Unknown declaration type: " + declarationType.type(), 
                     declarationType.line(), fileName);
@@ -400,6 +413,74 @@ public class MyLangParser {
         return result;
     }
 
+    // native fun name[T](Types): Type := "package.Class.method";
+    // native class Name(T) := "package.Class" where new(Types); fun name(Types): Type; end
+    private Declaration finalizeNativeDeclaration(boolean export) {
+        if(match(TokenType.CLASS)) {
+            return finalizeNativeClassDeclaration(export);
+        }
+        consume(TokenType.FUN);
+        var name = consume(TokenType.IDENTIFIER);
+        List<Token> typeParams = new ArrayList<>();
+        if(match(TokenType.LBRACKET)) {
+            if(!match(TokenType.RBRACKET)) {
+                do {
+                    typeParams.add(consume(TokenType.IDENTIFIER));
+                } while(match(TokenType.COMMA));
+                consume(TokenType.RBRACKET);
+            }
+        }
+        var type = finishNativeSignature();
+        consume(TokenType.ASSIGN);
+        var path = consume(TokenType.STRING_LITERAL);
+        consume(TokenType.SEMICOLON);
+        return new NativeFunctionDeclaration(name, typeParams, type, path, export, new VariableSlot());
+    }
+
+    // Java methods are called with positional arguments only
+    private FunctionType finishNativeSignature() {
+        var type = finishFunctionType();
+        if(!type.optionalParameters().isEmpty() || !type.named().isEmpty() || !type.optionalNamed().isEmpty() || type.varargsType() != null) {
+            throw new ParseError("Native functions only take positional parameters", previous().line(), fileName);
+        }
+        return type;
+    }
+
+    private Declaration finalizeNativeClassDeclaration(boolean export) {
+        var name = consume(TokenType.IDENTIFIER);
+        List<Token> args = null;
+        if(match(TokenType.LPAREN)) {
+            args = new ArrayList<>();
+            if(!match(TokenType.RPAREN)) {
+                do {
+                    args.add(consume(TokenType.IDENTIFIER));
+                } while(match(TokenType.COMMA));
+                consume(TokenType.RPAREN);
+            }
+        }
+        consume(TokenType.ASSIGN);
+        var path = consume(TokenType.STRING_LITERAL);
+        Map<String, FunctionType> methods = new LinkedHashMap<>();
+        List<Type> constructor = null;
+        if(!match(TokenType.SEMICOLON)) {
+            consume(TokenType.WHERE);
+            while(!match(TokenType.END)) {
+                if(match(TokenType.NEW)) {
+                    if(constructor != null) {
+                        throw new ParseError("Duplicate constructor of native class " + name.lexeme(), previous().line(), fileName);
+                    }
+                    constructor = finishNativeSignature().parameters();
+                } else {
+                    consume(TokenType.FUN);
+                    var method = consume(TokenType.IDENTIFIER);
+                    methods.put(method.lexeme(), finishNativeSignature());
+                }
+                consume(TokenType.SEMICOLON);
+            }
+        }
+        return new NativeClassDeclaration(name, args, path, methods, constructor, export, new VariableSlot());
+    }
+
     private EnumConstructor parseEnumVariant() {
         var name = consume(TokenType.IDENTIFIER);
         consume(TokenType.LPAREN);
@@ -410,7 +491,7 @@ public class MyLangParser {
             } while(match(TokenType.COMMA));
             consume(TokenType.RPAREN);
         }
-        return new EnumConstructor(name, params);
+        return new EnumConstructor(name, params, new VariableSlot());
     }
 
     private Declaration finalizeTypeDefDeclaration(boolean export) {
@@ -489,10 +570,12 @@ public class MyLangParser {
                 expression.parameters(), 
                 expression.body(), 
                 expression.retType(), 
-                export);
+                export,
+                new VariableSlot(),
+                expression.frame());
     }
     private FunctionExpression finalizeFunctionExpressionWithName(String name, int counter) {
-        consume(TokenType.LPAREN);
+        int line = consume(TokenType.LPAREN).line();
         var parameters = parseParameters(false);
         consume(TokenType.RPAREN); 
         if(peek().type() == TokenType.LPAREN) {
@@ -510,7 +593,8 @@ public class MyLangParser {
                                 entry -> entry.getKey(), 
                                 entry -> entry.getValue().type())),
                         next.parameters().varargsType(), 
-                        next.retType()));
+                        next.retType()),
+                    declarationFrame(line));
         }
         Type resultType;
         if(match(TokenType.COLON)) {
@@ -530,7 +614,8 @@ public class MyLangParser {
                 name, 
                 parameters, 
                 body, 
-                resultType);
+                resultType,
+                declarationFrame(line));
     }
 
     private Declaration finalizeClassDeclaration(boolean export) {
@@ -571,7 +656,16 @@ public class MyLangParser {
                 args,
                 members, 
                 constructor, 
-                export);
+                export,
+                new VariableSlot(),
+                declarationFrame(name.line()));
+    }
+
+    // The frame of a function or class, which knows the line it is declared on
+    private static FrameLayout declarationFrame(int line) {
+        var frame = new FrameLayout();
+        frame.line = line;
+        return frame;
     }
 
     private ParameterInformation parseParameters(boolean allowInferredTypes) {
@@ -652,7 +746,7 @@ public class MyLangParser {
     }
     private Setter makeSetter(Expression from) {
         if(from instanceof Identifier i) {
-            return new VariableSetter(i.value());
+            return new VariableSetter(i.value(), new VariableSlot());
         } else if(from instanceof IndexExpression i) {
             return new IndexSetter(i.list(), i.index());
         } else if(from instanceof PropertyExpression p) {
@@ -790,7 +884,7 @@ public class MyLangParser {
             .filter(p -> p instanceof NamedParameter)
             .map(p -> (NamedParameter) p)
             .collect(Collectors.toMap(p -> p.name().lexeme(), p -> p.parameter()));
-        return new FunctionCall(left, dot, positional, named);
+        return new FunctionCall(left, dot, positional, named, new TailPosition());
     }
 
     private Expression primary() {
@@ -805,7 +899,7 @@ public class MyLangParser {
                 var thenBranch = parseExpression();
                 consume(TokenType.ELSE);
                 var elseBranch = parseExpression();
-                return new IfValExpression(pat, matched, thenBranch, elseBranch);
+                return new IfValExpression(pat, matched, thenBranch, elseBranch, new FrameLayout());
             }
             var condition = parseExpression();
             consume(TokenType.THEN);
@@ -825,7 +919,7 @@ public class MyLangParser {
             }
             consume(TokenType.YIELD);
             var body = finishBlockExpression();
-            return new ForYieldExpression(pat, collection, guard, new ExpressionParameter(body));
+            return new ForYieldExpression(pat, collection, guard, new ExpressionParameter(body), new FrameLayout());
         } else if(match(TokenType.DO)) {
             return finishBlockExpression();
         } else if(match(TokenType.LBRACKET)) {
@@ -862,11 +956,11 @@ public class MyLangParser {
             var matched = parseExpression();
             if(match(TokenType.DO)) {
                 var body = finishBlockExpression();
-                return new WhileValDoExpression(pat, matched, body);
+                return new WhileValDoExpression(pat, matched, body, new FrameLayout());
             } else {
                 consume(TokenType.YIELD);
                 var body = finishBlockExpression();
-                return new WhileValYieldExpression(pat, matched, body);
+                return new WhileValYieldExpression(pat, matched, body, new FrameLayout());
             }
         } else {
             var condition = parseExpression();
@@ -883,10 +977,10 @@ public class MyLangParser {
 
     private Expression someIdentifierOrNew() {
         if(match(TokenType.IDENTIFIER)) {
-            return new Identifier(previous());
+            return new Identifier(previous(), new VariableSlot());
         } else if(match(TokenType.NEW)) {
             var className = consume(TokenType.IDENTIFIER);
-            Expression classAccess = new Identifier(className);
+            Expression classAccess = new Identifier(className, new VariableSlot());
             while(match(TokenType.DOT)) {
                 var subName = consume(TokenType.IDENTIFIER);
                 classAccess = new PropertyExpression(classAccess, subName);
@@ -894,7 +988,7 @@ public class MyLangParser {
             consume(TokenType.LPAREN);
             return finalizeFunctionCall(classAccess);
         } else if(match(TokenType.VALUE_THIS)) {
-            return new ThisExpression(previous());
+            return new ThisExpression(previous(), new VariableSlot());
         } else {
             return literal();
         }
@@ -964,7 +1058,7 @@ public class MyLangParser {
     }
 
     private Expression finishFunctionExpression() {
-        consume(TokenType.LPAREN);
+        int line = consume(TokenType.LPAREN).line();
         var parameters = parseParameters(true);
         consume(TokenType.RPAREN);
         Type returnType = null;
@@ -982,7 +1076,7 @@ public class MyLangParser {
                 body = parseExpression();
             }
         }
-        return new FunctionExpression("Anonymous Function", parameters, body, returnType);
+        return new FunctionExpression("Anonymous Function", parameters, body, returnType, declarationFrame(line));
     }
 
     private Expression finishBlockExpression() {
@@ -991,13 +1085,13 @@ public class MyLangParser {
             var next = parseAny();
             if(next instanceof Expression finalExpression) {
                 consume(TokenType.END);
-                return new BlockExpression(statements, finalExpression);
+                return new BlockExpression(statements, finalExpression, new FrameLayout());
             } else {
                 statements.add((DeclarationOrStatement) next);
             }
         }
 
-        return new BlockExpression(statements, new NullLiteral(previous()));
+        return new BlockExpression(statements, new NullLiteral(previous()), new FrameLayout());
     }
 
     private Expression finishMatchExpression() {
@@ -1017,7 +1111,9 @@ public class MyLangParser {
         return new MatchExpression(
             matched,
             pats,
-            branches
+            branches,
+            new FrameLayout(),
+            DecisionTree.compile(pats)
         );
     }
 
@@ -1079,7 +1175,7 @@ public class MyLangParser {
         } else if(match(TokenType.IDENTIFIER)) {
             var name = previous();
             if(!match(TokenType.LPAREN)) {
-                return new VariableBinding(name);
+                return new VariableBinding(name, new VariableSlot());
             }
             List<Pattern> subPatterns = new ArrayList<>();
             if(!match(TokenType.RPAREN)) {
@@ -0,0 +1,788 @@
+package MyLang;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static MyLang.MyLangAST.*;
+
+/**
+ * Static resolution pass, runs after the typechecker. Assigns every local variable a
+ * slot in a frame and every use of it the (depth, index) pair of that slot, so the
+ * interpreter doesn't have to search for names at runtime.
+ * Module-level names stay unresolved and are looked up by name.
+ *
+ * Scopes are flattened into the frame of the enclosing function, except when they run
+ * repeatedly inside of a loop and closures could capture their variables - these get
+ * a fresh frame for each iteration.
+ *
+ * Locals of a function frame that are only assigned values which are certainly numbers
+ * and never used from another frame are marked in {@link FrameLayout#numericSlots}.
+ *
+ * Functions only keep the slots of enclosing frames they use ({@link FrameLayout#captures}).
+ * Captured locals that are assigned, or captured before they are initialized, become cells.
+ */
+public class MyLangResolver implements ExpressionVisitor<Void>, DeclarationVisitor<Void>,
+       StatementVisitor<Void>, PatternVisitor<Void>, SetterVisitor<Void>, ParameterVisitor<Void> {
+
+    private static final class Frame {
+        final FrameLayout layout;
+        final boolean function;
+        int nextSlot = 0;
+        boolean innerFrames = false;
+        // Facts for numericSlots: slots assigned numbers, slots assigned anything else,
+        // and pairs (a, b) where a number is only assigned to a if b holds one
+        final BitSet numericWrites = new BitSet();
+        final BitSet otherWrites = new BitSet();
+        final List<int[]> dependencies = new ArrayList<>();
+        final Map<Integer, Local> locals = new HashMap<>();
+        // Slots of enclosing frames used inside of a function frame, by depth
+        final Map<Integer, BitSet> captures = new TreeMap<>();
+        Frame(FrameLayout layout, boolean function) {
+            this.layout = layout;
+            this.function = function;
+        }
+    }
+    private static final class Local {
+        final List<VariableSlot> uses = new ArrayList<>();
+        boolean parameter = false;
+        boolean initialized = true;
+        boolean captured = false;
+        boolean assigned = false;
+        boolean capturedUninitialized = false;
+    }
+    private static final class Scope {
+        final Map<String, Integer> names = new HashMap<>();
+        final int frameIndex;
+        Scope(int frameIndex) {
+            this.frameIndex = frameIndex;
+        }
+    }
+
+    private final List<Frame> frames = new ArrayList<>();
+    private final List<Scope> scopes = new ArrayList<>();
+    private int loopDepth = 0; // loops between the current scope and its frame
+    private int closureCount = 0;
+    private boolean inClassFields = false;
+    // Value assigned by the declaration or set statement currently being resolved
+    private Expression assignedValue = null;
+
+    public static void resolve(MyLangFile file) {
+        var resolver = new MyLangResolver();
+        for(Declaration decl : file.declarations()) {
+            resolver.resolveDeclaration(decl);
+        }
+    }
+
+    private void resolveDeclaration(Declaration d) {
+        d.accept(this);
+    }
+    private void resolveStatement(Statement s) {
+        s.accept(this);
+    }
+    private void resolveExpression(Expression e) {
+        e.accept(this);
+    }
+    private void resolvePattern(Pattern p) {
+        p.accept(this);
+    }
+    private void resolveParameter(Parameter p) {
+        p.accept(this);
+    }
+
+    private Frame currentFrame() {
+        return frames.get(frames.size() - 1);
+    }
+
+    private void beginFrame(FrameLayout layout, boolean function) {
+        layout.ownsFrame = true;
+        layout.size = 0;
+        layout.numericSlots = null;
+        frames.add(new Frame(layout, function));
+        scopes.add(new Scope(frames.size() - 1));
+    }
+    private void beginFrame(FrameLayout layout) {
+        beginFrame(layout, false);
+    }
+    private void endFrame() {
+        var frame = currentFrame();
+        if(frame.function && !frame.innerFrames) {
+            frame.layout.numericSlots = numericSlots(frame);
+        }
+        List<Integer> cellParameters = new ArrayList<>();
+        frame.locals.forEach((index, local) -> {
+            if(local.captured && (local.assigned || local.capturedUninitialized)) {
+                local.uses.forEach(slot -> slot.isCell = true);
+                if(local.parameter) {
+                    cellParameters.add(index);
+                }
+            }
+        });
+        frame.layout.cellParameters = cellParameters.stream().mapToInt(Integer::intValue).toArray();
+        scopes.remove(scopes.size() - 1);
+        frames.remove(frames.size() - 1);
+    }
+
+    /** Slots that only ever hold numbers, or null if there are none */
+    private static boolean[] numericSlots(Frame frame) {
+        var numeric = (BitSet) frame.numericWrites.clone();
+        numeric.andNot(frame.otherWrites);
+        boolean changed = true;
+        while(changed) {
+            changed = false;
+            for(var dependency : frame.dependencies) {
+                if(numeric.get(dependency[0]) && !numeric.get(dependency[1])) {
+                    numeric.clear(dependency[0]);
+                    changed = true;
+                }
+            }
+        }
+        if(numeric.isEmpty()) {
+            return null;
+        }
+        var result = new boolean[frame.layout.size];
+        numeric.stream().forEach(index -> result[index] = true);
+        return result;
+    }
+
+    /** Records that value is stored in slot index of frame, null for values that are not known */
+    private void assign(Frame frame, int index, Expression value) {
+        List<Integer> dependencies = new ArrayList<>();
+        if(value != null && isNumeric(value, dependencies)) {
+            frame.numericWrites.set(index);
+            for(var dependency : dependencies) {
+                frame.dependencies.add(new int[] { index, dependency });
+            }
+        } else {
+            frame.otherWrites.set(index);
+        }
+    }
+
+    /**
+     * Whether value always evaluates to a number, given that the locals of the current frame
+     * collected in dependencies hold numbers. Arithmetic other than + fails for anything else.
+     */
+    private static boolean isNumeric(Expression value, List<Integer> dependencies) {
+        if(value instanceof NumericLiteral) {
+            return true;
+        } else if(value instanceof BinaryOperation b) {
+            return switch(b.operator().type()) {
+                case MINUS, STAR, SLASH, PERCENT, EXPO -> true;
+                case PLUS -> isNumeric(b.left(), dependencies) && isNumeric(b.right(), dependencies);
+                default -> false;
+            };
+        } else if(value instanceof UnaryOperation u) {
+            return u.operator().type() == TokenType.MINUS || u.operator().type() == TokenType.PLUS;
+        } else if(value instanceof Identifier id && id.slot().depth == 0) {
+            return dependencies.add(id.slot().index);
+        } else if(value instanceof IfExpression ifExpr) {
+            return isNumeric(ifExpr.thenBranch(), dependencies) && isNumeric(ifExpr.elseBranch(), dependencies);
+        } else {
+            return false;
+        }
+    }
+
+    /** The captures of a function frame as pairs of depth and index, see FrameLayout.captures */
+    private static int[] captures(Frame frame) {
+        List<Integer> pairs = new ArrayList<>();
+        frame.captures.forEach((depth, indices) -> indices.stream().forEach(index -> {
+            pairs.add(depth);
+            pairs.add(index);
+        }));
+        return pairs.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /** Variables used from an inner frame are never numeric slots */
+    private void usedAt(VariableSlot slot) {
+        if(slot.depth > 0) {
+            frames.get(frames.size() - 1 - slot.depth).otherWrites.set(slot.index);
+        }
+    }
+    private void beginScope() {
+        scopes.add(new Scope(frames.size() - 1));
+    }
+    private void endScope() {
+        scopes.remove(scopes.size() - 1);
+    }
+
+    /**
+     * Resolves a construct that opens a scope. The scope gets its own frame if there is
+     * no enclosing frame, or if it is repeated and contains closures.
+     */
+    private void inScope(FrameLayout layout, boolean repeated, Runnable body) {
+        int previousLoopDepth = loopDepth;
+        if(frames.isEmpty()) {
+            loopDepth = 0;
+            beginFrame(layout);
+            body.run();
+            endFrame();
+            loopDepth = previousLoopDepth;
+            return;
+        }
+        var frame = currentFrame();
+        int slotsBefore = frame.nextSlot;
+        int sizeBefore = frame.layout.size;
+        int closuresBefore = closureCount;
+        layout.ownsFrame = false;
+        layout.size = 0;
+        beginScope();
+        body.run();
+        endScope();
+        if(repeated && closureCount != closuresBefore) {
+            // Closures could capture variables of different iterations, resolve again with a frame of its own
+            frame.nextSlot = slotsBefore;
+            frame.layout.size = sizeBefore;
+            frame.locals.keySet().removeIf(index -> index >= slotsBefore);
+            frame.innerFrames = true;
+            loopDepth = 0;
+            beginFrame(layout);
+            body.run();
+            endFrame();
+            loopDepth = previousLoopDepth;
+        }
+    }
+
+    private void inLoop(Runnable body) {
+        loopDepth++;
+        body.run();
+        loopDepth--;
+    }
+
+    private Local declare(String name, VariableSlot slot) {
+        return declare(name, slot, null);
+    }
+    /** Declares name in the current scope, returns the new local or null on module level */
+    private Local declare(String name, VariableSlot slot, Expression value) {
+        slot.isCell = false;
+        if(scopes.isEmpty()) { // module level
+            slot.depth = -1;
+            slot.index = -1;
+            return null;
+        }
+        var frame = currentFrame();
+        int index = frame.nextSlot++;
+        frame.layout.size = Math.max(frame.layout.size, frame.nextSlot);
+        scopes.get(scopes.size() - 1).names.put(name, index);
+        slot.depth = 0;
+        slot.index = index;
+        assign(frame, index, value);
+        var local = new Local();
+        local.uses.add(slot);
+        frame.locals.put(index, local);
+        return local;
+    }
+    private int declareParameter(String name) {
+        var slot = new VariableSlot();
+        declare(name, slot).parameter = true;
+        return slot.index;
+    }
+
+    /** Resolves name at slot, returns the local it names or null for module-level names */
+    private Local resolve(String name, VariableSlot slot) {
+        slot.isCell = false;
+        for(int i = scopes.size() - 1; i >= 0; i--) {
+            var scope = scopes.get(i);
+            var index = scope.names.get(name);
+            if(index != null) {
+                slot.depth = frames.size() - 1 - scope.frameIndex;
+                slot.index = index;
+                var local = frames.get(scope.frameIndex).locals.get(index);
+                local.uses.add(slot);
+                for(int f = scope.frameIndex + 1; f < frames.size(); f++) {
+                    var frame = frames.get(f);
+                    if(frame.function) {
+                        frame.captures.computeIfAbsent(f - 1 - scope.frameIndex, depth -> new BitSet()).set(index);
+                        local.captured = true;
+                        local.capturedUninitialized |= !local.initialized;
+                    }
+                }
+                return local;
+            }
+        }
+        slot.depth = -1;
+        slot.index = -1;
+        return null;
+    }
+
+    private void resolveFunction(ParameterInformation parameters, Expression body, FrameLayout layout, Token methodKeyword) {
+        closureCount++;
+        int previousLoopDepth = loopDepth;
+        boolean previousInClassFields = inClassFields;
+        loopDepth = 0;
+        inClassFields = false;
+        beginFrame(layout, true);
+        if(methodKeyword != null &&
+                (parameters.names().isEmpty() || parameters.names().get(0).type() != TokenType.VALUE_THIS)) {
+            parameters.names().add(0, new Token(TokenType.VALUE_THIS, "this", methodKeyword.line()));
+        }
+        for(var name : parameters.names()) {
+            declareParameter(name.lexeme());
+        }
+        for(var optional : parameters.optionals()) {
+            resolveExpression(optional.defaultValue());
+            declareParameter(optional.name());
+        }
+        if(parameters.varargsName() != null) {
+            declareParameter(parameters.varargsName().lexeme());
+        }
+        Map<String, Integer> namedSlots = new HashMap<>();
+        for(var name : parameters.named().keySet()) {
+            namedSlots.put(name, declareParameter(name));
+        }
+        for(var name : parameters.optionalNamed().keySet()) {
+            namedSlots.put(name, declareParameter(name));
+        }
+        for(var optional : parameters.optionalNamed().values()) {
+            resolveExpression(optional.defaultValue());
+        }
+        layout.namedSlots = namedSlots;
+        resolveExpression(body);
+        markTailCalls(body);
+        // Methods keep the environment of their class, which is declared after they are created
+        layout.captures = methodKeyword == null ? captures(currentFrame()) : null;
+        endFrame();
+        inClassFields = previousInClassFields;
+        loopDepth = previousLoopDepth;
+    }
+
+    /** Marks the calls whose value is the value of expression, see {@link TailPosition} */
+    private static void markTailCalls(Expression expression) {
+        if(expression instanceof FunctionCall call) {
+            call.tail().isTail = true;
+        } else if(expression instanceof BlockExpression block) {
+            markTailCalls(block.returnValue());
+        } else if(expression instanceof IfExpression ifExpression) {
+            markTailCalls(ifExpression.thenBranch());
+            markTailCalls(ifExpression.elseBranch());
+        } else if(expression instanceof IfValExpression ifVal) {
+            markTailCalls(ifVal.thenBranch());
+            markTailCalls(ifVal.elseBranch());
+        } else if(expression instanceof MatchExpression match) {
+            for(var branch : match.branches()) {
+                markTailCalls(branch);
+            }
+        }
+    }
+
+    private boolean inFunction() {
+        for(var frame : frames) {
+            if(frame.function) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Void visitNumericLiteral(NumericLiteral value) {
+        return null;
+    }
+    @Override
+    public Void visitStringLiteral(StringLiteral value) {
+        return null;
+    }
+    @Override
+    public Void visitBooleanLiteral(BooleanLiteral value) {
+        return null;
+    }
+    @Override
+    public Void visitNullLiteral(NullLiteral value) {
+        return null;
+    }
+    @Override
+    public Void visitIdentifier(Identifier value) {
+        resolve(value.value().lexeme(), value.slot());
+        usedAt(value.slot());
+        return null;
+    }
+    @Override
+    public Void visitBinaryOperation(BinaryOperation value) {
+        resolveExpression(value.left());
+        resolveExpression(value.right());
+        return null;
+    }
+    @Override
+    public Void visitUnaryOperation(UnaryOperation value) {
+        resolveExpression(value.operand());
+        return null;
+    }
+    @Override
+    public Void visitFunctionCall(FunctionCall value) {
+        resolveExpression(value.callee());
+        for(var argument : value.arguments()) {
+            resolveParameter(argument);
+        }
+        for(var named : value.named().values()) {
+            resolveExpression(named);
+        }
+        return null;
+    }
+    @Override
+    public Void visitInstExpression(InstExpression value) {
+        resolveExpression(value.instantiated());
+        return null;
+    }
+    @Override
+    public Void visitFunctionExpression(FunctionExpression value) {
+        resolveFunction(value.parameters(), value.body(), value.frame(), null);
+        return null;
+    }
+    @Override
+    public Void visitIfExpression(IfExpression value) {
+        resolveExpression(value.condition());
+        resolveExpression(value.thenBranch());
+        resolveExpression(value.elseBranch());
+        return null;
+    }
+    @Override
+    public Void visitIfValExpression(IfValExpression value) {
+        resolveExpression(value.matched());
+        inScope(value.frame(), loopDepth > 0, () -> {
+            resolvePattern(value.pat());
+            resolveExpression(value.thenBranch());
+        });
+        resolveExpression(value.elseBranch());
+        return null;
+    }
+    @Override
+    public Void visitListExpression(ListExpression value) {
+        for(var element : value.elements()) {
+            resolveParameter(element);
+        }
+        return null;
+    }
+    @Override
+    public Void visitTupleExpression(TupleExpression value) {
+        for(var element : value.elements()) {
+            resolveExpression(element);
+        }
+        return null;
+    }
+    @Override
+    public Void visitIndexExpression(IndexExpression value) {
+        resolveExpression(value.list());
+        resolveExpression(value.index());
+        return null;
+    }
+    @Override
+    public Void visitPropertyExpression(PropertyExpression value) {
+        resolveExpression(value.object());
+        return null;
+    }
+    @Override
+    public Void visitBlockExpression(BlockExpression value) {
+        inScope(value.frame(), loopDepth > 0, () -> {
+            for(var statement : value.statements()) {
+                if(statement instanceof Declaration d) {
+                    resolveDeclaration(d);
+                } else if(statement instanceof Statement s) {
+                    resolveStatement(s);
+                }
+            }
+            resolveExpression(value.returnValue());
+        });
+        return null;
+    }
+    @Override
+    public Void visitWhileYieldExpression(WhileYieldExpression value) {
+        inLoop(() -> {
+            resolveExpression(value.condition());
+            resolveParameter(value.body());
+        });
+        return null;
+    }
+    @Override
+    public Void visitWhileValYieldExpression(WhileValYieldExpression value) {
+        inLoop(() -> inScope(value.frame(), true, () -> {
+            resolveExpression(value.matched());
+            resolvePattern(value.pattern());
+            resolveExpression(value.body());
+        }));
+        return null;
+    }
+    @Override
+    public Void visitWhileDoExpression(WhileDoExpression value) {
+        inLoop(() -> {
+            resolveExpression(value.condition());
+            resolveStatement(value.body());
+        });
+        return null;
+    }
+    @Override
+    public Void visitWhileValDoExpression(WhileValDoExpression value) {
+        inLoop(() -> inScope(value.frame(), true, () -> {
+            resolveExpression(value.matched());
+            resolvePattern(value.pattern());
+            resolveExpression(value.body());
+        }));
+        return null;
+    }
+    @Override
+    public Void visitForYieldExpression(ForYieldExpression value) {
+        resolveExpression(value.collection());
+        inLoop(() -> inScope(value.frame(), true, () -> {
+            resolvePattern(value.pat());
+            resolveExpression(value.guard());
+            resolveParameter(value.body());
+        }));
+        return null;
+    }
+    @Override
+    public Void visitRangeExpression(RangeExpression value) {
+        resolveExpression(value.start());
+        resolveExpression(value.end());
+        resolveExpression(value.step());
+        return null;
+    }
+    @Override
+    public Void visitThisExpression(ThisExpression value) {
+        resolve("this", value.slot());
+        return null;
+    }
+    @Override
+    public Void visitReturnExpression(ReturnExpression value) {
+        resolveExpression(value.returnValue());
+        if(inFunction()) {
+            markTailCalls(value.returnValue());
+        }
+        return null;
+    }
+    @Override
+    public Void visitMatchExpression(MatchExpression value) {
+        resolveExpression(value.matched());
+        inScope(value.frame(), loopDepth > 0, () -> {
+            for(int i = 0; i < value.cases().size(); i++) {
+                beginScope();
+                resolvePattern(value.cases().get(i));
+                resolveExpression(value.branches().get(i));
+                endScope();
+            }
+        });
+        return null;
+    }
+    @Override
+    public Void visitWildcardExpression(WildcardExpression value) {
+        return null;
+    }
+
+    @Override
+    public Void visitVariableDeclaration(VariableDeclaration value) {
+        resolveExpression(value.initializer());
+        if(!inClassFields) {
+            assignedValue = value.pat() instanceof VariableBinding ? value.initializer() : null;
+            resolvePattern(value.pat());
+            assignedValue = null;
+        }
+        return null;
+    }
+    @Override
+    public Void visitValElseDeclaration(ValElseDeclaration value) {
+        resolveExpression(value.initializer());
+        resolveExpression(value.elseBranch());
+        resolvePattern(value.pat());
+        return null;
+    }
+    @Override
+    public Void visitFunctionDeclaration(FunctionDeclaration value) {
+        var local = declare(value.Name().lexeme(), value.slot());
+        if(local != null) {
+            // the function is stored after it was created, recursive calls need a cell
+            local.initialized = false;
+        }
+        resolveFunction(value.parameters(), value.body(), value.frame(), null);
+        if(local != null) {
+            local.initialized = true;
+        }
+        return null;
+    }
+    @Override
+    public Void visitNativeFunctionDeclaration(NativeFunctionDeclaration value) {
+        declare(value.Name().lexeme(), value.slot());
+        return null;
+    }
+    @Override
+    public Void visitNativeClassDeclaration(NativeClassDeclaration value) {
+        declare(value.Name().lexeme(), value.slot());
+        return null;
+    }
+    @Override
+    public Void visitClassDeclaration(ClassDeclaration value) {
+        declare(value.Name().lexeme(), value.slot());
+        closureCount++;
+        int previousLoopDepth = loopDepth;
+        boolean previousInClassFields = inClassFields;
+        loopDepth = 0;
+        inClassFields = true;
+        beginFrame(value.fieldFrame());
+        for(var member : value.fieldsAndMethods()) {
+            if(member instanceof VariableDeclaration field) {
+                resolveDeclaration(field);
+            }
+        }
+        endFrame();
+        inClassFields = previousInClassFields;
+        loopDepth = previousLoopDepth;
+        for(var member : value.fieldsAndMethods()) {
+            if(member instanceof FunctionDeclaration method) {
+                resolveFunction(method.parameters(), method.body(), method.frame(), method.Name());
+            }
+        }
+        if(value.constructor() != null) {
+            var constructor = value.constructor();
+            resolveFunction(constructor.parameters(), constructor.body(), constructor.frame(), constructor.keyword());
+        }
+        return null;
+    }
+    @Override
+    public Void visitEnumDeclaration(EnumDeclaration value) {
+        for(var variant : value.variants()) {
+            declare(variant.name().lexeme(), variant.slot());
+        }
+        for(var method : value.methods()) {
+            resolveFunction(method.parameters(), method.body(), method.frame(), method.Name());
+        }
+        return null;
+    }
+    @Override
+    public Void visitTypeDefDeclaration(TypeDefDeclaration value) {
+        return null;
+    }
+    @Override
+    public Void visitModuleDeclaration(ModuleDeclaration value) {
+        return null;
+    }
+    @Override
+    public Void visitEmptyDeclaration(EmptyDeclaration value) {
+        return null;
+    }
+
+    @Override
+    public Void visitExpressionStatement(ExpressionStatement value) {
+        resolveExpression(value.expression());
+        return null;
+    }
+    @Override
+    public Void visitIfStatement(IfStatement value) {
+        resolveExpression(value.condition());
+        resolveStatement(value.body());
+        return null;
+    }
+    @Override
+    public Void visitSetStatement(SetStatement value) {
+        resolveExpression(value.expression());
+        assignedValue = value.setter() instanceof VariableSetter ? value.expression() : null;
+        value.setter().accept(this);
+        assignedValue = null;
+        return null;
+    }
+    @Override
+    public Void visitForDoStatement(ForDoStatement value) {
+        resolveExpression(value.collection());
+        inLoop(() -> inScope(value.frame(), true, () -> {
+            resolvePattern(value.pat());
+            resolveExpression(value.guard());
+            resolveExpression(value.body());
+        }));
+        return null;
+    }
+    @Override
+    public Void visitEmptyStatement(EmptyStatement value) {
+        return null;
+    }
+
+    @Override
+    public Void visitVariableBinding(VariableBinding value) {
+        declare(value.name().lexeme(), value.slot(), assignedValue);
+        return null;
+    }
+    @Override
+    public Void visitWildcard(Wildcard value) {
+        return null;
+    }
+    @Override
+    public Void visitNumberPattern(NumberPattern value) {
+        return null;
+    }
+    @Override
+    public Void visitBooleanPattern(BooleanPattern value) {
+        return null;
+    }
+    @Override
+    public Void visitStringPattern(StringPattern value) {
+        return null;
+    }
+    @Override
+    public Void visitTuplePattern(TuplePattern value) {
+        for(var pattern : value.subPatterns()) {
+            resolvePattern(pattern);
+        }
+        return null;
+    }
+    @Override
+    public Void visitConstructorPattern(ConstructorPattern value) {
+        for(var pattern : value.subPatterns()) {
+            resolvePattern(pattern);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitVariableSetter(VariableSetter value) {
+        var local = resolve(value.name().lexeme(), value.slot());
+        if(local != null) {
+            local.assigned = true;
+        }
+        if(value.slot().depth == 0) {
+            assign(currentFrame(), value.slot().index, assignedValue);
+        }
+        usedAt(value.slot());
+        return null;
+    }
+    @Override
+    public Void visitIndexSetter(IndexSetter value) {
+        resolveExpression(value.list());
+        resolveExpression(value.index());
+        return null;
+    }
+    @Override
+    public Void visitPropertySetter(PropertySetter value) {
+        resolveExpression(value.object());
+        return null;
+    }
+    @Override
+    public Void visitTupleSetter(TupleSetter value) {
+        for(var setter : value.setters()) {
+            setter.accept(this);
+        }
+        return null;
+    }
+    @Override
+    public Void visitWildcardSetter(WildcardSetter value) {
+        return null;
+    }
+
+    @Override
+    public Void visitExpressionParameter(ExpressionParameter value) {
+        resolveExpression(value.expr());
+        return null;
+    }
+    @Override
+    public Void visitSpreadParameter(SpreadParameter value) {
+        resolveExpression(value.collection());
+        return null;
+    }
+    @Override
+    public Void visitNamedParameter(NamedParameter value) {
+        resolveExpression(value.parameter());
+        return null;
+    }
+    @Override
+    public Void visitConditionalParameter(ConditionalParameter value) {
+        resolveExpression(value.body());
+        resolveExpression(value.guard());
+        return null;
+    }
+}
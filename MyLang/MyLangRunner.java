@@ -1,28 +1,60 @@
 package MyLang;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
 import java.nio.file.*;
 import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
 
 import static MyLang.MyLangAST.*;
 
 public class MyLangRunner {
     String mainFile;
     String workingDirectoryPath;
-    Map<String, MyLangFile> compiledFiles = new HashMap<>();
+    // Filled by the tasks of gatherAllImports
+    Map<String, MyLangFile> compiledFiles = new ConcurrentHashMap<>();
     Map<String, MyLangModule> interpretedFiles = new HashMap<>();
-    Map<String, MyLangAST.Module> typecheckedFiles = new HashMap<>();
-    MyLangFile mainModule;
-    Set<String> waitingFiles = new HashSet<>();
+    Map<String, MyLangAST.Module> typecheckedFiles = new ConcurrentHashMap<>();
+    volatile MyLangFile mainModule;
+    private final Map<String, ParsedFile> parsedFiles = new ConcurrentHashMap<>();
+    // The files a Parse task was started for
+    private final Set<String> claimed = ConcurrentHashMap.newKeySet();
+    // With a single processor the tasks run one after another in the calling thread
+    private static final boolean PARALLEL = Runtime.getRuntime().availableProcessors() > 1;
+    // Modules of earlier runs, null to parse and typecheck every file
+    ModuleCache cache = null;
+    // The keys the files were typechecked under, see ModuleCache.key
+    private final Map<String, String> keys = new ConcurrentHashMap<>();
+    // Relative file names are found from here, the script server sets the directory of its client
+    Path baseDirectory = Path.of("");
+    // The native classes of all modules of the program, see MyLangInterpreter.nativeClassOf
+    final List<NativeClass> nativeClasses = new ArrayList<>();
+    // The program and the errors found in its files are written to out, the stack traces of parse
+    // errors to err. The script server passes the streams of its client
+    PrintStream out = System.out;
+    PrintStream err = System.err;
+    Scanner in = new Scanner(System.in);
+    // How panic ends the program, the script server only ends the request
+    IntConsumer exit = System::exit;
 
     ArrayList<String> prg_args;
 
     public MyLangRunner(String file, ArrayList<String> args) {
+        this(file, args, ExecutionEngine.VISITOR);
+    }
+
+    public MyLangRunner(String file, ArrayList<String> args, ExecutionEngine engine) {
         prg_args = args;
         mainFile = file;
         var parentPath = Paths.get(file).getParent();
         workingDirectoryPath = parentPath == null ? "" : parentPath.toString();
-        interpreter = new MyLangInterpreter(prg_args);
+        interpreter = engine.createInterpreter(prg_args);
     }
 
     MyLangInterpreter interpreter;
@@ -39,62 +71,220 @@ public class MyLangRunner {
             .reduce("", (var untilNow, var name) -> untilNow.equals("") ? name : untilNow + "." + name); 
     }
 
+    /**
+     * Parses the main file and everything it imports, then typechecks and resolves them.
+     * The files are parsed in parallel as their imports are found, each file is typechecked
+     * as soon as the files it imports are. Files whose entry in the cache is up to date are
+     * loaded from there instead.
+     */
     public boolean gatherAllImports() throws IOException {
-        return gatherImportsIn(mainFile, true);
+        try {
+            claimed.add(mainFile);
+            var parse = new Parse(mainFile);
+            if(PARALLEL) {
+                ForkJoinPool.commonPool().invoke(parse);
+            } else {
+                parse.compute();
+            }
+        } catch(UncheckedIOException e) {
+            throw e.getCause();
+        }
+        for(var parsed : parsedFiles.values()) {
+            if(parsed.failed()) {
+                return false;
+            }
+        }
+        if(hasCircularImport(mainFile, new HashSet<>(), new HashSet<>())) {
+            return false;
+        }
+        try {
+            return typecheck(mainFile, new HashMap<>()).join();
+        } catch(CompletionException e) { // rethrows what the typechecker threw, not the wrapper of the task
+            if(e.getCause() instanceof RuntimeException cause) throw cause;
+            if(e.getCause() instanceof Error cause) throw cause;
+            throw e;
+        }
+    }
+
+    // A parsed file with the resolved paths of its imports. Its imports may instead be read from
+    // the cache entry of the source, file is then only parsed if the entry is out of date
+    private record ParsedFile(MyLangFile file, List<MyLangPath> importPaths, List<String> imports, String source, ModuleCache.Entry cached) {
+        boolean failed() {
+            return file == null && cached == null;
+        }
+    }
+
+    // Parses a file and then, in parallel, the files it imports that no other task has claimed
+    private final class Parse extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final String fileName;
+
+        Parse(String fileName) {
+            this.fileName = fileName;
+        }
+
+        @Override
+        protected void compute() {
+            var parsed = parse(fileName);
+            parsedFiles.put(fileName, parsed);
+            List<Parse> imports = new ArrayList<>();
+            for(var path : parsed.imports()) {
+                if(claimed.add(path)) {
+                    imports.add(new Parse(path));
+                }
+            }
+            if(PARALLEL) {
+                invokeAll(imports);
+            } else {
+                imports.forEach(Parse::compute);
+            }
+        }
     }
 
     private MyLangPath getPath(Import i) {
         return ((ImportDeclaration) i).Name();
     }
 
-    private boolean gatherImportsIn(String fileName, boolean isMainModule) throws IOException {
-        //System.out.println("Opening file "+fileName);
-        Path pathToFile = Paths.get(fileName);
-        var fileContent = Files.readString(pathToFile);
-        var moduleName = pathToFile.getFileName().toString();
-        moduleName = moduleName.substring(0, moduleName.lastIndexOf('.'));
-        Optional<MyLangFile> optionalFile = MyLangParser.parseFile(fileContent, moduleName);
-        if(!optionalFile.isPresent()) {
+    private static String moduleName(String fileName) {
+        var name = Paths.get(fileName).getFileName().toString();
+        return name.substring(0, name.lastIndexOf('.'));
+    }
+
+    private ParsedFile parse(String fileName) {
+        var event = Events.recording ? new Events.ModuleImport() : null;
+        if(event != null) event.begin();
+        Path pathToFile = baseDirectory.resolve(fileName);
+        String fileContent;
+        try {
+            fileContent = Files.readString(pathToFile);
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        var entry = cache == null ? null : cache.find(fileName, ModuleCache.entryName(fileName, fileContent));
+        ParsedFile parsed;
+        if(entry != null) {
+            parsed = new ParsedFile(null, entry.header().importPaths(), entry.header().imports(), fileContent, entry);
+        } else {
+            Optional<MyLangFile> optionalFile = MyLangParser.parseFile(fileContent, moduleName(fileName), out, err);
+            if(optionalFile.isPresent()) {
+                var file = optionalFile.get();
+                List<MyLangPath> paths = file.imports().stream()
+                    .map(this::getPath)
+                    .toList();
+                parsed = new ParsedFile(file, paths, paths.stream().map(this::resolvePath).toList(), fileContent, null);
+            } else {
+                parsed = new ParsedFile(null, List.of(), List.of(), fileContent, null);
+            }
+        }
+        if(event != null) {
+            event.file = fileName;
+            event.module = moduleName(fileName);
+            event.succeeded = !parsed.failed();
+            event.commit();
+        }
+        return parsed;
+    }
+
+    // Depth first through the imports, visiting holds the files whose imports are being visited
+    private boolean hasCircularImport(String fileName, Set<String> visiting, Set<String> done) {
+        if(done.contains(fileName)) {
             return false;
         }
-        MyLangFile file = optionalFile.get();
+        visiting.add(fileName);
+        var parsed = parsedFiles.get(fileName);
+        for(int i = 0; i < parsed.imports().size(); i++) {
+            var imported = parsed.imports().get(i);
+            if(visiting.contains(imported)) {
+                out.println("Circular reference from file "+fileName+" to "+parsed.importPaths().get(i));
+                return true;
+            }
+            if(hasCircularImport(imported, visiting, done)) {
+                return true;
+            }
+        }
+        visiting.remove(fileName);
+        done.add(fileName);
+        return false;
+    }
 
-        // get imports
-        List<Import> neededImports = file.imports();
-        List<MyLangPath> paths = neededImports.stream()
-            .map(this::getPath)
+    // Whether fileName and all files it imports typecheck, tasks holds the files already scheduled
+    private CompletableFuture<Boolean> typecheck(String fileName, Map<String, CompletableFuture<Boolean>> tasks) {
+        var task = tasks.get(fileName);
+        if(task != null) {
+            return task;
+        }
+        var parsed = parsedFiles.get(fileName);
+        var imports = parsed.imports().stream()
+            .distinct()
+            .map(imported -> typecheck(imported, tasks))
             .toList();
-        // no circular references
-        if(paths.stream()
-            .anyMatch(path -> waitingFiles.contains(resolvePath(path)))) {
-            System.out.println("Circular reference from file "+fileName+" to "+
-                    paths.stream()
-                        .filter(path -> waitingFiles.contains(resolvePath(path)))
-                        .findFirst()
-                        .get());
-            return false;
+        task = CompletableFuture.allOf(imports.toArray(CompletableFuture[]::new))
+            .thenApplyAsync(done -> imports.stream().allMatch(CompletableFuture::join)
+                    && typecheck(fileName, parsed),
+                PARALLEL ? ForkJoinPool.commonPool() : Runnable::run);
+        tasks.put(fileName, task);
+        return task;
+    }
+
+    private boolean typecheck(String fileName, ParsedFile parsed) {
+        String entryName = null, key = null;
+        if(cache != null) {
+            entryName = ModuleCache.entryName(fileName, parsed.source());
+            key = ModuleCache.key(entryName, parsed.imports().stream().map(keys::get).toList());
+            keys.put(fileName, key);
+            if(parsed.cached() != null && parsed.cached().header().key().equals(key)) {
+                var loaded = cache.load(parsed.cached(), fileName);
+                if(loaded != null) {
+                    typecheckedFiles.put(fileName, loaded.module());
+                    compiled(fileName, loaded.file());
+                    return true;
+                }
+            }
+        }
+        var file = parsed.file();
+        if(file == null) { // only the imports were read from the cache
+            file = MyLangParser.parseFile(parsed.source(), moduleName(fileName), out, err).orElse(null);
+            if(file == null) {
+                return false;
+            }
+        }
+        var event = Events.recording ? new Events.ModuleTypecheck() : null;
+        if(event != null) event.begin();
+        boolean typechecks = Typechecker.typechecks(this, file, fileName);
+        if(event != null) {
+            event.module = file.fileName();
+            event.succeeded = typechecks;
+            event.commit();
         }
-        waitingFiles.add(fileName);
-        // compile imported files
-        if(paths.stream()
-            .filter(path -> !compiledFiles.containsKey(resolvePath(path)))
-            .map(path -> { try {
-                    return gatherImportsIn(resolvePath(path), false); 
-                } catch(IOException e) {
-                    throw new RuntimeException(e);
-                }})
-            .anyMatch(result -> !result)) { // any import was not successfull
+        if(!typechecks) {
             return false;
         }
+        MyLangResolver.resolve(file);
+        if(cache != null) {
+            var header = new ModuleCache.Header(parsed.imports(), parsed.importPaths(), key);
+            cache.store(entryName, fileName, header, importedFiles(fileName), file, typecheckedFiles.get(fileName));
+        }
+        compiled(fileName, file);
+        return true;
+    }
 
-        if(!Typechecker.typechecks(this, file, fileName)) {
-            return false;
-        } else {
-            if(isMainModule) this.mainModule = file;
-            compiledFiles.put(fileName, file);
-            waitingFiles.remove(fileName);
-            return true;
+    private void compiled(String fileName, MyLangFile file) {
+        if(fileName.equals(mainFile)) this.mainModule = file;
+        compiledFiles.put(fileName, file);
+    }
+
+    // The files fileName imports directly or through other files
+    private Set<String> importedFiles(String fileName) {
+        Set<String> imported = new HashSet<>();
+        Deque<String> remaining = new ArrayDeque<>(parsedFiles.get(fileName).imports());
+        while(!remaining.isEmpty()) {
+            var next = remaining.pop();
+            if(imported.add(next)) {
+                remaining.addAll(parsedFiles.get(next).imports());
+            }
         }
+        return imported;
     }
 
     public void run() throws IOException {
@@ -102,7 +292,7 @@ public class MyLangRunner {
             try {
                 interpreter.interpretFile(this, mainModule, true);
             } catch(InterpreterError e) {
-                e.printStackTrace();
+                e.printStackTrace(out);
             }
     
         }
@@ -3,16 +3,61 @@ package MyLang;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Splits a source into tokens. Tokens are the offsets of their text in the source: keywords
+ * and operators carry their constant string, names, numbers and string literals get their
+ * lexeme from the {@link SourceText} only when it is asked for, the one string of its symbol
+ * table for their text, so a name used a thousand times is copied out of the source once.
+ */
 public final class MyLangScanner {
     private List<Token> output = new ArrayList<>();
-    private String source;
+    private SourceText text;
+    private char[] source;
+    private int tokenStart = 0;
     private int current = 0;
     private int line;
     private int length;
 
+    // A perfect hash of the keywords, see keywordSlot
+    private static final String[] KEYWORDS = new String[128];
+    private static final TokenType[] KEYWORD_TYPES = new TokenType[128];
+
+    static {
+        addKeywords(
+            "where", TokenType.WHERE, "end", TokenType.END, "true", TokenType.TRUE, "false", TokenType.FALSE,
+            "null", TokenType.NULL, "not", TokenType.BANG, "this", TokenType.VALUE_THIS, "new", TokenType.NEW,
+            "if", TokenType.IF, "then", TokenType.THEN, "else", TokenType.ELSE, "while", TokenType.WHILE,
+            "for", TokenType.FOR, "in", TokenType.IN, "do", TokenType.DO, "yield", TokenType.YIELD,
+            "and", TokenType.AND, "or", TokenType.OR, "xor", TokenType.XOR, "var", TokenType.VAR,
+            "val", TokenType.VAL, "fun", TokenType.FUN, "class", TokenType.CLASS, "native", TokenType.NATIVE,
+            "module", TokenType.MODULE, "import", TokenType.IMPORT, "export", TokenType.EXPORT, "local", TokenType.LOCAL,
+            "type", TokenType.TYPE, "return", TokenType.RETURN, "enum", TokenType.ENUM, "match", TokenType.MATCH,
+            "case", TokenType.CASE, "Fun", TokenType.TYPE_FUN, "Number", TokenType.NUMBER, "Bool", TokenType.BOOLEAN,
+            "String", TokenType.STRING, "Void", TokenType.VOID
+        );
+    }
+
+    private static void addKeywords(Object... keywordsAndTypes) {
+        for(int i = 0; i < keywordsAndTypes.length; i += 2) {
+            var keyword = (String) keywordsAndTypes[i];
+            int slot = keywordSlot(keyword.toCharArray(), 0, keyword.length());
+            if(KEYWORDS[slot] != null) {
+                throw new IllegalStateException("Keywords " + KEYWORDS[slot] + " and " + keyword + " have the same hash");
+            }
+            KEYWORDS[slot] = keyword;
+            KEYWORD_TYPES[slot] = (TokenType) keywordsAndTypes[i + 1];
+        }
+    }
+
+    // Different for every keyword, which all have between 2 and 6 characters
+    private static int keywordSlot(char[] text, int start, int end) {
+        return (text[start] + 7 * text[end - 2] + 13 * text[end - 1] + (end - start)) & 127;
+    }
+
     private MyLangScanner(String source, int inputLine) {
-        this.source = source;
-        this.length = source.length();
+        this.text = new SourceText(source.toCharArray());
+        this.source = text.chars;
+        this.length = this.source.length;
         this.line = inputLine;
     }
 
@@ -37,6 +82,7 @@ public final class MyLangScanner {
     private void scan() {
         skipWhiteSpace();
         if(!atEnd()){
+            tokenStart = current;
             var nextToken = getNextToken();
             output.add(nextToken);
         }
@@ -82,61 +128,61 @@ public final class MyLangScanner {
         return switch(next()) {
             case ':' -> {
                 if(match('=')) {
-                    yield new Token(TokenType.ASSIGN, ":=", line);
+                    yield token(TokenType.ASSIGN, ":=");
                 } else {
-                    yield new Token(TokenType.COLON, ":", line);
+                    yield token(TokenType.COLON, ":");
                 }
             }
-            case '?' -> new Token(TokenType.QUESTION_MARK, "?", line);
-            case ';' -> new Token(TokenType.SEMICOLON,";", line);
-            case '(' -> new Token(TokenType.LPAREN,"(", line);
-            case ')' -> new Token(TokenType.RPAREN,")", line);
-            case '[' -> new Token(TokenType.LBRACKET,"[", line);
-            case ']' -> new Token(TokenType.RBRACKET,"]", line);    
-            case '{' -> new Token(TokenType.LBRACE, "{", line);
-            case '}' -> new Token(TokenType.RBRACE, "}", line);
+            case '?' -> token(TokenType.QUESTION_MARK, "?");
+            case ';' -> token(TokenType.SEMICOLON, ";");
+            case '(' -> token(TokenType.LPAREN, "(");
+            case ')' -> token(TokenType.RPAREN, ")");
+            case '[' -> token(TokenType.LBRACKET, "[");
+            case ']' -> token(TokenType.RBRACKET, "]");    
+            case '{' -> token(TokenType.LBRACE, "{");
+            case '}' -> token(TokenType.RBRACE, "}");
             case '.' -> {
                 if(match('.')) {
-                    yield new Token(TokenType.DOTS, "..", line);
+                    yield token(TokenType.DOTS, "..");
                 } else {
-                    yield new Token(TokenType.DOT, ".", line);
+                    yield token(TokenType.DOT, ".");
                 }
             }
-            case ',' -> new Token(TokenType.COMMA,",", line);
-            case '+' -> new Token(TokenType.PLUS,"+", line);
-            case '-' -> new Token(TokenType.MINUS,"-", line);
+            case ',' -> token(TokenType.COMMA, ",");
+            case '+' -> token(TokenType.PLUS, "+");
+            case '-' -> token(TokenType.MINUS, "-");
             case '*' -> {
                 if(match('*')) {
-                    yield new Token(TokenType.EXPO, "**", line);
+                    yield token(TokenType.EXPO, "**");
                 } else {
-                    yield new Token(TokenType.STAR,"*", line);
+                    yield token(TokenType.STAR, "*");
                 }
             }
-            case '/' -> new Token(TokenType.SLASH,"/", line);
-            case '%' -> new Token(TokenType.PERCENT,"%", line);
-            case '^' -> new Token(TokenType.EXPO, "^", line);
+            case '/' -> token(TokenType.SLASH, "/");
+            case '%' -> token(TokenType.PERCENT, "%");
+            case '^' -> token(TokenType.EXPO, "^");
             case '!' -> {
                 if(match('=')) {
-                    yield new Token(TokenType.NOT_EQUAL, "!=", line);
+                    yield token(TokenType.NOT_EQUAL, "!=");
                 } else {
-                    yield new Token(TokenType.BANG, "!", line);
+                    yield token(TokenType.BANG, "!");
                 }
             }
             case '<' -> {
                 if(match('=')) {
-                    yield new Token(TokenType.LESS_EQUAL,"<=", line);
+                    yield token(TokenType.LESS_EQUAL, "<=");
                 } else {
-                    yield new Token(TokenType.LESS,"<", line);
+                    yield token(TokenType.LESS, "<");
                 }
             }
             case '>' -> {
                 if(match('=')) {
-                    yield new Token(TokenType.GREATER_EQUAL,">=", line);
+                    yield token(TokenType.GREATER_EQUAL, ">=");
                 } else {
-                    yield new Token(TokenType.GREATER,">", line);
+                    yield token(TokenType.GREATER, ">");
                 }
             }
-            case '=' -> new Token(TokenType.EQUAL,"=", line);
+            case '=' -> token(TokenType.EQUAL, "=");
             case '"' -> stringLiteral();
             default -> {
                 if(Character.isDigit(previous())) {
@@ -151,149 +197,205 @@ public final class MyLangScanner {
     }
 
     private Token numberLiteral() {
-        StringBuilder sb = new StringBuilder();
-        sb.append(previous());
         while(Character.isDigit(peek())) {
-            sb.append(next());
+            current++;
         }
         if(peek() == '.' && Character.isDigit(peekNext())) {
-            next();
-            sb.append(".");
+            current++;
             while(Character.isDigit(peek())) {
-                sb.append(next());
+                current++;
             }
         }
-        return new Token(TokenType.NUMBER_LITERAL, sb.toString(), line);
+        return new Token(TokenType.NUMBER_LITERAL, text, tokenStart, current, line);
     }
 
     private Token identifier() {
-        StringBuilder sb = new StringBuilder();
-        sb.append(previous());
-        while(Character.isLetterOrDigit(peek()) || peek() == '_') {
-            sb.append(next());
+        while(current < length && isIdentifierPart(source[current])) {
+            current++;
         }
-        var identifier = sb.toString();
-        return identifierToken(identifier);
-    }
-
-    private Token identifierToken(String identifier) {
-        if(Character.isLowerCase(identifier.charAt(0))) {
-            return lowercaseIdentifier(identifier);
-        } else {
-            return uppercaseIdentifier(identifier);
+        int size = current - tokenStart;
+        if(size >= 2 && size <= 6) {
+            int slot = keywordSlot(source, tokenStart, current);
+            var keyword = KEYWORDS[slot];
+            if(keyword != null && keyword.length() == size && text.matches(keyword, tokenStart)) {
+                return token(KEYWORD_TYPES[slot], keyword);
+            }
         }
+        return new Token(TokenType.IDENTIFIER, text, tokenStart, current, line);
     }
 
-    private Token lowercaseIdentifier(String identifier) {
-        return switch(identifier) {
-            case "where" -> new Token(TokenType.WHERE, "where", line);
-            case "end" -> new Token(TokenType.END, "end", line);
-            case "true" -> new Token(TokenType.TRUE, "true", line);
-            case "false" -> new Token(TokenType.FALSE, "false", line);
-            case "null" -> new Token(TokenType.NULL, "null", line);
-            case "not" -> new Token(TokenType.BANG, "not", line);
-            case "this" -> new Token(TokenType.VALUE_THIS, "this", line);
-            case "new" -> new Token(TokenType.NEW, "new", line);
-            case "if" -> new Token(TokenType.IF, "if", line);
-            case "then" -> new Token(TokenType.THEN, "then", line);
-            case "else" -> new Token(TokenType.ELSE, "else", line);
-            case "while" -> new Token(TokenType.WHILE, "while", line);
-            case "for" -> new Token(TokenType.FOR, "for", line);
-            case "in" -> new Token(TokenType.IN, "in", line);
-            case "do" -> new Token(TokenType.DO, "do", line);
-            case "yield" -> new Token(TokenType.YIELD, "yield", line);
-            case "and" -> new Token(TokenType.AND, "and", line);
-            case "or" -> new Token(TokenType.OR, "or", line);
-            case "xor" -> new Token(TokenType.XOR, "xor", line);
-            case "var" -> new Token(TokenType.VAR, "var", line);
-            case "val" -> new Token(TokenType.VAL, "val", line);
-            case "fun" -> new Token(TokenType.FUN, "fun", line);
-            case "class" -> new Token(TokenType.CLASS, "class", line);
-            case "module" -> new Token(TokenType.MODULE, "module", line);
-            case "import" -> new Token(TokenType.IMPORT, "import", line);
-            case "export" -> new Token(TokenType.EXPORT, "export", line);
-            case "local" -> new Token(TokenType.LOCAL, "local", line);
-            case "type" -> new Token(TokenType.TYPE, "type", line);
-            case "return" -> new Token(TokenType.RETURN, "return", line);
-            case "enum" -> new Token(TokenType.ENUM, "enum", line);
-            case "match" -> new Token(TokenType.MATCH, "match", line);
-            case "case" -> new Token(TokenType.CASE, "case", line);
-            default -> new Token(TokenType.IDENTIFIER, identifier, line);
-        };
-    }
-
-    private Token uppercaseIdentifier(String identifier) {
-        return switch(identifier) {
-            case "Fun" -> new Token(TokenType.TYPE_FUN, "Fun", line);
-            case "Number" -> new Token(TokenType.NUMBER, "Number", line);
-            case "Bool" -> new Token(TokenType.BOOLEAN, "Bool", line);
-            case "String" -> new Token(TokenType.STRING, "String", line);
-            case "Void" -> new Token(TokenType.VOID, "Void", line);
-            default -> new Token(TokenType.IDENTIFIER, identifier, line);
-        };
+    private static boolean isIdentifierPart(char c) {
+        if(c < 128) {
+            return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '_';
+        }
+        return Character.isLetterOrDigit(c);
     }
 
+    // The token covers the text between the quotes, SourceText decodes its escapes
     private Token stringLiteral() {
-        StringBuilder builder = new StringBuilder();
+        int start = current;
         while(!atEnd()) {
             var next = next();
             if(next == '\"') {
-                break;
+                return new Token(TokenType.STRING_LITERAL, text, start, current - 1, line);
             } else if(next == '\\') {
+                if(atEnd()) {
+                    break;
+                }
                 switch(next()) {
-                    case '\\' -> builder.append("\\");
-                    case '\"' -> builder.append("\"");
-                    case 'n' -> builder.append('\n');
-                    case 't' -> builder.append('\t');
-                    case 'r' -> builder.append('\r');
-                    case '0' -> builder.append('\0');
-                    default -> builder.append(next());
+                    case '\\', '\"', 'n', 't', 'r', '0' -> {}
+                    default -> {
+                        // An unknown escape stands for the character after it
+                        if(!atEnd()) {
+                            next();
+                        }
+                    }
                 }
-            } else {
-                builder.append(next);
             }
         }
-        if(atEnd() && previous() != '"') {
+        if(previous() != '"') {
             return new Token(TokenType.ERROR, "Unterminated string literal", line);
         }
+        return new Token(TokenType.STRING_LITERAL, text, start, current, line);
+    }
 
-        return new Token(TokenType.STRING_LITERAL, builder.toString(), line);
+    private Token token(TokenType type, String lexeme) {
+        return new Token(type, lexeme, tokenStart, current, line);
     }
 
     private char next() {
-        var r = source.charAt(current);
+        var r = source[current];
         current++;
         if(r == '\n') line++;
         return r;
     }
 
     private char peek() {
-        if(current >= source.length()) {
+        if(current >= length) {
             return '\0';
         }
-        return source.charAt(current);
+        return source[current];
     }
 
     private char peekNext() {
-        if(current + 1 >= source.length()) {
+        if(current + 1 >= length) {
             return '\0';
         }
-        return source.charAt(current + 1);
+        return source[current + 1];
     }
 
     private char previous() {
-        return source.charAt(current - 1);
+        return source[current - 1];
     }
 
     private boolean match(char expected) {
         if(atEnd()) {
             return false;
         }
-        if(source.charAt(current) != expected) {
+        if(source[current] != expected) {
             return false;
         }
         current++;
         return true;
     }
-}
 
+    /**
+     * The text of a source, for the lexemes of its tokens. Tokens of a cached module are shared
+     * by the requests of the server, so a lexeme is made with the lock of the text held.
+     */
+    static final class SourceText {
+        final char[] chars;
+        // Open addressing, the lexemes of the names, numbers and strings of the source
+        private String[] symbols = new String[256];
+        private int symbolCount = 0;
+
+        SourceText(char[] chars) {
+            this.chars = chars;
+        }
+
+        synchronized String lexeme(TokenType type, int start, int end) {
+            if(type == TokenType.STRING_LITERAL) {
+                for(int i = start; i < end; i++) {
+                    if(chars[i] == '\\') {
+                        return unescape(start, end);
+                    }
+                }
+            }
+            return symbol(start, end);
+        }
+
+        private String unescape(int start, int end) {
+            var builder = new StringBuilder(end - start);
+            for(int i = start; i < end; i++) {
+                char c = chars[i];
+                if(c != '\\') {
+                    builder.append(c);
+                    continue;
+                }
+                if(++i >= end) {
+                    break;
+                }
+                switch(chars[i]) {
+                    case '\\' -> builder.append('\\');
+                    case '\"' -> builder.append('"');
+                    case 'n' -> builder.append('\n');
+                    case 't' -> builder.append('\t');
+                    case 'r' -> builder.append('\r');
+                    case '0' -> builder.append('\0');
+                    default -> {
+                        if(++i < end) {
+                            builder.append(chars[i]);
+                        }
+                    }
+                }
+            }
+            return builder.toString();
+        }
+
+        // The string equal to chars[start, end), the same one for every range with that text
+        private String symbol(int start, int end) {
+            int hash = 0;
+            for(int i = start; i < end; i++) {
+                hash = 31 * hash + chars[i];
+            }
+            int mask = symbols.length - 1;
+            int slot = hash & mask;
+            int size = end - start;
+            for(var symbol = symbols[slot]; symbol != null; symbol = symbols[slot]) {
+                if(symbol.length() == size && matches(symbol, start)) {
+                    return symbol;
+                }
+                slot = (slot + 1) & mask;
+            }
+            var symbol = new String(chars, start, size);
+            symbols[slot] = symbol;
+            if(++symbolCount * 2 > symbols.length) {
+                growSymbols();
+            }
+            return symbol;
+        }
+
+        boolean matches(String text, int start) {
+            for(int i = 0; i < text.length(); i++) {
+                if(chars[start + i] != text.charAt(i)) return false;
+            }
+            return true;
+        }
+
+        private void growSymbols() {
+            var old = symbols;
+            symbols = new String[old.length * 2];
+            int mask = symbols.length - 1;
+            for(var symbol : old) {
+                if(symbol != null) {
+                    // String.hashCode is the hash symbol computes
+                    int slot = symbol.hashCode() & mask;
+                    while(symbols[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    symbols[slot] = symbol;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package MyLang;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/** The objects of the builtin class Set(T), iterated in the order the elements were added */
+public final class MyLangSet {
+    private final LinkedHashSet<Object> elements = new LinkedHashSet<>();
+
+    public boolean contains(Object element) {
+        return elements.contains(HashKey.of(element));
+    }
+
+    public void add(Object element) {
+        elements.add(HashKey.of(element));
+    }
+
+    public void remove(Object element) {
+        elements.remove(HashKey.of(element));
+    }
+
+    public int size() {
+        return elements.size();
+    }
+
+    public List<Object> elements() {
+        var values = new ArrayList<Object>(elements.size());
+        for(var element : elements) {
+            values.add(HashKey.valueOf(element));
+        }
+        return new PersistentVector(values);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("{");
+        boolean needComma = false;
+        for(var element : elements) {
+            if(needComma) builder.append(", ");
+            builder.append(MyLangInterpreter.stringify(HashKey.valueOf(element)));
+            needComma = true;
+        }
+        builder.append("}");
+        return builder.toString();
+    }
+}
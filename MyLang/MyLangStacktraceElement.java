@@ -1,5 +1,10 @@
 package MyLang;
 
-public record MyLangStacktraceElement(String name, MyLangEnviroment env) {
+import MyLang.MyLangAST.FunctionCall;
 
-}
\ No newline at end of file
+public record MyLangStacktraceElement(MyLangCallable callee, FunctionCall site, MyLangEnviroment env) {
+
+    public String name() {
+        return callee.getName()+"() at line "+site.dot().line()+" in file "+callee.getFileName();
+    }
+}
@@ -0,0 +1,35 @@
+package MyLang;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A Java class declared by a native class declaration. Its methods are NativeFunctions taking
+ * the receiver first, so they are bound and cached like the methods of MyLang classes.
+ */
+public record NativeClass(
+        String name,
+        Class<?> javaClass,
+        Map<String, MyLangCallable> methods,
+        MyLangCallable constructor,
+        String fileName) implements MyLangCallable {
+
+    public String getName() {
+        return name;
+    }
+    public String getFileName() {
+        return fileName;
+    }
+
+    public Object call(MyLangInterpreter interpreter, List<Object> args, Map<String, Object> namedArgs) {
+        if(constructor == null) {
+            throw new InterpreterError("Native class '"+name+"' has no constructor", interpreter.callStack);
+        }
+        return constructor.call(interpreter, args, namedArgs);
+    }
+
+    @Override
+    public String toString() {
+        return "<native class '"+name+"'>";
+    }
+}
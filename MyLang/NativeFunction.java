@@ -0,0 +1,262 @@
+package MyLang;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static MyLang.MyLangAST.*;
+
+/**
+ * A Java method, constructor or static function called from MyLang. The method is looked up once
+ * when its native declaration is run and its MethodHandle is adapted to take the arguments as
+ * an Object[]: numbers are converted to the primitive parameter types (MyLang numbers are
+ * doubles) and primitive numbers returned come back as doubles. Instance methods take their
+ * receiver as the first argument.
+ */
+public final class NativeFunction implements MyLangCallable {
+    private static final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+
+    private final String name;
+    private final String fileName;
+    private final int arity;
+    // (Object[]) Object
+    private final MethodHandle invoker;
+
+    private NativeFunction(String name, String fileName, Executable executable, MethodHandle handle) {
+        this.name = name;
+        this.fileName = fileName;
+        this.arity = handle.type().parameterCount();
+        this.invoker = adapt(executable, handle);
+    }
+
+    /** The static or instance method named by path (package.Class.method) with the parameters types */
+    public static NativeFunction function(String name, String path, List<Type> types, String fileName) {
+        int dot = path.lastIndexOf('.');
+        if(dot < 0) {
+            throw new IllegalArgumentException("Native function '"+name+"' needs a path of the form package.Class.method, got '"+path+"'");
+        }
+        var javaClass = javaClass(path.substring(0, dot));
+        var methodName = path.substring(dot + 1);
+        Executable best = null;
+        int bestScore = -1;
+        for(var method : javaClass.getMethods()) {
+            if(!method.getName().equals(methodName)) {
+                continue;
+            }
+            boolean isStatic = Modifier.isStatic(method.getModifiers());
+            List<Class<?>> parameters = new ArrayList<>();
+            if(!isStatic) {
+                parameters.add(javaClass);
+            }
+            parameters.addAll(List.of(method.getParameterTypes()));
+            int score = score(parameters, types);
+            if(score > bestScore) {
+                best = method;
+                bestScore = score;
+            }
+        }
+        if(best == null) {
+            throw new IllegalArgumentException("No method '"+path+"' taking "+types.size()+" arguments for native function '"+name+"'");
+        }
+        return new NativeFunction(name, fileName, best, unreflect(best));
+    }
+
+    /** The instance method name of javaClass, called with the receiver followed by arguments of the parameter types */
+    public static NativeFunction method(Class<?> javaClass, String name, List<Type> types, String fileName) {
+        var withReceiver = new ArrayList<Type>();
+        withReceiver.add(null);
+        withReceiver.addAll(types);
+        return function(name, javaClass.getName() + "." + name, withReceiver, fileName);
+    }
+
+    /** The public constructor of javaClass taking arguments of the parameter types */
+    public static NativeFunction constructor(Class<?> javaClass, String name, List<Type> types, String fileName) {
+        Executable best = null;
+        int bestScore = -1;
+        for(var constructor : javaClass.getConstructors()) {
+            int score = score(List.of(constructor.getParameterTypes()), types);
+            if(score > bestScore) {
+                best = constructor;
+                bestScore = score;
+            }
+        }
+        if(best == null) {
+            throw new IllegalArgumentException("No constructor of '"+javaClass.getName()+"' taking "+types.size()+" arguments");
+        }
+        return new NativeFunction(name, fileName, best, unreflect(best));
+    }
+
+    static Class<?> javaClass(String name) {
+        try {
+            return Class.forName(name);
+        } catch(ClassNotFoundException e) {
+            try {
+                return Class.forName("java.lang." + name);
+            } catch(ClassNotFoundException e2) {
+                throw new IllegalArgumentException("Unknown Java class '"+name+"'");
+            }
+        }
+    }
+
+    private static MethodHandle unreflect(Executable executable) {
+        try {
+            if(executable instanceof Method m) {
+                return lookup.unreflect(m).asFixedArity();
+            }
+            return lookup.unreflectConstructor((Constructor<?>) executable).asFixedArity();
+        } catch(IllegalAccessException e) {
+            throw new IllegalArgumentException("Cannot access '"+executable+"'");
+        }
+    }
+
+    /**
+     * How well the Java parameters fit the MyLang types: -1 if the numbers differ or a type
+     * cannot be passed, higher for more parameters of exactly the type of the MyLang values.
+     * A null type (receivers, type variables, other classes) accepts any reference.
+     */
+    private static int score(List<Class<?>> parameters, List<Type> types) {
+        if(parameters.size() != types.size()) {
+            return -1;
+        }
+        int score = 0;
+        for(int i = 0; i < types.size(); i++) {
+            var parameter = parameters.get(i);
+            var type = types.get(i);
+            Class<?> exact;
+            if(type instanceof NumberType) {
+                exact = double.class;
+                if(!(parameter.isPrimitive() && parameter != boolean.class && parameter != char.class)
+                        && !parameter.isAssignableFrom(Double.class)) {
+                    return -1;
+                }
+            } else if(type instanceof BooleanType) {
+                exact = boolean.class;
+                if(parameter != boolean.class && !parameter.isAssignableFrom(Boolean.class)) {
+                    return -1;
+                }
+            } else if(type instanceof StringType) {
+                exact = String.class;
+                if(!parameter.isAssignableFrom(String.class)) {
+                    return -1;
+                }
+            } else if(type instanceof ListOf) {
+                exact = List.class;
+                if(!parameter.isAssignableFrom(PersistentVector.class)) {
+                    return -1;
+                }
+            } else {
+                exact = Object.class;
+                if(parameter.isPrimitive()) {
+                    return -1;
+                }
+            }
+            if(parameter == exact || (exact == List.class && Collection.class.isAssignableFrom(parameter))) {
+                score++;
+            }
+        }
+        return score;
+    }
+
+    private static MethodHandle adapt(Executable executable, MethodHandle handle) {
+        var type = handle.type();
+        for(int i = 0; i < type.parameterCount(); i++) {
+            var converter = fromNumber(type.parameterType(i));
+            if(converter != null) {
+                handle = MethodHandles.filterArguments(handle, i, converter);
+            }
+        }
+        var returnType = type.returnType();
+        if(returnType.isPrimitive() && returnType != void.class && returnType != boolean.class && returnType != char.class) {
+            handle = handle.asType(handle.type().changeReturnType(double.class));
+        }
+        return handle
+            .asType(MethodType.genericMethodType(type.parameterCount()))
+            .asSpreader(Object[].class, type.parameterCount());
+    }
+
+    // Converts the doubles MyLang numbers are to the primitive type, null for other types
+    private static MethodHandle fromNumber(Class<?> primitive) {
+        if(!primitive.isPrimitive() || primitive == double.class || primitive == boolean.class) {
+            return null;
+        }
+        try {
+            var name = primitive == char.class ? "toChar" : "to" + Character.toUpperCase(primitive.getName().charAt(0)) + primitive.getName().substring(1);
+            return MethodHandles.lookup().findStatic(NativeFunction.class, name, MethodType.methodType(primitive, Object.class));
+        } catch(ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int toInt(Object value) { return ((Number) value).intValue(); }
+    private static long toLong(Object value) { return ((Number) value).longValue(); }
+    private static float toFloat(Object value) { return ((Number) value).floatValue(); }
+    private static short toShort(Object value) { return ((Number) value).shortValue(); }
+    private static byte toByte(Object value) { return ((Number) value).byteValue(); }
+    private static char toChar(Object value) { return ((String) Rope.flatten(value)).charAt(0); }
+
+    private Object invoke(MyLangInterpreter interpreter, Object[] args) {
+        if(args.length != arity) {
+            throw new InterpreterError("Expected " + arity + " arguments, got " + args.length + " calling native function '"+name+"'", interpreter.callStack);
+        }
+        for(int i = 0; i < args.length; i++) {
+            args[i] = Rope.flatten(args[i]);
+        }
+        try {
+            return (Object) invoker.invokeExact(args);
+        } catch(InterpreterError e) {
+            throw e;
+        } catch(Throwable e) {
+            throw new InterpreterError("Native function '"+name+"' failed: "+e, interpreter.callStack);
+        }
+    }
+
+    @Override
+    public Object call(MyLangInterpreter interpreter, List<Object> posArgs, Map<String, Object> namedArgs) {
+        if(!namedArgs.isEmpty()) {
+            throw new InterpreterError("Native function '"+name+"' does not take named arguments", interpreter.callStack);
+        }
+        return invoke(interpreter, posArgs.toArray());
+    }
+    @Override
+    public Object call0(MyLangInterpreter interpreter) {
+        return invoke(interpreter, new Object[0]);
+    }
+    @Override
+    public Object call1(MyLangInterpreter interpreter, Object a) {
+        return invoke(interpreter, new Object[] {a});
+    }
+    @Override
+    public Object call2(MyLangInterpreter interpreter, Object a, Object b) {
+        return invoke(interpreter, new Object[] {a, b});
+    }
+    @Override
+    public Object call3(MyLangInterpreter interpreter, Object a, Object b, Object c) {
+        return invoke(interpreter, new Object[] {a, b, c});
+    }
+    @Override
+    public Object call4(MyLangInterpreter interpreter, Object a, Object b, Object c, Object d) {
+        return invoke(interpreter, new Object[] {a, b, c, d});
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+    @Override
+    public String getFileName() {
+        return fileName;
+    }
+
+    @Override
+    public String toString() {
+        return "<native function '" + name + "'>";
+    }
+}
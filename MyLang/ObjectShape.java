@@ -0,0 +1,41 @@
+package MyLang;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import MyLang.MyLangAST.VariableBinding;
+import MyLang.MyLangAST.VariableDeclaration;
+
+/**
+ * Where the fields of the instances of a class are stored: every field gets a slot in
+ * {@link MyLangObject#fields}, whether it is reassignable is kept here instead of in every
+ * object. All instances of a class share the shape of the class.
+ */
+public final class ObjectShape {
+    private final Map<String, Integer> slots = new HashMap<>();
+    private final boolean[] reassignable;
+
+    ObjectShape(List<VariableDeclaration> fields) {
+        reassignable = new boolean[fields.size()];
+        for(int slot = 0; slot < fields.size(); slot++) {
+            var field = fields.get(slot);
+            slots.put(((VariableBinding) field.pat()).name().lexeme(), slot);
+            reassignable[slot] = field.isReassignable();
+        }
+    }
+
+    public int size() {
+        return reassignable.length;
+    }
+
+    /** Returns the slot of the field name, or -1 if there is no such field */
+    public int slotOf(String name) {
+        Integer slot = slots.get(name);
+        return slot == null ? -1 : slot;
+    }
+
+    public boolean isReassignable(int slot) {
+        return reassignable[slot];
+    }
+}
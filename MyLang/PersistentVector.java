@@ -0,0 +1,286 @@
+package MyLang;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * The list of MyLang programs. The elements are kept in a trie of arrays with 32 entries,
+ * element i at position origin + i, so the list can grow and shrink at both ends:
+ * push, pop, prepend, dequeue and slices (rest, firsts) take O(log n) instead of copying
+ * or shifting the whole list.
+ * Strings are stored flattened (see Rope), so elements compare like Java Strings.
+ * A slice shares its nodes with the list it was taken from. Each node names the list that
+ * owns it; a list changes its own nodes in place and copies the path to a node it shares.
+ */
+public final class PersistentVector extends AbstractList<Object> implements RandomAccess {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    // Nodes are arrays of WIDTH entries followed by their owner
+    private Object owner = new Object();
+    private Object[] root;
+    // Level of the root node, the elements are at level 0
+    private int shift = 0;
+    private long origin = 0;
+    private int size = 0;
+
+    public PersistentVector() {
+        root = node();
+        if(Events.recording) {
+            Events.allocated("List");
+        }
+    }
+
+    public PersistentVector(Collection<?> elements) {
+        this();
+        for(var element : elements) {
+            push(element);
+        }
+    }
+
+    @Override
+    public Object get(int index) {
+        Objects.checkIndex(index, size);
+        long i = origin + index;
+        return leaf(i)[(int) i & MASK];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Object set(int index, Object element) {
+        var previous = get(index);
+        root = put(root, shift, origin + index, Rope.flatten(element));
+        return previous;
+    }
+
+    @Override
+    public void add(int index, Object element) {
+        if(index == size) {
+            push(element);
+        } else if(index == 0) {
+            prepend(element);
+        } else {
+            Objects.checkIndex(index, size);
+            var elements = new ArrayList<Object>(this);
+            elements.add(index, element);
+            replaceWith(elements);
+        }
+    }
+
+    @Override
+    public Object remove(int index) {
+        Objects.checkIndex(index, size);
+        if(index == 0) {
+            return removeAt(origin, MASK, true);
+        } else if(index == size - 1) {
+            return removeAt(origin + index, 0, false);
+        }
+        var elements = new ArrayList<Object>(this);
+        var removed = elements.remove(index);
+        replaceWith(elements);
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        reset();
+        modCount++;
+    }
+
+    @Override
+    public Iterator<Object> iterator() {
+        return new Iterator<>() {
+            private final int expectedModCount = modCount;
+            private int next = 0;
+            private Object[] leaf = null;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Object next() {
+                if(modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if(next >= size) {
+                    throw new NoSuchElementException();
+                }
+                long i = origin + next++;
+                if(leaf == null || (i & MASK) == 0) {
+                    leaf = leaf(i);
+                }
+                return leaf[(int) i & MASK];
+            }
+        };
+    }
+
+    /** The elements from (inclusive) to to (exclusive) as a new list, independent of this one */
+    public PersistentVector slice(int from, int to) {
+        Objects.checkFromToIndex(from, to, size);
+        // both lists share the nodes from now on
+        owner = new Object();
+        var slice = new PersistentVector(shift, origin + from, to - from);
+        slice.root = slice.trim(root, shift, 0, slice.origin, slice.origin + slice.size);
+        slice.compact();
+        return slice;
+    }
+
+    private PersistentVector(int shift, long origin, int size) {
+        this.shift = shift;
+        this.origin = origin;
+        this.size = size;
+    }
+
+    private void push(Object element) {
+        if(origin + size == capacity()) {
+            var grown = node();
+            grown[0] = root;
+            root = grown;
+            shift += BITS;
+        }
+        root = put(root, shift, origin + size, Rope.flatten(element));
+        size++;
+        modCount++;
+    }
+
+    private void prepend(Object element) {
+        if(origin == 0) {
+            var grown = node();
+            grown[1] = root;
+            root = grown;
+            origin += capacity();
+            shift += BITS;
+        }
+        origin--;
+        root = put(root, shift, origin, Rope.flatten(element));
+        size++;
+        modCount++;
+    }
+
+    private Object removeAt(long i, int lastSlot, boolean first) {
+        var removed = leaf(i)[(int) i & MASK];
+        root = withoutEntry(root, shift, i, lastSlot);
+        if(first) {
+            origin++;
+        }
+        size--;
+        modCount++;
+        compact();
+        return removed;
+    }
+
+    private Object[] leaf(long i) {
+        var node = root;
+        for(int level = shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(int) (i >>> level) & MASK];
+        }
+        return node;
+    }
+
+    private Object[] put(Object[] node, int level, long i, Object value) {
+        node = editable(node);
+        int k = (int) (i >>> level) & MASK;
+        node[k] = level == 0 ? value : put((Object[]) node[k], level - BITS, i, value);
+        return node;
+    }
+
+    /**
+     * Clears the entry at i, which is the first or the last element. A node whose entry lastSlot
+     * is cleared has no entries left toward the removed end and is dropped altogether.
+     */
+    private Object[] withoutEntry(Object[] node, int level, long i, int lastSlot) {
+        int k = (int) (i >>> level) & MASK;
+        var child = level == 0 ? null : withoutEntry((Object[]) node[k], level - BITS, i, lastSlot);
+        if(child == null && k == lastSlot) {
+            return null;
+        }
+        node = editable(node);
+        node[k] = child;
+        return node;
+    }
+
+    /** Copy of node (covering positions from base on) without the entries outside of [from, to) */
+    private Object[] trim(Object[] node, int level, long base, long from, long to) {
+        var trimmed = node;
+        for(int k = 0; k < WIDTH; k++) {
+            long start = base + ((long) k << level);
+            long end = start + (1L << level);
+            Object entry = trimmed[k];
+            if(end <= from || start >= to) {
+                entry = null;
+            } else if(level > 0 && (start < from || end > to)) {
+                entry = trim((Object[]) entry, level - BITS, start, from, to);
+            }
+            if(entry != trimmed[k]) {
+                trimmed = editable(trimmed);
+                trimmed[k] = entry;
+            }
+        }
+        return trimmed;
+    }
+
+    // Makes the child of the root holding all elements the root, so the depth stays logarithmic in the size
+    private void compact() {
+        if(size == 0) {
+            reset();
+            return;
+        }
+        while(shift > 0) {
+            int first = (int) (origin >>> shift) & MASK;
+            if(first != ((int) ((origin + size - 1) >>> shift) & MASK)) {
+                break;
+            }
+            root = (Object[]) root[first];
+            origin -= (long) first << shift;
+            shift -= BITS;
+        }
+    }
+
+    private void replaceWith(Collection<Object> elements) {
+        reset();
+        for(var element : elements) {
+            push(element);
+        }
+    }
+
+    private void reset() {
+        root = node();
+        shift = 0;
+        origin = 0;
+        size = 0;
+    }
+
+    private long capacity() {
+        return 1L << (shift + BITS);
+    }
+
+    private Object[] node() {
+        var node = new Object[WIDTH + 1];
+        node[WIDTH] = owner;
+        return node;
+    }
+
+    private Object[] editable(Object[] node) {
+        if(node == null) {
+            return node();
+        } else if(node[WIDTH] == owner) {
+            return node;
+        }
+        var copy = node.clone();
+        copy[WIDTH] = owner;
+        return copy;
+    }
+}
@@ -689,6 +689,59 @@ public class PrettyPrinter implements
         return null;
     }
 
+    @Override
+    public Void visitNativeFunctionDeclaration(NativeFunctionDeclaration n) {
+        builder.append("native fun ");
+        builder.append(n.Name().lexeme());
+        if(!n.typeParams().isEmpty()) {
+            builder.append("[");
+            builder.append(String.join(", ", n.typeParams().stream().map(Token::lexeme).toList()));
+            builder.append("]");
+        }
+        builder.append(": ");
+        n.type().accept(this);
+        builder.append(" := \"");
+        builder.append(n.path().lexeme());
+        builder.append("\";");
+
+        return null;
+    }
+    @Override
+    public Void visitNativeClassDeclaration(NativeClassDeclaration n) {
+        builder.append("native class ");
+        builder.append(n.Name().lexeme());
+        if(n.args() != null) {
+            builder.append("(");
+            builder.append(String.join(", ", n.args().stream().map(Token::lexeme).toList()));
+            builder.append(")");
+        }
+        builder.append(" := \"");
+        builder.append(n.path().lexeme());
+        builder.append("\" where ");
+        if(n.constructor() != null) {
+            builder.append("new(");
+            boolean needComma = false;
+            for(var param : n.constructor()) {
+                if(needComma) {
+                    builder.append(", ");
+                }
+                param.accept(this);
+                needComma = true;
+            }
+            builder.append("); ");
+        }
+        for(var method : n.methods().entrySet()) {
+            builder.append("fun ");
+            builder.append(method.getKey());
+            builder.append(": ");
+            method.getValue().accept(this);
+            builder.append("; ");
+        }
+        builder.append("end");
+
+        return null;
+    }
+
     @Override
     public Void visitClassConstructor(ClassConstructor c) {
         builder.append("new(");
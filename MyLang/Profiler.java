@@ -0,0 +1,223 @@
+package MyLang;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+import MyLang.MyLangAST.FunctionCall;
+
+/**
+ * Measures the calls of a program run with --profile. Every interpreter gets a
+ * {@link Stack}, which reports the calls pushed onto it here, so programs run without the
+ * option only ever see the plain CallStack. Functions are told apart by name, file and the
+ * line they are declared on: "f (file:3)" is the f declared on line 3 of file, builtin and
+ * native functions have no line. At exit the
+ * time spent in each call stack is written to a file in the collapsed format of flame graph
+ * tools, a summary of the functions goes to stderr.
+ */
+final class Profiler {
+    /** Set before the interpreters are created if the program is profiled */
+    static Profiler current = null;
+
+    private record Key(String name, String file, int line) {
+        String label() {
+            return (name + " (" + file + (line > 0 ? ":" + line : "") + ")").replace(';', ',');
+        }
+    }
+
+    private static final class Function {
+        final Key key;
+        long calls;
+        long totalNanos;
+        long selfNanos;
+        long selfBytes;
+        // Calls of the function that have not returned, recursive calls are only counted once in the total
+        int active;
+
+        Function(Key key) {
+            this.key = key;
+        }
+    }
+
+    // A call stack of the program, its self time is the value of the stack in the flame graph
+    private static final class Node {
+        final String label;
+        final Map<String, Node> children = new HashMap<>();
+        long selfNanos;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        Node child(String label) {
+            return children.computeIfAbsent(label, Node::new);
+        }
+    }
+
+    private final String output;
+    private final com.sun.management.ThreadMXBean threads;
+    private final Map<Key, Function> functions = new HashMap<>();
+    private final Node root = new Node(null);
+
+    // The open calls of all interpreters, the calls of imported modules nest inside the others
+    private Function[] calls = new Function[32];
+    private Node[] nodes = new Node[32];
+    private long[] starts = new long[32];
+    private long[] childNanos = new long[32];
+    private long[] startBytes = new long[32];
+    private long[] childBytes = new long[32];
+    private int size = 0;
+
+    Profiler(String output) {
+        this.output = output;
+        var bean = ManagementFactory.getThreadMXBean();
+        this.threads = bean instanceof com.sun.management.ThreadMXBean t && t.isThreadAllocatedMemorySupported() ? t : null;
+        Runtime.getRuntime().addShutdownHook(new Thread(this::report));
+    }
+
+    Stack newCallStack() {
+        return new Stack(this);
+    }
+
+    private long allocatedBytes() {
+        return threads == null ? 0 : threads.getCurrentThreadAllocatedBytes();
+    }
+
+    private void enter(MyLangCallable callee, Object receiver) {
+        var name = receiver instanceof MyLangObject o ? o.klass.name() + "." + callee.getName() : callee.getName();
+        var key = new Key(name, callee.getFileName(), callee.getLine());
+        var function = functions.computeIfAbsent(key, Function::new);
+        function.calls++;
+        function.active++;
+        if(size == calls.length) {
+            calls = Arrays.copyOf(calls, size * 2);
+            nodes = Arrays.copyOf(nodes, size * 2);
+            starts = Arrays.copyOf(starts, size * 2);
+            childNanos = Arrays.copyOf(childNanos, size * 2);
+            startBytes = Arrays.copyOf(startBytes, size * 2);
+            childBytes = Arrays.copyOf(childBytes, size * 2);
+        }
+        calls[size] = function;
+        nodes[size] = (size == 0 ? root : nodes[size - 1]).child(key.label());
+        childNanos[size] = 0;
+        childBytes[size] = 0;
+        startBytes[size] = allocatedBytes();
+        starts[size] = System.nanoTime();
+        size++;
+    }
+
+    private void exit() {
+        if(size > 0) {
+            finish(size - 1, System.nanoTime(), allocatedBytes());
+            size--;
+        }
+    }
+
+    // Ends the call at index, which is added to the time of its caller
+    private void finish(int index, long end, long bytes) {
+        long total = end - starts[index];
+        long allocated = bytes - startBytes[index];
+        var function = calls[index];
+        function.active--;
+        if(function.active == 0) {
+            function.totalNanos += total;
+        }
+        function.selfNanos += total - childNanos[index];
+        function.selfBytes += allocated - childBytes[index];
+        nodes[index].selfNanos += total - childNanos[index];
+        if(index > 0) {
+            childNanos[index - 1] += total;
+            childBytes[index - 1] += allocated;
+        }
+        calls[index] = null;
+        nodes[index] = null;
+    }
+
+    // A tail call replaced its caller, which ends when the callee started
+    private void dropCaller() {
+        if(size < 2) {
+            return;
+        }
+        int caller = size - 2, callee = size - 1;
+        finish(caller, starts[callee], startBytes[callee]);
+        var label = nodes[callee].label;
+        calls[caller] = calls[callee];
+        nodes[caller] = (caller == 0 ? root : nodes[caller - 1]).child(label);
+        starts[caller] = starts[callee];
+        startBytes[caller] = startBytes[callee];
+        childNanos[caller] = childNanos[callee];
+        childBytes[caller] = childBytes[callee];
+        calls[callee] = null;
+        nodes[callee] = null;
+        size--;
+    }
+
+    private synchronized void report() {
+        // Calls an error or exit left open end now
+        long end = System.nanoTime(), bytes = allocatedBytes();
+        while(size > 0) {
+            finish(size - 1, end, bytes);
+            size--;
+        }
+        try(var out = new PrintWriter(new FileWriter(output))) {
+            writeStacks(out, root, "");
+        } catch(IOException e) {
+            System.err.println("Could not write profile to " + output + ": " + e.getMessage());
+        }
+
+        var sorted = new ArrayList<>(functions.values());
+        sorted.sort(Comparator.comparingLong((Function f) -> f.selfNanos).reversed());
+        var err = System.err;
+        err.println();
+        err.printf("%10s %12s %12s %14s  %s%n", "calls", "total ms", "self ms", "self bytes", "function");
+        for(var f : sorted) {
+            err.printf("%10d %12.3f %12.3f %14d  %s%n", f.calls, f.totalNanos / 1e6, f.selfNanos / 1e6, f.selfBytes, f.key.label());
+        }
+        err.println("Flame graph stacks written to " + output);
+    }
+
+    // One line per stack: the functions separated by semicolons and the self time in microseconds
+    private static void writeStacks(PrintWriter out, Node node, String stack) {
+        for(var child : node.children.values()) {
+            var childStack = stack.isEmpty() ? child.label : stack + ";" + child.label;
+            long micros = child.selfNanos / 1000;
+            if(micros > 0) {
+                out.println(childStack + " " + micros);
+            }
+            writeStacks(out, child, childStack);
+        }
+    }
+
+    /** The call stack of an interpreter whose calls are profiled */
+    static final class Stack extends CallStack {
+        private final Profiler profiler;
+
+        private Stack(Profiler profiler) {
+            this.profiler = profiler;
+        }
+
+        @Override
+        public void pushMethod(MyLangCallable method, Object receiver, FunctionCall site, MyLangEnviroment env) {
+            super.pushMethod(method, receiver, site, env);
+            profiler.enter(method, receiver);
+        }
+
+        @Override
+        public void pop() {
+            profiler.exit();
+            super.pop();
+        }
+
+        @Override
+        public void dropCaller() {
+            profiler.dropCaller();
+            super.dropCaller();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package MyLang;
+
+/**
+ * Inline cache of a single property access site. It remembers the shape of the last
+ * object and the slot of the field in it, so repeated accesses to objects of the same
+ * class skip the lookup of the name.
+ */
+public final class PropertyCache {
+    public final String name;
+    private ObjectShape shape = null;
+    private int slot;
+
+    public PropertyCache(String name) {
+        this.name = name;
+    }
+
+    public Object get(MyLangObject object, MyLangInterpreter interpreter) {
+        var objectShape = object.klass.shape();
+        if(objectShape == shape) {
+            return object.fields[slot];
+        }
+        int objectSlot = objectShape.slotOf(name);
+        if(objectSlot < 0) { // methods are bound on every access
+            return object.getField(name, interpreter);
+        }
+        shape = objectShape;
+        slot = objectSlot;
+        return object.fields[slot];
+    }
+
+    // Constructors may also assign fields that are not reassignable
+    public void set(MyLangObject object, Object value, MyLangInterpreter interpreter) {
+        var objectShape = object.klass.shape();
+        if(objectShape == shape && (interpreter.inConstructor || shape.isReassignable(slot))) {
+            object.fields[slot] = value;
+            return;
+        }
+        object.setField(name, value, interpreter.inConstructor, interpreter);
+        int objectSlot = objectShape.slotOf(name);
+        if(objectSlot >= 0) { // setField has thrown if name is a method
+            shape = objectShape;
+            slot = objectSlot;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package MyLang;
+
+import java.util.AbstractList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * Value of a range expression [start..end : step] whose start and step are whole numbers.
+ * The elements are computed from their index instead of being stored, so a range takes
+ * constant memory. The first change to the list copies the elements into a PersistentVector,
+ * the range behaves like any other list from then on.
+ */
+public final class RangeList extends AbstractList<Object> implements RandomAccess {
+    /** The most elements a list can have */
+    static final int MAX_SIZE = Integer.MAX_VALUE - 8;
+
+    private final double start;
+    private final double step;
+    private final int size;
+    private List<Object> elements = null;
+
+    /** step has to be positive, start and step whole numbers so start + n * step is exact */
+    RangeList(double start, double step, double end) {
+        double size = size(start, step, end);
+        if(size > MAX_SIZE) {
+            throw new IllegalArgumentException("Range of " + size + " elements");
+        }
+        this.start = start;
+        this.step = step;
+        this.size = (int) size;
+    }
+
+    /** The number of elements of the range, which may be more than a list can have */
+    static double size(double start, double step, double end) {
+        return end > start ? Math.ceil((end - start) / step) : 0;
+    }
+
+    @Override
+    public Object get(int index) {
+        if(elements != null) {
+            return elements.get(index);
+        }
+        if(index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return start + index * step;
+    }
+
+    @Override
+    public int size() {
+        return elements != null ? elements.size() : size;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if(elements != null) {
+            return elements.contains(o);
+        }
+        if(!(o instanceof Double d)) {
+            return false;
+        }
+        double index = (d - start) / step;
+        return index >= 0 && index < size && index == Math.rint(index);
+    }
+
+    @Override
+    public Iterator<Object> iterator() {
+        if(elements != null) {
+            return elements.iterator();
+        }
+        return new Iterator<>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Object next() {
+                if(elements != null) {
+                    throw new ConcurrentModificationException();
+                }
+                if(next >= size) {
+                    throw new NoSuchElementException();
+                }
+                return start + next++ * step;
+            }
+        };
+    }
+
+    @Override
+    public Object set(int index, Object element) {
+        return materialize().set(index, element);
+    }
+
+    @Override
+    public void add(int index, Object element) {
+        materialize().add(index, element);
+        modCount++;
+    }
+
+    @Override
+    public Object remove(int index) {
+        var removed = materialize().remove(index);
+        modCount++;
+        return removed;
+    }
+
+    private List<Object> materialize() {
+        if(elements == null) {
+            var copy = new PersistentVector();
+            for(int i = 0; i < size; i++) {
+                copy.add(start + i * step);
+            }
+            elements = copy;
+        }
+        return elements;
+    }
+}
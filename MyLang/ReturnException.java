@@ -1,8 +1,26 @@
 package MyLang;
 
+/**
+ * Thrown by return and caught by the function that returns. It has no stack trace and
+ * every interpreter reuses a single instance, so returning early allocates nothing.
+ */
 public class ReturnException extends RuntimeException {
-    Object returnValue;
-    public ReturnException(Object value) {
+    private static final long serialVersionUID = 1L;
+
+    private Object returnValue;
+
+    public ReturnException() {
+        super(null, null, false, false);
+    }
+
+    public ReturnException carrying(Object value) {
         this.returnValue = value;
+        return this;
+    }
+
+    public Object takeValue() {
+        var value = returnValue;
+        returnValue = null;
+        return value;
     }
 }
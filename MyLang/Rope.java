@@ -0,0 +1,90 @@
+package MyLang;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A long string produced by +, whose characters are appended to a StringBuilder instead of
+ * being copied into a new String. Building a string with s := s + part therefore takes time
+ * linear in its length. Ropes extending the same buffer share it: appending to the rope that
+ * ends at the end of the buffer appends in place, any other rope is copied first.
+ * Ropes are flattened into Strings where the characters matter: comparisons, indexing,
+ * printing, calls of builtins and storing the string in a list or an enum variant.
+ */
+public final class Rope implements CharSequence {
+    // Shorter results of + are plain Strings
+    private static final int MIN_LENGTH = 256;
+
+    private final StringBuilder buffer;
+    private final int length;
+    private String flat = null;
+
+    private Rope(StringBuilder buffer, int length) {
+        this.buffer = buffer;
+        this.length = length;
+    }
+
+    /** left + right, where left is a String or a Rope */
+    static Object concat(CharSequence left, String right) {
+        int length = left.length() + right.length();
+        if(left instanceof Rope rope && rope.length == rope.buffer.length()) {
+            rope.buffer.append(right);
+            return new Rope(rope.buffer, length);
+        } else if(length < MIN_LENGTH) {
+            return left.toString() + right;
+        }
+        var buffer = new StringBuilder(2 * length);
+        buffer.append(left).append(right);
+        return new Rope(buffer, length);
+    }
+
+    /** The value itself, or the String of a rope */
+    public static Object flatten(Object value) {
+        return value instanceof Rope rope ? rope.toString() : value;
+    }
+
+    /** values, or a copy with the ropes flattened if it contains any */
+    static List<Object> flattenAll(List<Object> values) {
+        for(var value : values) {
+            if(value instanceof Rope) {
+                var flat = new ArrayList<>(values);
+                flat.replaceAll(Rope::flatten);
+                return flat;
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return toString().charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        if(flat == null) {
+            flat = buffer.substring(0, length);
+        }
+        return flat;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return (other instanceof Rope || other instanceof String) && toString().equals(other.toString());
+    }
+
+    @Override
+    public int hashCode() {
+        return toString().hashCode();
+    }
+}
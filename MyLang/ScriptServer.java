@@ -0,0 +1,277 @@
+package MyLang;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Scanner;
+
+/**
+ * Runs programs for {@link MyLangClient} in one JVM, which keeps the parsed and typechecked
+ * modules of earlier requests in its {@link ModuleCache}. A module is reused as long as its file
+ * and the files it imports are unchanged. Requests run at the same time, each in a new runner
+ * and interpreter on a thread of its own, with the arguments, working directory, stdin and stdout
+ * of its client. Errors of a request, even a stack overflow, are reported to its client.
+ * <p>
+ * The streams of the JVM are never replaced, programs write to the streams of their runner.
+ * Native functions writing to System.out directly still write to the console of the server.
+ * <p>
+ * Client and server exchange frames of a kind byte, the length and the data. The client sends
+ * RUN and then its input as STDIN frames, an empty one at the end of the input. The server
+ * answers with STDOUT and STDERR frames and ends the request with EXIT and the status.
+ * <p>
+ * The socket is accessible to the user of the server only, anyone connecting can run programs.
+ */
+final class ScriptServer {
+    static final byte RUN = 1, STDIN = 2, STDOUT = 3, STDERR = 4, EXIT = 5;
+    // Longer writes are split into several frames, longer frames are not read
+    static final int MAX_FRAME_LENGTH = 16 << 20;
+
+    record Frame(byte kind, byte[] data) {}
+
+    /** The frames of one side of a connection, writes may come from several threads */
+    static final class Connection implements AutoCloseable {
+        private final SocketChannel channel;
+        private final DataInputStream in;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+            this.in = new DataInputStream(Channels.newInputStream(channel));
+        }
+
+        /** The next frame, null at the end of the connection */
+        Frame read() throws IOException {
+            byte kind;
+            try {
+                kind = in.readByte();
+            } catch(EOFException e) {
+                return null;
+            }
+            int length = in.readInt();
+            if(length < 0 || length > MAX_FRAME_LENGTH) {
+                throw new IOException("Invalid frame length " + length);
+            }
+            var data = new byte[length];
+            in.readFully(data);
+            return new Frame(kind, data);
+        }
+
+        synchronized void write(byte kind, byte[] data, int offset, int length) throws IOException {
+            if(length > MAX_FRAME_LENGTH) {
+                throw new IOException("Frame too long: " + length);
+            }
+            var buffer = ByteBuffer.allocate(5 + length);
+            buffer.put(kind).putInt(length).put(data, offset, length).flip();
+            while(buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        void write(byte kind, byte[] data) throws IOException {
+            write(kind, data, 0, data.length);
+        }
+
+        /** A stream sending each write as a frame of the kind */
+        OutputStream output(byte kind) {
+            return new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    Connection.this.write(kind, new byte[] {(byte) b});
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    for(int end = off + len; off < end; off += MAX_FRAME_LENGTH) {
+                        Connection.this.write(kind, b, off, Math.min(end - off, MAX_FRAME_LENGTH));
+                    }
+                }
+            };
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    // Ends a request from panic without ending the server
+    private static final class Exit extends Error {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        Exit(int status) {
+            super(null, null, false, false);
+            this.status = status;
+        }
+    }
+
+    // Of the thread running a request, deeply recursive scripts need more than the default
+    private static final long STACK_SIZE = 512L << 20;
+
+    private final Path socket;
+    private final ModuleCache cache;
+
+    ScriptServer(Path socket, ModuleCache cache) {
+        this.socket = socket;
+        this.cache = cache;
+    }
+
+    /** Serves requests until the process is ended */
+    void serve() throws IOException {
+        if(Files.exists(socket, LinkOption.NOFOLLOW_LINKS)) {
+            if(!isSocket(socket)) {
+                throw new IOException(socket + " existiert und ist kein Socket");
+            }
+            Files.delete(socket); // left over from a server that was killed
+        }
+        try(var server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            bindPrivately(server);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    Files.deleteIfExists(socket);
+                } catch(IOException e) {
+                    // the process ends anyway
+                }
+            }));
+            System.err.println("Warte auf Anfragen an " + socket);
+            while(true) {
+                var channel = server.accept();
+                new Thread(null, () -> serve(channel), "script-server-request", STACK_SIZE).start();
+            }
+        }
+    }
+
+    private static boolean isSocket(Path path) throws IOException {
+        try {
+            int mode = (Integer) Files.getAttribute(path, "unix:mode", LinkOption.NOFOLLOW_LINKS);
+            return (mode & 0170000) == 0140000; // S_IFSOCK
+        } catch(UnsupportedOperationException e) { // no unix attributes, sockets are other files there
+            return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS).isOther();
+        }
+    }
+
+    // Other users may not connect and run programs as the user of the server. The socket is bound
+    // in a directory only the owner can enter, made accessible to the owner only and then moved
+    // to its path, so it is never reachable with the permissions of the umask
+    private void bindPrivately(ServerSocketChannel server) throws IOException {
+        var parent = socket.toAbsolutePath().getParent();
+        if(!parent.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            server.bind(UnixDomainSocketAddress.of(socket));
+            return;
+        }
+        var directory = Files.createTempDirectory(parent, ".mylang-server",
+            PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        var bound = directory.resolve("socket");
+        try {
+            server.bind(UnixDomainSocketAddress.of(bound));
+            Files.setPosixFilePermissions(bound, PosixFilePermissions.fromString("rw-------"));
+            Files.move(bound, socket, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(bound);
+            Files.delete(directory);
+        }
+    }
+
+    private void serve(SocketChannel channel) {
+        try(var connection = new Connection(channel)) {
+            handle(connection);
+        } catch(IOException e) {
+            System.err.println("Anfrage abgebrochen: " + e.getMessage());
+        }
+    }
+
+    private void handle(Connection connection) throws IOException {
+        var request = connection.read();
+        if(request == null || request.kind() != RUN) {
+            return;
+        }
+        var data = new DataInputStream(new ByteArrayInputStream(request.data()));
+        var directory = Path.of(data.readUTF());
+        var engine = ExecutionEngine.valueOf(data.readUTF());
+        // Absolute, so files of clients in different directories are never taken for each other
+        var file = directory.resolve(data.readUTF()).normalize().toString();
+        var args = new ArrayList<String>();
+        for(int i = data.readInt(); i > 0; i--) {
+            args.add(data.readUTF());
+        }
+
+        var stdout = new PrintStream(new BufferedOutputStream(connection.output(STDOUT)), false);
+        var stderr = new PrintStream(new BufferedOutputStream(connection.output(STDERR)), true);
+        var stdin = new PipedInputStream(8192);
+        var pipe = new PipedOutputStream(stdin);
+        var pump = new Thread(() -> pumpInput(connection, pipe), "script-server-stdin");
+        pump.setDaemon(true);
+        pump.start();
+
+        var input = new InputStream() { // prompts must reach the client before it answers
+            @Override
+            public int read() throws IOException {
+                stdout.flush();
+                return stdin.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                stdout.flush();
+                return stdin.read(b, off, len);
+            }
+        };
+        int status = 0;
+        try {
+            var runner = new MyLangRunner(file, args, engine);
+            runner.out = stdout;
+            runner.err = stderr;
+            runner.in = new Scanner(input);
+            runner.cache = cache;
+            runner.baseDirectory = directory;
+            runner.exit = code -> { throw new Exit(code); };
+            runner.run();
+        } catch(Exit e) {
+            status = e.status;
+        } catch(Throwable e) { // also a StackOverflowError of the script, which only ends its request
+            e.printStackTrace(stderr);
+            status = 1;
+        } finally {
+            stdout.flush();
+            stderr.flush();
+            stdin.close();
+        }
+        var exit = new ByteArrayOutputStream();
+        new DataOutputStream(exit).writeInt(status);
+        connection.write(EXIT, exit.toByteArray());
+    }
+
+    private static void pumpInput(Connection connection, PipedOutputStream pipe) {
+        try(pipe) {
+            Frame frame;
+            while((frame = connection.read()) != null && frame.kind() == STDIN && frame.data().length > 0) {
+                pipe.write(frame.data());
+                pipe.flush();
+            }
+        } catch(IOException e) {
+            // the request ended, or its client
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package MyLang;
+
+import MyLang.MyLangClosureCompiler.CompiledExpression;
+
+/**
+ * Binary operations of the closure compiler that specialize themselves on the operand
+ * types they observe. The first evaluation picks a fast path (only doubles, only a string
+ * on the left); when an operand of another type arrives later the node falls back to the
+ * generic path for good. The generic path behaves exactly like
+ * {@link MyLangInterpreter#visitBinaryOperation}.
+ *
+ * Operators that only accept numbers evaluate their operands with executeDouble once they
+ * have seen doubles, anything else would fail in the generic path as well.
+ */
+abstract class SpecializingOperation implements CompiledExpression {
+
+    enum State { UNINITIALIZED, DOUBLE, STRING, GENERIC }
+
+    final CompiledExpression left;
+    final CompiledExpression right;
+    State state = State.UNINITIALIZED;
+
+    SpecializingOperation(CompiledExpression left, CompiledExpression right) {
+        this.left = left;
+        this.right = right;
+    }
+
+    /** Returns the node for type, or null if the operator is not specialized */
+    static CompiledExpression create(TokenType type, CompiledExpression left, CompiledExpression right) {
+        return switch(type) {
+            case PLUS -> new Plus(left, right);
+            case MINUS -> new Minus(left, right);
+            case STAR -> new Times(left, right);
+            case SLASH -> new Divide(left, right);
+            case PERCENT -> new Modulo(left, right);
+            case EXPO -> new Power(left, right);
+            case GREATER -> new Greater(left, right);
+            case GREATER_EQUAL -> new GreaterEqual(left, right);
+            case LESS -> new Less(left, right);
+            case LESS_EQUAL -> new LessEqual(left, right);
+            case EQUAL -> new Equal(left, right);
+            case NOT_EQUAL -> new NotEqual(left, right);
+            default -> null;
+        };
+    }
+
+    /** Chooses the state for the first operands, later calls generalize to GENERIC */
+    final void specialize(Object l, Object r, boolean allowString) {
+        if(state == State.GENERIC) {
+            return;
+        } else if(state == State.UNINITIALIZED && l instanceof Double && r instanceof Double) {
+            state = State.DOUBLE;
+        } else if(state == State.UNINITIALIZED && allowString && (l instanceof String || l instanceof Rope)) {
+            state = State.STRING;
+        } else {
+            state = State.GENERIC;
+        }
+    }
+
+    static final class Plus extends SpecializingOperation {
+        private final boolean numeric;
+
+        Plus(CompiledExpression left, CompiledExpression right) {
+            super(left, right);
+            this.numeric = left.producesDouble() && right.producesDouble();
+        }
+
+        @Override
+        public Object execute(MyLangInterpreter i) {
+            if(numeric) {
+                return left.executeDouble(i) + right.executeDouble(i);
+            }
+            var l = left.execute(i);
+            var r = right.execute(i);
+            if(state == State.DOUBLE) {
+                if(l instanceof Double a && r instanceof Double b) {
+                    return a + b;
+                }
+            } else if(state == State.STRING) {
+                if(l instanceof String s) {
+                    return Rope.concat(s, MyLangInterpreter.stringify(r));
+                } else if(l instanceof Rope rope) {
+                    return Rope.concat(rope, MyLangInterpreter.stringify(r));
+                }
+            }
+            specialize(l, r, true);
+            return i.plus(l, r);
+        }
+
+        // Only used where the typechecker knows the sum is a number, so both operands are numbers
+        @Override
+        public double executeDouble(MyLangInterpreter i) {
+            return left.executeDouble(i) + right.executeDouble(i);
+        }
+
+        @Override
+        public boolean producesDouble() {
+            return numeric;
+        }
+    }
+
+    static final class Minus extends SpecializingOperation {
+        Minus(CompiledExpression left, CompiledExpression right) {
+            super(left, right);
+        }
+
+        @Override
+        public Object execute(MyLangInterpreter i) {
+            if(state == State.DOUBLE) {
+                return left.executeDouble(i) - right.executeDouble(i);
+            }
+            var l = left.execute(i);
+            var r = right.execute(i);
+            specialize(l, r, false);
+            return (double) l - (double) r;
+        }
+
+        @Override
+        public double executeDouble(MyLangInterpreter i) {
+            return left.executeDouble(i) - right.executeDouble(i);
+        }
+
+        @Override
+        public boolean producesDouble() {
+            return true;
+        }
+    }
+
+    static final class Times extends SpecializingOperation {
+        Times(CompiledExpression left, CompiledExpression right) {
+            super(left, right);
+        }
+
+        @Override
+        public Object execute(MyLangInterpreter i) {
+            if(state == State.DOUBLE) {
+                return left.executeDouble(i) * right.executeDouble(i);
+            }
+            var l = left.execute(i);
+            var r = right.execute(i);
+            specialize(l, r, false);
+            if(l instanceof Double l1 && r instanceof Double l2) {
+                return l1 * l2;
+            }
+            throw new InterpreterError("Unsupported operands for *: "+l+", "+r, i.callStack);
+        }
+
+        @Override
+        public double executeDouble(MyLangInterpreter i) {
+            return left.executeDouble(i) * right.executeDouble(i);
+        }
+
+        @Override
+        public boolean producesDouble() {
+            return true;
+        }
+    }
+
+    static final class Divide extends SpecializingOperation {
+        Divide(CompiledExpression left, CompiledExpression right) {
+            super(left, right);
+        }
+
+        @Override
+        public Object execute(MyLangInterpreter i) {
+            if(state == State.DOUBLE) {
+                return left.executeDouble(i) / right.executeDouble(i);
+            }
+            var l = left.execute(i);
+            var r = right.execute(i);
+            specialize(l, r, false);
+            return (double) l / (double) r;
+        }
+
+        @Override
+        public double executeDouble(MyLangInterpreter i) {
+            return left.executeDouble(i) / right.executeDouble(i);
+        }
+
+        @Override
+        public boolean producesDouble() {
+            return true;
+        }
+    }
+
+    static final class Modulo extends SpecializingOperation {
+        Modulo(CompiledExpression left, CompiledExpression right) {
+            super(left, right);
+        }
+
+        @Override
+        public Object execute(MyLangInterpreter i) {
+            if(state == State.DOUBLE) {
+                return left.executeDouble(i) % right.executeDouble(i);
+            }
+            var l = left.execute(i);
+            var r = right.execute(i);
+            specialize(l, r, false);
+            return (double) l % (double) r;
+        }
+
+        @Override
+        public double executeDouble(MyLangInterpreter i) {
+            return left.executeDouble(i) % right.executeDouble(i);
+        }
+
+        @Override
+        public boolean producesDouble() {
+            return true;
+        }
+    }
+
+    static final class Power extends SpecializingOperation {
+        Power(CompiledExpression left, CompiledExpression right) {
+            super(left, right);
+        }
+
+        @Override
+        public Object execute(MyLangInterpreter i) {
+            if(state == State.DOUBLE) {
+                return Math.pow(left.executeDouble(i), right.executeDouble(i));
+            }
+            var l = left.execute(i);
+            var r = right.execute(i);
+            specialize(l, r, false);
+            return Math.pow((double) l, (double) r);
+        }
+
+        @Override
+        public double executeDouble(MyLangInterpreter i) {
+            return Math.pow(left.executeDouble(i), right.executeDouble(i));
+        }
+
+        @Override
+        public boolean producesDouble() {
+            return true;
+        }
+    }
+
+    static final class Greater extends SpecializingOperation {
+        Greater(CompiledExpression left, CompiledExpression right) {
+            super(left, right);
+        }
+
+        @Override
+        public Object execute(MyLangInterpreter i) {
+            if(state == State.DOUBLE) {
+                return left.executeDouble(i) > right.executeDouble(i);
+            }
+            var l = left.execute(i);
+            var r = right.execute(i);
+            specialize(l, r, false);
+            return (double) l > (double) r;
+        }
+    }
+
+    static final class GreaterEqual extends SpecializingOperation {
+        GreaterEqual(CompiledExpression left, CompiledExpression right) {
+            super(left, right);
+        }
+
+        @Override
+        public Object execute(MyLangInterpreter i) {
+            if(state == State.DOUBLE) {
+                return left.executeDouble(i) >= right.executeDouble(i);
+            }
+            var l = left.execute(i);
+            var r = right.execute(i);
+            specialize(l, r, false);
+            return (double) l >= (double) r;
+        }
+    }
+
+    static final class Less extends SpecializingOperation {
+        Less(CompiledExpression left, CompiledExpression right) {
+            super(left, right);
+        }
+
+        @Override
+        public Object execute(MyLangInterpreter i) {
+            if(state == State.DOUBLE) {
+                return left.executeDouble(i) < right.executeDouble(i);
+            }
+            var l = left.execute(i);
+            var r = right.execute(i);
+            specialize(l, r, false);
+            return (double) l < (double) r;
+        }
+    }
+
+    static final class LessEqual extends SpecializingOperation {
+        LessEqual(CompiledExpression left, CompiledExpression right) {
+            super(left, right);
+        }
+
+        @Override
+        public Object execute(MyLangInterpreter i) {
+            if(state == State.DOUBLE) {
+                return left.executeDouble(i) <= right.executeDouble(i);
+            }
+            var l = left.execute(i);
+            var r = right.execute(i);
+            specialize(l, r, false);
+            return (double) l <= (double) r;
+        }
+    }
+
+    static final class Equal extends SpecializingOperation {
+        private final boolean numeric;
+
+        Equal(CompiledExpression left, CompiledExpression right) {
+            super(left, right);
+            this.numeric = left.producesDouble() && right.producesDouble();
+        }
+
+        @Override
+        public Object execute(MyLangInterpreter i) {
+            if(numeric) {
+                return Double.doubleToLongBits(left.executeDouble(i)) == Double.doubleToLongBits(right.executeDouble(i));
+            }
+            var l = left.execute(i);
+            var r = right.execute(i);
+            if(state == State.DOUBLE) {
+                if(l instanceof Double a && r instanceof Double b) {
+                    return Double.doubleToLongBits(a) == Double.doubleToLongBits(b);
+                }
+            } else if(state == State.STRING) {
+                if(l instanceof String s && !(r instanceof Rope)) {
+                    return s.equals(r);
+                }
+            }
+            specialize(l, r, true);
+            return MyLangInterpreter.isEqual(l, r);
+        }
+    }
+
+    static final class NotEqual extends SpecializingOperation {
+        private final boolean numeric;
+
+        NotEqual(CompiledExpression left, CompiledExpression right) {
+            super(left, right);
+            this.numeric = left.producesDouble() && right.producesDouble();
+        }
+
+        @Override
+        public Object execute(MyLangInterpreter i) {
+            if(numeric) {
+                return Double.doubleToLongBits(left.executeDouble(i)) != Double.doubleToLongBits(right.executeDouble(i));
+            }
+            var l = left.execute(i);
+            var r = right.execute(i);
+            if(state == State.DOUBLE) {
+                if(l instanceof Double a && r instanceof Double b) {
+                    return Double.doubleToLongBits(a) != Double.doubleToLongBits(b);
+                }
+            } else if(state == State.STRING) {
+                if(l instanceof String s && !(r instanceof Rope)) {
+                    return !s.equals(r);
+                }
+            }
+            specialize(l, r, true);
+            return !MyLangInterpreter.isEqual(l, r);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package MyLang;
+
+import MyLang.MyLangAST.FunctionCall;
+
+/**
+ * A call in tail position that has not been made yet. Instead of calling, the call site
+ * opens the frame of the callee and returns this object as its value; the MyLangFunction
+ * whose body produced it makes the call after its own body has finished, so tail calls
+ * run in constant stack space. Every interpreter reuses a single instance.
+ */
+final class TailCall {
+    MyLangFunction function;
+    MyLangEnviroment frame;
+    FunctionCall site;
+    Object receiver;
+    MyLangEnviroment callerEnv;
+
+    TailCall to(MyLangFunction function, MyLangEnviroment frame, FunctionCall site, Object receiver, MyLangEnviroment callerEnv) {
+        this.function = function;
+        this.frame = frame;
+        this.site = site;
+        this.receiver = receiver;
+        this.callerEnv = callerEnv;
+        return this;
+    }
+}
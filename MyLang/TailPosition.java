@@ -0,0 +1,14 @@
+package MyLang;
+
+/**
+ * Filled in by {@link MyLangResolver}: whether the value of a call is the value of the
+ * function containing it, so the call can be made after that function has finished.
+ */
+public final class TailPosition {
+    public boolean isTail = false;
+
+    @Override
+    public String toString() {
+        return isTail ? "tail" : "";
+    }
+}
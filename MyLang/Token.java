@@ -1,7 +1,85 @@
 package MyLang;
 
-public record Token(TokenType type, String lexeme, int line) {
+import java.util.Objects;
+
+/**
+ * A token of a source. The scanner gives its tokens the offsets of their text in the source,
+ * [start, end), the text between the quotes for string literals. Their lexeme is only made
+ * when it is asked for, from the {@link MyLangScanner.SourceText} of the source; the parser
+ * looks at the type of most tokens only. Tokens made elsewhere are given their lexeme.
+ */
+public final class Token {
+    private final TokenType type;
+    private final int start;
+    private final int end;
+    private final int line;
+    private final MyLangScanner.SourceText text;
+    private String lexeme;
+
+    public Token(TokenType type, String lexeme, int line) {
+        this.type = type;
+        this.start = 0;
+        this.end = lexeme.length();
+        this.line = line;
+        this.text = null;
+        this.lexeme = lexeme;
+    }
+
+    Token(TokenType type, MyLangScanner.SourceText text, int start, int end, int line) {
+        this.type = type;
+        this.start = start;
+        this.end = end;
+        this.line = line;
+        this.text = text;
+    }
+
+    // A keyword or operator of the scanner, or a token read from the module cache
+    Token(TokenType type, String lexeme, int start, int end, int line) {
+        this.type = type;
+        this.start = start;
+        this.end = end;
+        this.line = line;
+        this.text = null;
+        this.lexeme = lexeme;
+    }
+
+    public TokenType type() {
+        return type;
+    }
+
+    public String lexeme() {
+        var lexeme = this.lexeme;
+        if(lexeme == null) {
+            lexeme = text.lexeme(type, start, end);
+            this.lexeme = lexeme;
+        }
+        return lexeme;
+    }
+
+    public int line() {
+        return line;
+    }
+
+    public int start() {
+        return start;
+    }
+
+    public int end() {
+        return end;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Token other && type == other.type && line == other.line && lexeme().equals(other.lexeme());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, lexeme(), line);
+    }
+
+    @Override
     public String toString() {
-        return "| "+line+" "+type+" = \"" + lexeme + "\"";
+        return "| "+line+" "+type+" = \"" + lexeme() + "\"";
     }
 }
@@ -23,7 +23,7 @@ public enum TokenType {
     MODULE, IMPORT, EXPORT, LOCAL,
 
     // Type Keywords
-    CLASS, TYPE_FUN, NUMBER, BOOLEAN, STRING, VOID, TYPE, ENUM,
+    CLASS, NATIVE, TYPE_FUN, NUMBER, BOOLEAN, STRING, VOID, TYPE, ENUM,
 
 
     EOF, ERROR;
@@ -33,6 +33,7 @@ public enum TokenType {
                 this == VAL || 
                 this == FUN || 
                 this == CLASS || 
+                this == NATIVE ||
                 this == MODULE || 
                 this == IMPORT || 
                 this == EXPORT || 
@@ -7,7 +7,7 @@ import static MyLang.MyLangAST.*;
 
 public class TypeEnv implements TypeRepVisitor<TypeRep> {
     // Typechecker der normalisierung will
-    private Typechecker tc = null;
+    private transient Typechecker tc = null;
     private Map<String, TypeRep> values = new HashMap<>();
     private Set<String> exportedValues = new HashSet<>();
     private Map<String, TypeRep> types = new HashMap<>();
@@ -26,14 +26,14 @@ public class TypeEnv implements TypeRepVisitor<TypeRep> {
         return outer;
     }
 
+    // Also called on the environments of imported modules, which other typecheckers may read at the same time
     public TypeRep getTypeOfValue(String name, Typechecker t) {
-        this.tc = t;
         if(values.containsKey(name)) {
             return values.get(name);
         } else if(outer != null) {
-            return outer.getTypeOfValue(name, tc);
+            return outer.getTypeOfValue(name, t);
         } else {
-            tc.error("Tried to get type of non-existent value '"+name+"'");
+            t.error("Tried to get type of non-existent value '"+name+"'");
             return Typechecker.unknown();
         }
     }
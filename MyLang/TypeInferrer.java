@@ -68,7 +68,7 @@ public class TypeInferrer
             }
             case MINUS, STAR, SLASH, PERCENT, EXPO -> Typechecker.numberType;
             case LESS, LESS_EQUAL, EQUAL, GREATER_EQUAL, GREATER, IN -> Typechecker.booleanType;
-            default -> {System.out.println("Invalid binary Operator"); yield Typechecker.unknown();}
+            default -> {tc.runner.out.println("Invalid binary Operator"); yield Typechecker.unknown();}
         };
     }
     @Override
@@ -76,7 +76,7 @@ public class TypeInferrer
         return switch(u.operator().type()) {
             case BANG -> Typechecker.booleanType;
             case PLUS, MINUS -> Typechecker.numberType;
-            default -> {System.out.println("Invalid unary Operator");yield Typechecker.unknown();}
+            default -> {tc.runner.out.println("Invalid unary Operator");yield Typechecker.unknown();}
         };
     }
 
@@ -326,7 +326,7 @@ public class TypeInferrer
                 return c.accessors().get(p.name().lexeme());
             }
         } else {
-            System.out.println(objectType);
+            tc.runner.out.println(objectType);
         }
         return Typechecker.unknown();
     }
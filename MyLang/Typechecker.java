@@ -32,6 +32,8 @@ public class Typechecker implements
 
     private boolean inConstructor = false;
     private boolean inClass = false;
+    // Names of the builtin classes Map and Set, compared by identity
+    private final List<Token> collectionClassNames = new ArrayList<>();
 
     public Typechecker(MyLangRunner runner) {
         this.runner = runner;
@@ -52,9 +54,11 @@ public class Typechecker implements
 
         runner.typecheckedFiles.put(name, new MyLangAST.Module(tc.currentFileName, tc.env));
         if(tc.hadError) {
-            System.out.println("Following errors occured:");
-            for(var error: tc.errors) {
-                System.out.println(error);
+            synchronized(runner.out) { // modules are typechecked in parallel
+                runner.out.println("Following errors occured:");
+                for(var error: tc.errors) {
+                    runner.out.println(error);
+                }
             }
             return false;
         } else {
@@ -66,6 +70,48 @@ public class Typechecker implements
         for(var builtin: MyLangInterpreter.builtins) {
             declareType(builtin.getName(), builtin.type, false);
         }
+        declareCollectionClasses();
+    }
+
+    // Map(K, V) and Set(T) are generic classes whose objects are MyLangMap and MyLangSet
+    private void declareCollectionClasses() {
+        var key = typeParameter("K");
+        var value = typeParameter("V");
+        declareBuiltinClass("Map", List.of(key, value), Map.of(
+            "get", methodType(List.of(key), value),
+            "getOr", methodType(List.of(key, value), value),
+            "put", methodType(List.of(key, value), voidType),
+            "contains", methodType(List.of(key), booleanType),
+            "remove", methodType(List.of(key), voidType),
+            "keys", methodType(List.of(), new ListOfRep(key)),
+            "values", methodType(List.of(), new ListOfRep(value)),
+            "length", numberType));
+        var element = typeParameter("T");
+        declareBuiltinClass("Set", List.of(element), Map.of(
+            "add", methodType(List.of(element), voidType),
+            "contains", methodType(List.of(element), booleanType),
+            "remove", methodType(List.of(element), voidType),
+            "elements", methodType(List.of(), new ListOfRep(element)),
+            "length", numberType));
+    }
+
+    private TypeVar typeParameter(String name) {
+        return new TypeVar(new Token(TokenType.IDENTIFIER, name, 0), env);
+    }
+
+    private TypeRep methodType(List<TypeRep> parameters, TypeRep returnType) {
+        return new FunctionTypeRep(parameters, List.of(), Map.of(), Map.of(), null, returnType, env);
+    }
+
+    private void declareBuiltinClass(String name, List<TypeRep> params, Map<String, TypeRep> accessors) {
+        var className = new Token(TokenType.IDENTIFIER, name, 0);
+        collectionClassNames.add(className);
+        var typeParams = params.stream().map(param -> ((TypeVar) param).name()).toList();
+        var constructor = methodType(List.of(), new TypeApplication(new TypeIdentifierRep(className, env), params));
+        Map<String, Boolean> readability = new HashMap<>();
+        accessors.keySet().forEach(accessor -> readability.put(accessor, false));
+        declareNewType(name, new TypeFunction(typeParams, new ClassType(className, accessors, readability, constructor, env), env));
+        declareType(name, new GenericType(new TypeFunction(typeParams, constructor, env)), false);
     }
 
     private void gatherImports(List<Import> imports) {
@@ -92,7 +138,7 @@ public class Typechecker implements
         checkTarget = target;
         if(checkTarget instanceof UnknownType) {
             for(var err : errors) {
-                System.out.println(err);
+                runner.out.println(err);
             }
             throw new RuntimeException("Tried checking of unknown type: "+p.prettyPrint(tested)+" or: "+tested);
         }
@@ -238,7 +284,20 @@ public class Typechecker implements
                 env.exportValue(c.Name().lexeme());
                 env.exportType(c.Name().lexeme());
             }
-        } else if(decl instanceof TypeDefDeclaration t) {
+        } else if(decl instanceof NativeFunctionDeclaration n) {
+            declareType(n.Name().lexeme(), nativeFunctionTypeOf(n), false);
+            if(n.export()) {
+                env.exportValue(n.Name().lexeme());
+            }
+        } else if(decl instanceof NativeClassDeclaration n) {
+            declareNativeClass(n);
+            if(n.export()) {
+                if(n.constructor() != null) {
+                    env.exportValue(n.Name().lexeme());
+                }
+                env.exportType(n.Name().lexeme());
+            }
+} else if(decl instanceof TypeDefDeclaration t) {
             var definition = typeDefType(t.args(), t.definition());
             declareNewType(t.Name().lexeme(), definition);
             if(t.export()) {
@@ -389,6 +448,54 @@ public class Typechecker implements
         }
     }
 
+    TypeRep nativeFunctionTypeOf(NativeFunctionDeclaration n) {
+        openScope();
+        for(var typeParam : n.typeParams()) {
+            declareNewType(typeParam.lexeme(), new TypeVar(typeParam, env));
+        }
+        var type = tcomp.compileType(n.type());
+        closeScope();
+        if(!n.typeParams().isEmpty()) {
+            return new GenericType(new TypeFunction(n.typeParams(), type, env));
+        }
+        return type;
+    }
+
+    // Like declareBuiltinClass: the methods are accessors that cannot be assigned, the class is
+    // only a value if it has a constructor
+    private void declareNativeClass(NativeClassDeclaration n) {
+        openScope();
+        TypeRep retType = new TypeIdentifierRep(n.Name(), env);
+        if(n.args() != null) {
+            for(var param : n.args()) {
+                declareNewType(param.lexeme(), new TypeVar(param, env));
+            }
+            retType = new TypeApplication(retType,
+                n.args().stream()
+                    .map(a -> (TypeRep) new TypeVar(a, env))
+                    .toList());
+        }
+        var constructor = methodType(
+            n.constructor() == null ? List.of() : n.constructor().stream().map(tcomp::compileType).toList(),
+            retType);
+        Map<String, TypeRep> accessors = new HashMap<>();
+        Map<String, Boolean> readability = new HashMap<>();
+        for(var method : n.methods().entrySet()) {
+            accessors.put(method.getKey(), tcomp.compileType(method.getValue()));
+            readability.put(method.getKey(), false);
+        }
+        TypeRep classType = new ClassType(n.Name(), accessors, readability, constructor, env);
+        closeScope();
+        if(n.args() != null) {
+            classType = new TypeFunction(n.args(), classType, env);
+            constructor = new GenericType(new TypeFunction(n.args(), constructor, env));
+        }
+        declareNewType(n.Name().lexeme(), classType);
+        if(n.constructor() != null) {
+            declareType(n.Name().lexeme(), constructor, false);
+        }
+    }
+
     TypeRep classTypeOf(ClassDeclaration c) {
         if(c.args() != null) {
             openScope();
@@ -577,6 +684,16 @@ public class Typechecker implements
         return null;
     }
 
+    @Override
+    public Void visitNativeFunctionDeclaration(NativeFunctionDeclaration value) {
+        return null;
+    }
+
+    @Override
+    public Void visitNativeClassDeclaration(NativeClassDeclaration value) {
+        return null;
+    }
+
     @Override
     public Void visitEmptyDeclaration(EmptyDeclaration value) {
         return null;
@@ -601,12 +718,12 @@ public class Typechecker implements
         from = env.normalize(from, this);
         if(to.equals(unknown()) || from.equals(unknown())) {
             hadError = true;
-            System.out.println("to: "+to);
-            System.out.println("to before: "+toBefore);
-            System.out.println("from: "+from);
-            System.out.println("from before: "+fromBefore);
+            runner.out.println("to: "+to);
+            runner.out.println("to before: "+toBefore);
+            runner.out.println("from: "+from);
+            runner.out.println("from before: "+fromBefore);
             for(var error : errors) {
-                System.out.println(error);
+                runner.out.println(error);
             }
             throw new RuntimeException("Had unknown" + (to.equals(unknown()) ? " to" : " from") + "in expression" + expr);
         }
@@ -737,6 +854,12 @@ public class Typechecker implements
                 hasType(booleanType, p.prettyPrint(b));
             }
             case IN -> {
+                var hashedElementType = hashedElementType(b.right());
+                if(hashedElementType != null) {
+                    checkType(hashedElementType, b.left());
+                    hasType(booleanType, p.prettyPrint(b));
+                    return null;
+                }
                 TypeRep elementType = inferType(b.left());
                 checkType(new ListOfRep(elementType), b.right());
 
@@ -824,7 +947,7 @@ public class Typechecker implements
             }
         }
         if(t.returnType() instanceof UnknownType) {
-            System.out.println(t);
+            runner.out.println(t);
         }
 
         hasType(t.returnType(), p.prettyPrint(c));
@@ -1003,6 +1126,23 @@ public class Typechecker implements
         return null;
     }
 
+    /**
+     * The type of the keys of the Map or the elements of the Set collection evaluates to, null
+     * otherwise. Only names, properties and calls can hold those, list literals and the like are
+     * left to be checked against the list type without inferring them first.
+     */
+    private TypeRep hashedElementType(Expression collection) {
+        if(!(collection instanceof Identifier || collection instanceof PropertyExpression || collection instanceof FunctionCall)) {
+            return null;
+        }
+        if(env.normalize(ti.infer(collection), this) instanceof ClassType c
+                && collectionClassNames.stream().anyMatch(name -> name == c.name())) {
+            checkType(c, collection);
+            return ((FunctionTypeRep) c.accessors().get("contains")).parameters().get(0);
+        }
+        return null;
+    }
+
     TypeRep pushType(ListOfRep l) {
         return new FunctionTypeRep(
                 List.of(l.elements()),
@@ -0,0 +1,23 @@
+package MyLang;
+
+/**
+ * Where a variable lives at runtime, filled in by {@link MyLangResolver}.
+ * Locals are addressed by the number of frames to walk outwards and the index inside that frame,
+ * unresolved names are module-level variables and are looked up by name.
+ * Locals that closures capture and that are assigned after a closure was created hold a
+ * {@link Cell} shared by the frame and the copies of it made for the closures.
+ */
+public final class VariableSlot {
+    public int depth = -1;
+    public int index = -1;
+    public boolean isCell = false;
+
+    public boolean isGlobal() {
+        return depth < 0;
+    }
+
+    @Override
+    public String toString() {
+        return isGlobal() ? "global" : "("+depth+", "+index+(isCell ? ", cell" : "")+")";
+    }
+}
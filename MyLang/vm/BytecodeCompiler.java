@@ -0,0 +1,901 @@
+package MyLang.vm;
+
+import static MyLang.MyLangAST.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import MyLang.FrameLayout;
+import MyLang.MethodCache;
+import MyLang.MyLangCallable;
+import MyLang.MyLangFunction;
+import MyLang.ParameterInformation;
+import MyLang.PropertyCache;
+import MyLang.TokenType;
+
+/**
+ * Lowers the bodies of resolved functions into register bytecode. Functions using
+ * something the VM doesn't support (scopes with frames of their own, local classes,
+ * named or spread arguments, ...) are left to the tree-walking interpreter.
+ */
+public final class BytecodeCompiler {
+
+    /** Everything needed to create a function at runtime, stored in the constant pool */
+    record FunctionTemplate(String name, ParameterInformation parameters, Expression body, FrameLayout layout) {}
+
+    private static final class Unsupported extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        Unsupported() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static final Object UNSUPPORTED = new Object();
+    private final Map<Expression, Object> compiled = new IdentityHashMap<>();
+
+    /** Returns a function running on the VM if its body can be compiled, the function itself otherwise */
+    public MyLangCallable wrap(MyLangFunction function) {
+        var chunk = compile(function);
+        return chunk == null ? function : new VMFunction(function, chunk, this);
+    }
+
+    private Chunk compile(MyLangFunction function) {
+        var result = compiled.get(function.body());
+        if(result == null) {
+            try {
+                result = new FunctionCompiler(function.layout().size, function.fileName()).compileFunction(function);
+            } catch(Unsupported e) {
+                result = UNSUPPORTED;
+            }
+            compiled.put(function.body(), result);
+        }
+        return result == UNSUPPORTED ? null : (Chunk) result;
+    }
+
+    private static boolean isSimple(Expression e) {
+        if(e instanceof NumericLiteral || e instanceof StringLiteral || e instanceof BooleanLiteral
+                || e instanceof NullLiteral || e instanceof Identifier || e instanceof ThisExpression) {
+            return true;
+        } else if(e instanceof BinaryOperation b) {
+            return isSimple(b.left()) && isSimple(b.right());
+        } else if(e instanceof UnaryOperation u) {
+            return isSimple(u.operand());
+        }
+        return false;
+    }
+
+    private static int binaryOpcode(TokenType type) {
+        return switch(type) {
+            case PLUS -> Opcode.ADD;
+            case MINUS -> Opcode.SUB;
+            case STAR -> Opcode.MUL;
+            case SLASH -> Opcode.DIV;
+            case PERCENT -> Opcode.MOD;
+            case EXPO -> Opcode.POW;
+            case EQUAL -> Opcode.EQ;
+            case NOT_EQUAL -> Opcode.NE;
+            case GREATER -> Opcode.GT;
+            case GREATER_EQUAL -> Opcode.GE;
+            case LESS -> Opcode.LT;
+            case LESS_EQUAL -> Opcode.LE;
+            case XOR -> Opcode.XOR;
+            case IN -> Opcode.IN;
+            default -> throw new Unsupported();
+        };
+    }
+
+    /** Compiles a single function. Registers below localCount are the slots assigned by the resolver. */
+    private static final class FunctionCompiler implements ExpressionVisitor<Void>, DeclarationVisitor<Void>,
+            StatementVisitor<Void>, PatternVisitor<Void>, SetterVisitor<Void>, ParameterVisitor<Void> {
+
+        private final String fileName;
+        private int[] code = new int[64];
+        private int length = 0;
+        private final List<Object> constants = new ArrayList<>();
+        private final Map<Object, Integer> constantIndices = new HashMap<>();
+        private final List<FunctionCall> callSites = new ArrayList<>();
+        private final List<PropertyCache> propertyCaches = new ArrayList<>();
+        private final List<MethodCache> methodCaches = new ArrayList<>();
+        private int nextTemp;
+        private int registerCount;
+
+        // "Parameters" of the visitors
+        private int target;
+        private int patternValue;
+        private List<Integer> failJumps;
+        private int setterValue;
+        private int listRegister;
+
+        FunctionCompiler(int localCount, String fileName) {
+            this.nextTemp = localCount;
+            this.registerCount = localCount;
+            this.fileName = fileName;
+        }
+
+        Chunk compileFunction(MyLangFunction function) {
+            for(int parameter : function.layout().cellParameters) {
+                emit(Opcode.NEW_CELL, parameter);
+            }
+            int result = temp();
+            compileTo(function.body(), result);
+            emit(Opcode.RETURN, result);
+            boolean direct = function.optionals().isEmpty() && function.varargsName() == null
+                && function.layout().namedSlots.isEmpty();
+            return new Chunk(
+                    function.name(), fileName,
+                    Arrays.copyOf(code, length),
+                    constants.toArray(),
+                    registerCount,
+                    direct ? function.parameters().size() : -1,
+                    callSites.toArray(new FunctionCall[0]),
+                    propertyCaches.toArray(new PropertyCache[0]),
+                    methodCaches.toArray(new MethodCache[0]));
+        }
+
+        private void emit(int... words) {
+            if(length + words.length > code.length) {
+                code = Arrays.copyOf(code, Math.max(code.length * 2, length + words.length));
+            }
+            for(int word : words) {
+                code[length++] = word;
+            }
+        }
+
+        /** Emits a jump and returns the position of its target for patching */
+        private int emitJump(int... instruction) {
+            emit(instruction);
+            return length - 1;
+        }
+
+        private void patch(int at) {
+            code[at] = length;
+        }
+
+        private void patchAll(List<Integer> jumps) {
+            for(int at : jumps) {
+                patch(at);
+            }
+        }
+
+        private int constant(Object value) {
+            if(value instanceof String s) {
+                // interned, so MATCH_VARIANT can compare variant names by identity
+                value = s.intern();
+            }
+            if(value instanceof Double || value instanceof String || value instanceof Boolean) {
+                return constantIndices.computeIfAbsent(value, v -> {
+                    constants.add(v);
+                    return constants.size() - 1;
+                });
+            }
+            constants.add(value);
+            return constants.size() - 1;
+        }
+
+        private int propertyCache(String name) {
+            propertyCaches.add(new PropertyCache(name));
+            return propertyCaches.size() - 1;
+        }
+
+        private int temp() {
+            int t = nextTemp++;
+            registerCount = Math.max(registerCount, nextTemp);
+            return t;
+        }
+
+        private void compileTo(Expression expression, int dst) {
+            int previous = target;
+            target = dst;
+            expression.accept(this);
+            target = previous;
+        }
+
+        /** Returns a register holding the value, locals are used directly */
+        private int compileToRegister(Expression expression) {
+            if(expression instanceof Identifier i && !i.slot().isGlobal() && i.slot().depth == 0 && !i.slot().isCell) {
+                return i.slot().index;
+            }
+            if(expression instanceof ThisExpression t && !t.slot().isGlobal() && t.slot().depth == 0) {
+                return t.slot().index;
+            }
+            int t = temp();
+            compileTo(expression, t);
+            return t;
+        }
+
+        /** Like compileToRegister, but copies locals that could be changed before they are used */
+        private int compileOperand(Expression expression, boolean restIsSimple) {
+            if(restIsSimple) {
+                return compileToRegister(expression);
+            }
+            int t = temp();
+            compileTo(expression, t);
+            return t;
+        }
+
+        private List<Integer> compilePattern(Pattern pattern, int value) {
+            var previousFails = failJumps;
+            var previousValue = patternValue;
+            failJumps = new ArrayList<>();
+            patternValue = value;
+            pattern.accept(this);
+            var result = failJumps;
+            failJumps = previousFails;
+            patternValue = previousValue;
+            return result;
+        }
+
+        private void compileAny(DeclarationOrStatement any) {
+            int mark = nextTemp;
+            if(any instanceof Declaration d) {
+                d.accept(this);
+            } else {
+                ((Statement) any).accept(this);
+            }
+            nextTemp = mark;
+        }
+
+        private void addTo(Parameter parameter, int list) {
+            int previous = listRegister;
+            listRegister = list;
+            parameter.accept(this);
+            listRegister = previous;
+        }
+
+        private static boolean isTrue(Expression guard) {
+            return guard instanceof BooleanLiteral b && b.value();
+        }
+
+        @Override
+        public Void visitNumericLiteral(NumericLiteral value) {
+            emit(Opcode.LOAD_CONST, target, constant(value.value()));
+            return null;
+        }
+        @Override
+        public Void visitStringLiteral(StringLiteral value) {
+            emit(Opcode.LOAD_CONST, target, constant(value.value()));
+            return null;
+        }
+        @Override
+        public Void visitBooleanLiteral(BooleanLiteral value) {
+            emit(Opcode.LOAD_CONST, target, constant(value.value()));
+            return null;
+        }
+        @Override
+        public Void visitNullLiteral(NullLiteral value) {
+            emit(Opcode.LOAD_NULL, target);
+            return null;
+        }
+        @Override
+        public Void visitIdentifier(Identifier value) {
+            var slot = value.slot();
+            if(slot.isGlobal()) {
+                emit(Opcode.GET_GLOBAL, target, constant(value.value().lexeme()));
+            } else if(slot.isCell) {
+                emit(Opcode.GET_CELL, target, slot.depth, slot.index);
+            } else if(slot.depth == 0) {
+                if(slot.index != target) {
+                    emit(Opcode.MOVE, target, slot.index);
+                }
+            } else {
+                emit(Opcode.GET_OUTER, target, slot.depth, slot.index);
+            }
+            return null;
+        }
+        @Override
+        public Void visitBinaryOperation(BinaryOperation value) {
+            var type = value.operator().type();
+            if(type == TokenType.AND || type == TokenType.OR) {
+                compileTo(value.left(), target);
+                int end = emitJump(type == TokenType.AND ? Opcode.JUMP_IF_FALSE : Opcode.JUMP_IF_TRUE, target, -1);
+                compileTo(value.right(), target);
+                patch(end);
+                return null;
+            }
+            int opcode = binaryOpcode(type);
+            int mark = nextTemp;
+            int left = compileOperand(value.left(), isSimple(value.right()));
+            int right = compileToRegister(value.right());
+            emit(opcode, target, left, right);
+            nextTemp = mark;
+            return null;
+        }
+        @Override
+        public Void visitUnaryOperation(UnaryOperation value) {
+            int opcode = switch(value.operator().type()) {
+                case BANG -> Opcode.NOT;
+                case MINUS -> Opcode.NEG;
+                case PLUS -> Opcode.POS;
+                default -> throw new Unsupported();
+            };
+            int mark = nextTemp;
+            emit(opcode, target, compileToRegister(value.operand()));
+            nextTemp = mark;
+            return null;
+        }
+        @Override
+        public Void visitFunctionCall(FunctionCall value) {
+            if(!value.named().isEmpty()) {
+                throw new Unsupported();
+            }
+            boolean argumentsSimple = true;
+            for(var argument : value.arguments()) {
+                if(!(argument instanceof ExpressionParameter e)) {
+                    throw new Unsupported();
+                }
+                argumentsSimple &= isSimple(e.expr());
+            }
+            int mark = nextTemp;
+            if(value.callee() instanceof PropertyExpression property) {
+                compileMethodCall(value, property);
+                nextTemp = mark;
+                return null;
+            }
+            int callee = compileOperand(value.callee(), argumentsSimple);
+            int argc = value.arguments().size();
+            int first = nextTemp;
+            for(int i = 0; i < argc; i++) {
+                temp();
+            }
+            for(int i = 0; i < argc; i++) {
+                compileTo(((ExpressionParameter) value.arguments().get(i)).expr(), first + i);
+            }
+            callSites.add(value);
+            emit(Opcode.CALL, target, callee, first, argc, callSites.size() - 1);
+            emitTailReturn(value);
+            nextTemp = mark;
+            return null;
+        }
+        // The receiver goes into the register before the arguments, so it can be passed as this
+        private void compileMethodCall(FunctionCall value, PropertyExpression property) {
+            int argc = value.arguments().size();
+            int receiver = nextTemp;
+            for(int i = 0; i <= argc; i++) {
+                temp();
+            }
+            compileTo(property.object(), receiver);
+            for(int i = 0; i < argc; i++) {
+                compileTo(((ExpressionParameter) value.arguments().get(i)).expr(), receiver + 1 + i);
+            }
+            methodCaches.add(new MethodCache(property.name().lexeme()));
+            callSites.add(value);
+            emit(Opcode.CALL_METHOD, target, receiver, methodCaches.size() - 1, argc, callSites.size() - 1);
+            emitTailReturn(value);
+        }
+        // The VM makes a call that is directly followed by the return of its result in the frame of the caller
+        private void emitTailReturn(FunctionCall value) {
+            if(value.tail().isTail) {
+                emit(Opcode.RETURN, target);
+            }
+        }
+        @Override
+        public Void visitInstExpression(InstExpression value) {
+            compileTo(value.instantiated(), target);
+            return null;
+        }
+        @Override
+        public Void visitFunctionExpression(FunctionExpression value) {
+            var template = new FunctionTemplate(value.optionalName(), value.parameters(), value.body(), value.frame());
+            emit(Opcode.CLOSURE, target, constant(template));
+            return null;
+        }
+        @Override
+        public Void visitIfExpression(IfExpression value) {
+            int mark = nextTemp;
+            int condition = compileToRegister(value.condition());
+            nextTemp = mark;
+            int elseJump = emitJump(Opcode.JUMP_IF_FALSE, condition, -1);
+            compileTo(value.thenBranch(), target);
+            int endJump = emitJump(Opcode.JUMP, -1);
+            patch(elseJump);
+            compileTo(value.elseBranch(), target);
+            patch(endJump);
+            return null;
+        }
+        @Override
+        public Void visitIfValExpression(IfValExpression value) {
+            if(value.frame().ownsFrame) {
+                throw new Unsupported();
+            }
+            int mark = nextTemp;
+            int matched = compileToRegister(value.matched());
+            var fails = compilePattern(value.pat(), matched);
+            nextTemp = mark;
+            compileTo(value.thenBranch(), target);
+            int endJump = emitJump(Opcode.JUMP, -1);
+            patchAll(fails);
+            compileTo(value.elseBranch(), target);
+            patch(endJump);
+            return null;
+        }
+        @Override
+        public Void visitListExpression(ListExpression value) {
+            int mark = nextTemp;
+            if(value.elements().stream().allMatch(e -> e instanceof ExpressionParameter)) {
+                int count = value.elements().size();
+                int first = nextTemp;
+                for(int i = 0; i < count; i++) {
+                    temp();
+                }
+                for(int i = 0; i < count; i++) {
+                    compileTo(((ExpressionParameter) value.elements().get(i)).expr(), first + i);
+                }
+                emit(Opcode.NEW_LIST, target, first, count);
+            } else {
+                emit(Opcode.NEW_LIST, target, 0, 0);
+                for(var element : value.elements()) {
+                    addTo(element, target);
+                }
+            }
+            nextTemp = mark;
+            return null;
+        }
+        @Override
+        public Void visitTupleExpression(TupleExpression value) {
+            int mark = nextTemp;
+            int count = value.elements().size();
+            int first = nextTemp;
+            for(int i = 0; i < count; i++) {
+                temp();
+            }
+            for(int i = 0; i < count; i++) {
+                compileTo(value.elements().get(i), first + i);
+            }
+            emit(Opcode.NEW_TUPLE, target, first, count);
+            nextTemp = mark;
+            return null;
+        }
+        @Override
+        public Void visitIndexExpression(IndexExpression value) {
+            int mark = nextTemp;
+            int list = compileOperand(value.list(), isSimple(value.index()));
+            int index = compileToRegister(value.index());
+            emit(Opcode.INDEX, target, list, index);
+            nextTemp = mark;
+            return null;
+        }
+        @Override
+        public Void visitPropertyExpression(PropertyExpression value) {
+            int mark = nextTemp;
+            int object = compileToRegister(value.object());
+            emit(Opcode.GET_PROPERTY, target, object, propertyCache(value.name().lexeme()));
+            nextTemp = mark;
+            return null;
+        }
+        @Override
+        public Void visitBlockExpression(BlockExpression value) {
+            if(value.frame().ownsFrame) {
+                throw new Unsupported();
+            }
+            for(var statement : value.statements()) {
+                compileAny(statement);
+            }
+            compileTo(value.returnValue(), target);
+            return null;
+        }
+        @Override
+        public Void visitWhileYieldExpression(WhileYieldExpression value) {
+            int mark = nextTemp;
+            emit(Opcode.NEW_LIST, target, 0, 0);
+            int loop = length;
+            int condition = compileToRegister(value.condition());
+            int exit = emitJump(Opcode.JUMP_IF_FALSE, condition, -1);
+            addTo(value.body(), target);
+            emit(Opcode.JUMP, loop);
+            patch(exit);
+            nextTemp = mark;
+            return null;
+        }
+        @Override
+        public Void visitWhileValYieldExpression(WhileValYieldExpression value) {
+            if(value.frame().ownsFrame) {
+                throw new Unsupported();
+            }
+            int mark = nextTemp;
+            emit(Opcode.NEW_LIST, target, 0, 0);
+            int loop = length;
+            int matched = compileToRegister(value.matched());
+            var fails = compilePattern(value.pattern(), matched);
+            int result = compileToRegister(value.body());
+            emit(Opcode.LIST_ADD, target, result);
+            emit(Opcode.JUMP, loop);
+            patchAll(fails);
+            nextTemp = mark;
+            return null;
+        }
+        @Override
+        public Void visitWhileDoExpression(WhileDoExpression value) {
+            int mark = nextTemp;
+            int loop = length;
+            int condition = compileToRegister(value.condition());
+            int exit = emitJump(Opcode.JUMP_IF_FALSE, condition, -1);
+            value.body().accept(this);
+            emit(Opcode.JUMP, loop);
+            patch(exit);
+            emit(Opcode.LOAD_NULL, target);
+            nextTemp = mark;
+            return null;
+        }
+        @Override
+        public Void visitWhileValDoExpression(WhileValDoExpression value) {
+            if(value.frame().ownsFrame) {
+                throw new Unsupported();
+            }
+            int mark = nextTemp;
+            int loop = length;
+            int matched = compileToRegister(value.matched());
+            var fails = compilePattern(value.pattern(), matched);
+            compileToRegister(value.body());
+            emit(Opcode.JUMP, loop);
+            patchAll(fails);
+            emit(Opcode.LOAD_NULL, target);
+            nextTemp = mark;
+            return null;
+        }
+        @Override
+        public Void visitForYieldExpression(ForYieldExpression value) {
+            if(value.frame().ownsFrame) {
+                throw new Unsupported();
+            }
+            int mark = nextTemp;
+            int results = temp(); // the collection is evaluated before the result list is filled
+            int iterator = temp();
+            int element = temp();
+            int collection = compileToRegister(value.collection());
+            emit(Opcode.ITER, iterator, collection);
+            emit(Opcode.NEW_LIST, results, 0, 0);
+            int loop = length;
+            int exit = emitJump(Opcode.NEXT, iterator, element, -1);
+            int iterationMark = nextTemp;
+            var fails = compilePattern(value.pat(), element);
+            if(!isTrue(value.guard())) {
+                fails.add(emitJump(Opcode.JUMP_IF_FALSE, compileToRegister(value.guard()), -1));
+            }
+            addTo(value.body(), results);
+            emit(Opcode.JUMP, loop);
+            for(int at : fails) {
+                code[at] = loop;
+            }
+            nextTemp = iterationMark;
+            patch(exit);
+            emit(Opcode.MOVE, target, results);
+            nextTemp = mark;
+            return null;
+        }
+        @Override
+        public Void visitRangeExpression(RangeExpression value) {
+            int mark = nextTemp;
+            int start = temp();
+            int step = temp();
+            int end = temp();
+            compileTo(value.start(), start);
+            compileTo(value.step(), step);
+            compileTo(value.end(), end);
+            emit(Opcode.RANGE, target, start, end, step);
+            nextTemp = mark;
+            return null;
+        }
+        @Override
+        public Void visitThisExpression(ThisExpression value) {
+            var slot = value.slot();
+            if(slot.isGlobal()) {
+                emit(Opcode.FAIL_THIS);
+            } else if(slot.depth == 0) {
+                if(slot.index != target) {
+                    emit(Opcode.MOVE, target, slot.index);
+                }
+            } else {
+                emit(Opcode.GET_OUTER, target, slot.depth, slot.index);
+            }
+            return null;
+        }
+        @Override
+        public Void visitReturnExpression(ReturnExpression value) {
+            int mark = nextTemp;
+            emit(Opcode.RETURN, compileToRegister(value.returnValue()));
+            nextTemp = mark;
+            return null;
+        }
+        @Override
+        public Void visitMatchExpression(MatchExpression value) {
+            if(value.frame().ownsFrame) {
+                throw new Unsupported();
+            }
+            int mark = nextTemp;
+            int matched = compileToRegister(value.matched());
+            List<Integer> ends = new ArrayList<>();
+            for(int i = 0; i < value.cases().size(); i++) {
+                int caseMark = nextTemp;
+                var fails = compilePattern(value.cases().get(i), matched);
+                compileTo(value.branches().get(i), target);
+                ends.add(emitJump(Opcode.JUMP, -1));
+                patchAll(fails);
+                nextTemp = caseMark;
+            }
+            emit(Opcode.FAIL_MATCH, matched);
+            patchAll(ends);
+            nextTemp = mark;
+            return null;
+        }
+        @Override
+        public Void visitWildcardExpression(WildcardExpression value) {
+            emit(Opcode.FAIL_WILDCARD, value.position().line());
+            return null;
+        }
+
+        @Override
+        public Void visitVariableDeclaration(VariableDeclaration value) {
+            if(value.export()) {
+                throw new Unsupported();
+            }
+            if(value.pat() instanceof VariableBinding b && !b.slot().isGlobal()) {
+                compileTo(value.initializer(), b.slot().index);
+                if(b.slot().isCell) {
+                    emit(Opcode.NEW_CELL, b.slot().index);
+                }
+                return null;
+            }
+            int initializer = compileToRegister(value.initializer());
+            patchAll(compilePattern(value.pat(), initializer));
+            return null;
+        }
+        @Override
+        public Void visitValElseDeclaration(ValElseDeclaration value) {
+            int initializer = compileToRegister(value.initializer());
+            var fails = compilePattern(value.pat(), initializer);
+            int end = emitJump(Opcode.JUMP, -1);
+            patchAll(fails);
+            compileToRegister(value.elseBranch());
+            patch(end);
+            return null;
+        }
+        @Override
+        public Void visitFunctionDeclaration(FunctionDeclaration value) {
+            if(value.export() || value.slot().isGlobal()) {
+                throw new Unsupported();
+            }
+            var template = new FunctionTemplate(value.Name().lexeme(), value.parameters(), value.body(), value.frame());
+            if(value.slot().isCell) { // the function uses itself, its copy of the frame has to hold the cell
+                emit(Opcode.LOAD_NULL, value.slot().index);
+                emit(Opcode.NEW_CELL, value.slot().index);
+                int function = temp();
+                emit(Opcode.CLOSURE, function, constant(template));
+                emit(Opcode.SET_CELL, 0, value.slot().index, function);
+                return null;
+            }
+            emit(Opcode.CLOSURE, value.slot().index, constant(template));
+            return null;
+        }
+        @Override
+        public Void visitClassDeclaration(ClassDeclaration value) {
+            throw new Unsupported();
+        }
+        @Override
+        public Void visitEnumDeclaration(EnumDeclaration value) {
+            throw new Unsupported();
+        }
+        @Override
+        public Void visitModuleDeclaration(ModuleDeclaration value) {
+            throw new Unsupported();
+        }
+        @Override
+        public Void visitNativeFunctionDeclaration(NativeFunctionDeclaration value) {
+            throw new Unsupported();
+        }
+        @Override
+        public Void visitNativeClassDeclaration(NativeClassDeclaration value) {
+            throw new Unsupported();
+        }
+        @Override
+        public Void visitTypeDefDeclaration(TypeDefDeclaration value) {
+            return null;
+        }
+        @Override
+        public Void visitEmptyDeclaration(EmptyDeclaration value) {
+            return null;
+        }
+
+        @Override
+        public Void visitExpressionStatement(ExpressionStatement value) {
+            compileTo(value.expression(), temp());
+            return null;
+        }
+        @Override
+        public Void visitIfStatement(IfStatement value) {
+            int mark = nextTemp;
+            int condition = compileToRegister(value.condition());
+            nextTemp = mark;
+            int end = emitJump(Opcode.JUMP_IF_FALSE, condition, -1);
+            value.body().accept(this);
+            patch(end);
+            nextTemp = mark;
+            return null;
+        }
+        @Override
+        public Void visitSetStatement(SetStatement value) {
+            int result;
+            if(value.setter() instanceof VariableSetter v && !v.slot().isGlobal() && v.slot().depth == 0 && !v.slot().isCell
+                    && isSimple(value.expression())) {
+                compileTo(value.expression(), v.slot().index);
+                return null;
+            }
+            result = compileToRegister(value.expression());
+            setterValue = result;
+            value.setter().accept(this);
+            return null;
+        }
+        @Override
+        public Void visitForDoStatement(ForDoStatement value) {
+            if(value.frame().ownsFrame) {
+                throw new Unsupported();
+            }
+            int mark = nextTemp;
+            int iterator = temp();
+            int element = temp();
+            int collection = compileToRegister(value.collection());
+            emit(Opcode.ITER, iterator, collection);
+            int loop = length;
+            int exit = emitJump(Opcode.NEXT, iterator, element, -1);
+            var fails = compilePattern(value.pat(), element);
+            if(!isTrue(value.guard())) {
+                fails.add(emitJump(Opcode.JUMP_IF_FALSE, compileToRegister(value.guard()), -1));
+            }
+            compileToRegister(value.body());
+            emit(Opcode.JUMP, loop);
+            for(int at : fails) {
+                code[at] = loop;
+            }
+            patch(exit);
+            nextTemp = mark;
+            return null;
+        }
+        @Override
+        public Void visitEmptyStatement(EmptyStatement value) {
+            return null;
+        }
+
+        @Override
+        public Void visitExpressionParameter(ExpressionParameter value) {
+            int list = listRegister;
+            int mark = nextTemp;
+            emit(Opcode.LIST_ADD, list, compileToRegister(value.expr()));
+            nextTemp = mark;
+            return null;
+        }
+        @Override
+        public Void visitSpreadParameter(SpreadParameter value) {
+            int list = listRegister;
+            int mark = nextTemp;
+            emit(Opcode.LIST_ADD_ALL, list, compileToRegister(value.collection()));
+            nextTemp = mark;
+            return null;
+        }
+        @Override
+        public Void visitNamedParameter(NamedParameter value) {
+            throw new Unsupported();
+        }
+        @Override
+        public Void visitConditionalParameter(ConditionalParameter value) {
+            int list = listRegister;
+            int mark = nextTemp;
+            int guard = compileToRegister(value.guard());
+            int skip = emitJump(Opcode.JUMP_IF_FALSE, guard, -1);
+            emit(Opcode.LIST_ADD, list, compileToRegister(value.body()));
+            patch(skip);
+            nextTemp = mark;
+            return null;
+        }
+
+        @Override
+        public Void visitVariableBinding(VariableBinding value) {
+            if(value.slot().isGlobal()) {
+                throw new Unsupported();
+            }
+            if(value.slot().index != patternValue) {
+                emit(Opcode.MOVE, value.slot().index, patternValue);
+            }
+            if(value.slot().isCell) {
+                emit(Opcode.NEW_CELL, value.slot().index);
+            }
+            return null;
+        }
+        @Override
+        public Void visitWildcard(Wildcard value) {
+            return null;
+        }
+        @Override
+        public Void visitNumberPattern(NumberPattern value) {
+            failJumps.add(emitJump(Opcode.MATCH_EQ, patternValue, constant(value.value()), -1));
+            return null;
+        }
+        @Override
+        public Void visitBooleanPattern(BooleanPattern value) {
+            failJumps.add(emitJump(Opcode.MATCH_EQ, patternValue, constant(value.value()), -1));
+            return null;
+        }
+        @Override
+        public Void visitStringPattern(StringPattern value) {
+            failJumps.add(emitJump(Opcode.MATCH_STRING, patternValue, constant(value.value()), -1));
+            return null;
+        }
+        @Override
+        public Void visitTuplePattern(TuplePattern value) {
+            failJumps.add(emitJump(Opcode.MATCH_TUPLE, patternValue, value.subPatterns().size(), -1));
+            compileSubPatterns(value.subPatterns());
+            return null;
+        }
+        @Override
+        public Void visitConstructorPattern(ConstructorPattern value) {
+            failJumps.add(emitJump(Opcode.MATCH_VARIANT, patternValue, constant(value.constr().lexeme()), -1));
+            compileSubPatterns(value.subPatterns());
+            return null;
+        }
+        private void compileSubPatterns(List<Pattern> subPatterns) {
+            int whole = patternValue;
+            for(int i = 0; i < subPatterns.size(); i++) {
+                if(subPatterns.get(i) instanceof Wildcard) {
+                    continue;
+                }
+                int element = temp();
+                emit(Opcode.GET_ELEMENT, element, whole, i);
+                patternValue = element;
+                subPatterns.get(i).accept(this);
+            }
+            patternValue = whole;
+        }
+
+        @Override
+        public Void visitVariableSetter(VariableSetter value) {
+            var slot = value.slot();
+            if(slot.isGlobal()) {
+                emit(Opcode.SET_GLOBAL, constant(value.name().lexeme()), setterValue);
+            } else if(slot.isCell) {
+                emit(Opcode.SET_CELL, slot.depth, slot.index, setterValue);
+            } else if(slot.depth == 0) {
+                if(slot.index != setterValue) {
+                    emit(Opcode.MOVE, slot.index, setterValue);
+                }
+            } else {
+                emit(Opcode.SET_OUTER, slot.depth, slot.index, setterValue);
+            }
+            return null;
+        }
+        @Override
+        public Void visitIndexSetter(IndexSetter value) {
+            int result = setterValue;
+            int list = temp();
+            int index = temp();
+            compileTo(value.list(), list);
+            compileTo(value.index(), index);
+            emit(Opcode.SET_INDEX, list, index, result);
+            return null;
+        }
+        @Override
+        public Void visitPropertySetter(PropertySetter value) {
+            int result = setterValue;
+            int object = compileToRegister(value.object());
+            emit(Opcode.SET_PROPERTY, object, propertyCache(value.name().lexeme()), result);
+            return null;
+        }
+        @Override
+        public Void visitTupleSetter(TupleSetter value) {
+            int tuple = setterValue;
+            for(int i = 0; i < value.setters().size(); i++) {
+                int element = temp();
+                emit(Opcode.GET_ELEMENT, element, tuple, i);
+                setterValue = element;
+                value.setters().get(i).accept(this);
+            }
+            return null;
+        }
+        @Override
+        public Void visitWildcardSetter(WildcardSetter value) {
+            return null;
+        }
+    }
+}
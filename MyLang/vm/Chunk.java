@@ -0,0 +1,56 @@
+package MyLang.vm;
+
+import MyLang.MethodCache;
+import MyLang.MyLangAST.FunctionCall;
+import MyLang.PropertyCache;
+
+/**
+ * The compiled body of a function. Registers 0 until the frame size computed by the
+ * resolver are the variables of the function, the temporaries of the compiler follow.
+ */
+final class Chunk {
+    final String name;
+    final String fileName;
+    final int[] code;
+    final Object[] constants;
+    final int registerCount;
+    // Number of arguments if they can be copied directly into the parameter registers, -1 otherwise
+    final int directArity;
+
+    // The call of every call site, for the stack trace
+    final FunctionCall[] callSites;
+    // The inline cache of every property access
+    final PropertyCache[] propertyCaches;
+    // The inline cache of every method call
+    final MethodCache[] methodCaches;
+
+    Chunk(String name, String fileName, int[] code, Object[] constants, int registerCount, int directArity,
+            FunctionCall[] callSites, PropertyCache[] propertyCaches, MethodCache[] methodCaches) {
+        this.name = name;
+        this.fileName = fileName;
+        this.code = code;
+        this.constants = constants;
+        this.registerCount = registerCount;
+        this.directArity = directArity;
+        this.callSites = callSites;
+        this.propertyCaches = propertyCaches;
+        this.methodCaches = methodCaches;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder b = new StringBuilder();
+        b.append("chunk ").append(name).append(" (").append(registerCount).append(" registers)\n");
+        int pc = 0;
+        while(pc < code.length) {
+            int op = code[pc];
+            b.append(String.format("%4d  %-14s", pc, Opcode.NAMES[op]));
+            for(int i = 1; i <= Opcode.OPERANDS[op]; i++) {
+                b.append(' ').append(code[pc + i]);
+            }
+            b.append('\n');
+            pc += Opcode.OPERANDS[op] + 1;
+        }
+        return b.toString();
+    }
+}
@@ -0,0 +1,91 @@
+package MyLang.vm;
+
+/**
+ * Instructions of the register VM. Every instruction is an opcode followed by its
+ * operands, all stored in the int[] of a {@link Chunk}. Operands are register numbers,
+ * indices into the constant pool or jump targets.
+ */
+final class Opcode {
+    private Opcode() {}
+
+    static final int LOAD_CONST = 0;     // dst, constant
+    static final int LOAD_NULL = 1;      // dst
+    static final int MOVE = 2;           // dst, src
+    static final int GET_OUTER = 3;      // dst, depth, index
+    static final int SET_OUTER = 4;      // depth, index, src
+    static final int GET_GLOBAL = 5;     // dst, name
+    static final int SET_GLOBAL = 6;     // name, src
+
+    static final int ADD = 7;            // dst, left, right
+    static final int SUB = 8;
+    static final int MUL = 9;
+    static final int DIV = 10;
+    static final int MOD = 11;
+    static final int POW = 12;
+    static final int EQ = 13;
+    static final int NE = 14;
+    static final int GT = 15;
+    static final int GE = 16;
+    static final int LT = 17;
+    static final int LE = 18;
+    static final int XOR = 19;
+    static final int IN = 20;
+    static final int NOT = 21;           // dst, operand
+    static final int NEG = 22;
+    static final int POS = 23;
+
+    static final int JUMP = 24;          // target
+    static final int JUMP_IF_FALSE = 25; // condition, target
+    static final int JUMP_IF_TRUE = 26;  // condition, target
+
+    static final int CALL = 27;          // dst, callee, first argument, argument count, call site
+    static final int RETURN = 28;        // src
+
+    static final int NEW_LIST = 29;      // dst, first element, count
+    static final int LIST_ADD = 30;      // list, src
+    static final int LIST_ADD_ALL = 31;  // list, src
+    static final int NEW_TUPLE = 32;     // dst, first element, count
+    static final int INDEX = 33;         // dst, list, index
+    static final int SET_INDEX = 34;     // list, index, src
+    static final int GET_PROPERTY = 35;  // dst, object, property cache
+    static final int SET_PROPERTY = 36;  // object, property cache, src
+    static final int RANGE = 37;         // dst, start, end, step
+    static final int ITER = 38;          // dst, collection
+    static final int NEXT = 39;          // iterator, dst, target when exhausted
+    static final int CLOSURE = 40;       // dst, function template
+
+    static final int MATCH_EQ = 41;      // src, constant, target on failure
+    static final int MATCH_STRING = 42;  // src, constant, target on failure
+    static final int MATCH_TUPLE = 43;   // src, length, target on failure
+    static final int MATCH_VARIANT = 44; // src, name, target on failure
+    static final int GET_ELEMENT = 45;   // dst, tuple or variant, index
+
+    static final int FAIL_MATCH = 46;    // src
+    static final int FAIL_WILDCARD = 47; // line
+    static final int FAIL_THIS = 48;     //
+
+    static final int CALL_METHOD = 49;   // dst, receiver followed by the arguments, method cache, argument count, call site
+
+    static final int NEW_CELL = 50;      // register, its value is put into a cell unless it is one already
+    static final int GET_CELL = 51;      // dst, depth, index
+    static final int SET_CELL = 52;      // depth, index, src
+
+    static final String[] NAMES = {
+        "LOAD_CONST", "LOAD_NULL", "MOVE", "GET_OUTER", "SET_OUTER", "GET_GLOBAL", "SET_GLOBAL",
+        "ADD", "SUB", "MUL", "DIV", "MOD", "POW", "EQ", "NE", "GT", "GE", "LT", "LE", "XOR", "IN",
+        "NOT", "NEG", "POS", "JUMP", "JUMP_IF_FALSE", "JUMP_IF_TRUE", "CALL", "RETURN",
+        "NEW_LIST", "LIST_ADD", "LIST_ADD_ALL", "NEW_TUPLE", "INDEX", "SET_INDEX", "GET_PROPERTY",
+        "SET_PROPERTY", "RANGE", "ITER", "NEXT", "CLOSURE", "MATCH_EQ", "MATCH_STRING", "MATCH_TUPLE",
+        "MATCH_VARIANT", "GET_ELEMENT", "FAIL_MATCH", "FAIL_WILDCARD", "FAIL_THIS",
+        "CALL_METHOD", "NEW_CELL", "GET_CELL", "SET_CELL"
+    };
+    static final int[] OPERANDS = {
+        2, 1, 2, 3, 3, 2, 2,
+        3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3,
+        2, 2, 2, 1, 2, 2, 5, 1,
+        3, 2, 2, 3, 3, 3, 3,
+        3, 4, 2, 3, 2, 3, 3, 3,
+        3, 3, 1, 1, 0,
+        5, 1, 3, 3
+    };
+}
@@ -0,0 +1,34 @@
+package MyLang.vm;
+
+import java.util.List;
+import java.util.Map;
+
+import MyLang.MyLangCallable;
+import MyLang.MyLangFunction;
+import MyLang.MyLangInterpreter;
+
+/** A function whose body was compiled to bytecode */
+public record VMFunction(MyLangFunction function, Chunk chunk, BytecodeCompiler compiler) implements MyLangCallable {
+
+    public String getName() {
+        return function.name();
+    }
+    public String getFileName() {
+        return function.fileName();
+    }
+    public int getLine() {
+        return function.getLine();
+    }
+
+    @Override
+    public Object call(MyLangInterpreter interpreter, List<Object> args, Map<String, Object> namedArgs) {
+        var frame = function.bindArguments(interpreter, args, namedArgs, chunk.registerCount);
+        var vm = interpreter instanceof VMInterpreter i ? i.vm : new VirtualMachine(interpreter, compiler);
+        return vm.execute(chunk, frame);
+    }
+
+    @Override
+    public String toString() {
+        return function.toString();
+    }
+}
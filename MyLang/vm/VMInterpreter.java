@@ -0,0 +1,42 @@
+package MyLang.vm;
+
+import static MyLang.MyLangAST.*;
+
+import java.util.ArrayList;
+
+import MyLang.FrameLayout;
+import MyLang.MyLangCallable;
+import MyLang.MyLangFunction;
+import MyLang.MyLangInterpreter;
+import MyLang.ParameterInformation;
+
+/**
+ * Interpreter whose functions run on the {@link VirtualMachine}. Declarations on module
+ * level and functions the VM can't compile are still interpreted.
+ */
+public class VMInterpreter extends MyLangInterpreter {
+    private final ArrayList<String> prg_args;
+    private final BytecodeCompiler compiler;
+    final VirtualMachine vm;
+
+    public VMInterpreter(ArrayList<String> prg_args) {
+        this(prg_args, new BytecodeCompiler());
+    }
+
+    private VMInterpreter(ArrayList<String> prg_args, BytecodeCompiler compiler) {
+        super(prg_args);
+        this.prg_args = prg_args;
+        this.compiler = compiler;
+        this.vm = new VirtualMachine(this, compiler);
+    }
+
+    @Override
+    protected MyLangCallable createFunction(String name, ParameterInformation parameters, Expression body, FrameLayout layout) {
+        return compiler.wrap((MyLangFunction) super.createFunction(name, parameters, body, layout));
+    }
+
+    @Override
+    protected MyLangInterpreter createImportInterpreter() {
+        return new VMInterpreter(prg_args, compiler);
+    }
+}
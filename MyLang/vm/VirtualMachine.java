@@ -0,0 +1,490 @@
+package MyLang.vm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import MyLang.Cell;
+import MyLang.EnumVariantObject;
+import MyLang.InterpreterError;
+import MyLang.MyLangCallable;
+import MyLang.MyLangEnviroment;
+import MyLang.MyLangFunction;
+import MyLang.MyLangInterpreter;
+import MyLang.MyLangMethod;
+import MyLang.MyLangObject;
+import MyLang.PersistentVector;
+import MyLang.Rope;
+
+/**
+ * Executes {@link Chunk}s. The registers of a call are the slots of its frame, so closures
+ * created by the VM and by the interpreter see the same variables.
+ * Calls between compiled functions don't use the Java stack, the frames of the callers
+ * are kept in the arrays below.
+ */
+public final class VirtualMachine {
+    private final MyLangInterpreter interpreter;
+    private final BytecodeCompiler compiler;
+
+    private Chunk[] chunks = new Chunk[64];
+    private MyLangEnviroment[] envs = new MyLangEnviroment[64];
+    private int[] returnPcs = new int[64];
+    private int[] returnRegisters = new int[64];
+    // Whether the frame was entered by a tail call, it has two entries on the call stack then
+    private boolean[] tailCalled = new boolean[64];
+    private int sp = 0;
+
+    private Chunk calleeChunk;
+    private MyLangEnviroment calleeEnv;
+    private int resumePc;
+    private int resultRegister;
+
+    public VirtualMachine(MyLangInterpreter interpreter, BytecodeCompiler compiler) {
+        this.interpreter = interpreter;
+        this.compiler = compiler;
+    }
+
+    private static boolean truthy(Object object) {
+        return object != null && (!(object instanceof Boolean b) || b);
+    }
+
+    private void pushFrame(Chunk chunk, MyLangEnviroment env, int returnPc, int returnRegister, boolean tail) {
+        if(sp == chunks.length) {
+            chunks = Arrays.copyOf(chunks, sp * 2);
+            envs = Arrays.copyOf(envs, sp * 2);
+            returnPcs = Arrays.copyOf(returnPcs, sp * 2);
+            returnRegisters = Arrays.copyOf(returnRegisters, sp * 2);
+            tailCalled = Arrays.copyOf(tailCalled, sp * 2);
+        }
+        chunks[sp] = chunk;
+        envs[sp] = env;
+        returnPcs[sp] = returnPc;
+        returnRegisters[sp] = returnRegister;
+        tailCalled[sp] = tail;
+        sp++;
+    }
+
+    private Object callOther(Object function, Object[] r, int first, int argc, Chunk chunk, int site, MyLangEnviroment env) {
+        if(function instanceof MyLangCallable theFunction) {
+            interpreter.callStack.push(theFunction, chunk.callSites[site], env);
+            var result = switch(argc) {
+                case 0 -> theFunction.call0(interpreter);
+                case 1 -> theFunction.call1(interpreter, r[first]);
+                case 2 -> theFunction.call2(interpreter, r[first], r[first + 1]);
+                case 3 -> theFunction.call3(interpreter, r[first], r[first + 1], r[first + 2]);
+                case 4 -> theFunction.call4(interpreter, r[first], r[first + 1], r[first + 2], r[first + 3]);
+                default -> {
+                    List<Object> args = new ArrayList<>(argc);
+                    for(int i = 0; i < argc; i++) {
+                        args.add(r[first + i]);
+                    }
+                    yield theFunction.call(interpreter, args, Map.of());
+                }
+            };
+            interpreter.callStack.pop();
+            return result;
+        } else {
+            throw new InterpreterError("Cannot call non-Function: " + function.getClass(), interpreter.callStack);
+        }
+    }
+
+    // Calls a method that is not compiled, r[receiver] is passed in front of the arguments
+    private Object callMethod(MyLangCallable method, Object[] r, int receiver, int argc) {
+        return switch(argc) {
+            case 0 -> method.call1(interpreter, r[receiver]);
+            case 1 -> method.call2(interpreter, r[receiver], r[receiver + 1]);
+            case 2 -> method.call3(interpreter, r[receiver], r[receiver + 1], r[receiver + 2]);
+            case 3 -> method.call4(interpreter, r[receiver], r[receiver + 1], r[receiver + 2], r[receiver + 3]);
+            default -> {
+                List<Object> args = new ArrayList<>(argc + 1);
+                for(int i = 0; i <= argc; i++) {
+                    args.add(r[receiver + i]);
+                }
+                yield method.call(interpreter, args, Map.of());
+            }
+        };
+    }
+
+    /**
+     * Runs entry and every compiled function it calls. The frames of the callers are kept
+     * on the stack of this VM, {@link #run} only interprets the code of a single call.
+     */
+    Object execute(Chunk entry, MyLangEnviroment entryEnv) {
+        final int base = sp;
+        Chunk chunk = entry;
+        MyLangEnviroment env = entryEnv;
+        int pc = 0;
+        boolean tail = false;
+        try {
+            while(true) {
+                var value = run(chunk, env, pc);
+                if(calleeChunk != null) {
+                    if(sp > base && chunk.code[resumePc] == Opcode.RETURN && chunk.code[resumePc + 1] == resultRegister) {
+                        // Tail call, the callee takes over the frame. Like MyLangFunction.invoke the
+                        // call stack keeps the first function of a chain of tail calls and the last callee
+                        if(tail) {
+                            interpreter.callStack.dropCaller();
+                        }
+                        tail = true;
+                    } else {
+                        pushFrame(chunk, env, resumePc, resultRegister, tail);
+                        tail = false;
+                    }
+                    chunk = calleeChunk;
+                    env = calleeEnv;
+                    pc = 0;
+                    calleeChunk = null;
+                    calleeEnv = null;
+                    continue;
+                }
+                if(sp == base) {
+                    return value;
+                }
+                sp--;
+                interpreter.callStack.pop();
+                if(tail) {
+                    interpreter.callStack.pop();
+                }
+                tail = tailCalled[sp];
+                chunk = chunks[sp];
+                env = envs[sp];
+                chunks[sp] = null;
+                envs[sp] = null;
+                pc = returnPcs[sp];
+                env.slots[returnRegisters[sp]] = value;
+            }
+        } finally {
+            while(sp > base) { // only left early by exceptions
+                sp--;
+                chunks[sp] = null;
+                envs[sp] = null;
+            }
+        }
+    }
+
+    /**
+     * Interprets chunk starting at pc until it returns or calls another compiled function.
+     * A call is left to {@link #execute} through calleeChunk, calleeEnv, resumePc and resultRegister.
+     */
+    @SuppressWarnings("unchecked")
+    private Object run(Chunk chunk, MyLangEnviroment env, int pc) {
+        final Object[] r = env.slots;
+        final int[] code = chunk.code;
+        final Object[] k = chunk.constants;
+        while(true) {
+            switch(code[pc]) {
+                case Opcode.LOAD_CONST -> {
+                    r[code[pc + 1]] = k[code[pc + 2]];
+                    pc += 3;
+                }
+                case Opcode.LOAD_NULL -> {
+                    r[code[pc + 1]] = null;
+                    pc += 2;
+                }
+                case Opcode.MOVE -> {
+                    r[code[pc + 1]] = r[code[pc + 2]];
+                    pc += 3;
+                }
+                case Opcode.GET_OUTER -> {
+                    r[code[pc + 1]] = env.getSlot(code[pc + 2], code[pc + 3]);
+                    pc += 4;
+                }
+                case Opcode.SET_OUTER -> {
+                    env.setSlot(code[pc + 1], code[pc + 2], r[code[pc + 3]]);
+                    pc += 4;
+                }
+                case Opcode.GET_CELL -> {
+                    r[code[pc + 1]] = ((Cell) env.getSlot(code[pc + 2], code[pc + 3])).value;
+                    pc += 4;
+                }
+                case Opcode.SET_CELL -> {
+                    ((Cell) env.getSlot(code[pc + 1], code[pc + 2])).value = r[code[pc + 3]];
+                    pc += 4;
+                }
+                case Opcode.ADD -> {
+                    var left = r[code[pc + 2]];
+                    var right = r[code[pc + 3]];
+                    if(left instanceof Double l1 && right instanceof Double l2) {
+                        r[code[pc + 1]] = l1 + l2;
+                    } else {
+                        r[code[pc + 1]] = interpreter.plus(left, right);
+                    }
+                    pc += 4;
+                }
+                case Opcode.SUB -> {
+                    r[code[pc + 1]] = (double) r[code[pc + 2]] - (double) r[code[pc + 3]];
+                    pc += 4;
+                }
+                case Opcode.MUL -> {
+                    var left = r[code[pc + 2]];
+                    var right = r[code[pc + 3]];
+                    if(left instanceof Double l1 && right instanceof Double l2) {
+                        r[code[pc + 1]] = l1 * l2;
+                    } else {
+                        throw new InterpreterError("Unsupported operands for *: "+left+", "+right, interpreter.callStack);
+                    }
+                    pc += 4;
+                }
+                case Opcode.DIV -> {
+                    r[code[pc + 1]] = (double) r[code[pc + 2]] / (double) r[code[pc + 3]];
+                    pc += 4;
+                }
+                case Opcode.MOD -> {
+                    r[code[pc + 1]] = (double) r[code[pc + 2]] % (double) r[code[pc + 3]];
+                    pc += 4;
+                }
+                case Opcode.EQ -> {
+                    r[code[pc + 1]] = MyLangInterpreter.isEqual(r[code[pc + 2]], r[code[pc + 3]]);
+                    pc += 4;
+                }
+                case Opcode.NE -> {
+                    r[code[pc + 1]] = !MyLangInterpreter.isEqual(r[code[pc + 2]], r[code[pc + 3]]);
+                    pc += 4;
+                }
+                case Opcode.GT -> {
+                    r[code[pc + 1]] = (double) r[code[pc + 2]] > (double) r[code[pc + 3]];
+                    pc += 4;
+                }
+                case Opcode.GE -> {
+                    r[code[pc + 1]] = (double) r[code[pc + 2]] >= (double) r[code[pc + 3]];
+                    pc += 4;
+                }
+                case Opcode.LT -> {
+                    r[code[pc + 1]] = (double) r[code[pc + 2]] < (double) r[code[pc + 3]];
+                    pc += 4;
+                }
+                case Opcode.LE -> {
+                    r[code[pc + 1]] = (double) r[code[pc + 2]] <= (double) r[code[pc + 3]];
+                    pc += 4;
+                }
+                case Opcode.NOT -> {
+                    r[code[pc + 1]] = !(boolean) r[code[pc + 2]];
+                    pc += 3;
+                }
+                case Opcode.JUMP -> pc = code[pc + 1];
+                case Opcode.JUMP_IF_FALSE -> pc = truthy(r[code[pc + 1]]) ? pc + 3 : code[pc + 2];
+                case Opcode.JUMP_IF_TRUE -> pc = truthy(r[code[pc + 1]]) ? code[pc + 2] : pc + 3;
+                case Opcode.CALL -> {
+                    int argc = code[pc + 4];
+                    var function = r[code[pc + 2]];
+                    VMFunction target = null;
+                    Object self = null;
+                    if(function instanceof VMFunction f && f.chunk().directArity == argc) {
+                        target = f;
+                    } else if(function instanceof MyLangMethod m && m.method() instanceof VMFunction f
+                            && f.chunk().directArity == argc + 1) {
+                        target = f;
+                        self = m.instance();
+                    }
+                    if(target == null) {
+                        r[code[pc + 1]] = callOther(function, r, code[pc + 3], argc, chunk, code[pc + 5], env);
+                        pc += 6;
+                        continue;
+                    }
+                    interpreter.callStack.push((MyLangCallable) function, chunk.callSites[code[pc + 5]], env);
+                    var frame = target.function().env().openFrame(target.chunk().registerCount);
+                    if(self != null) {
+                        frame.slots[0] = self;
+                        System.arraycopy(r, code[pc + 3], frame.slots, 1, argc);
+                    } else {
+                        System.arraycopy(r, code[pc + 3], frame.slots, 0, argc);
+                    }
+                    calleeChunk = target.chunk();
+                    calleeEnv = frame;
+                    resumePc = pc + 6;
+                    resultRegister = code[pc + 1];
+                    return null;
+                }
+                case Opcode.CALL_METHOD -> {
+                    int receiverRegister = code[pc + 2], argc = code[pc + 4];
+                    var receiver = r[receiverRegister];
+                    var cache = chunk.methodCaches[code[pc + 3]];
+                    var method = cache.lookup(receiver, interpreter);
+                    var site = chunk.callSites[code[pc + 5]];
+                    if(method == null) {
+                        var function = interpreter.getProperty(receiver, cache.name);
+                        r[code[pc + 1]] = callOther(function, r, receiverRegister + 1, argc, chunk, code[pc + 5], env);
+                        pc += 6;
+                        continue;
+                    }
+                    interpreter.callStack.pushMethod(method, receiver, site, env);
+                    if(!(method instanceof VMFunction target && target.chunk().directArity == argc + 1)) {
+                        r[code[pc + 1]] = callMethod(method, r, receiverRegister, argc);
+                        interpreter.callStack.pop();
+                        pc += 6;
+                        continue;
+                    }
+                    var frame = target.function().env().openFrame(target.chunk().registerCount);
+                    System.arraycopy(r, receiverRegister, frame.slots, 0, argc + 1);
+                    calleeChunk = target.chunk();
+                    calleeEnv = frame;
+                    resumePc = pc + 6;
+                    resultRegister = code[pc + 1];
+                    return null;
+                }
+                case Opcode.RETURN -> {
+                    return r[code[pc + 1]];
+                }
+                case Opcode.LIST_ADD -> {
+                    ((List<Object>) r[code[pc + 1]]).add(r[code[pc + 2]]);
+                    pc += 3;
+                }
+                case Opcode.INDEX -> {
+                    r[code[pc + 1]] = interpreter.getIndex(r[code[pc + 2]], r[code[pc + 3]]);
+                    pc += 4;
+                }
+                case Opcode.GET_PROPERTY -> {
+                    var cache = chunk.propertyCaches[code[pc + 3]];
+                    var object = r[code[pc + 2]];
+                    r[code[pc + 1]] = object instanceof MyLangObject o
+                        ? cache.get(o, interpreter)
+                        : interpreter.getProperty(object, cache.name);
+                    pc += 4;
+                }
+                case Opcode.NEXT -> {
+                    var iterator = (Iterator<Object>) r[code[pc + 1]];
+                    if(iterator.hasNext()) {
+                        r[code[pc + 2]] = iterator.next();
+                        pc += 4;
+                    } else {
+                        pc = code[pc + 3];
+                    }
+                }
+                default -> pc = step(chunk, env, pc);
+            }
+        }
+    }
+
+    /**
+     * Runs the instruction at pc, one of those {@link #run} leaves to this method, and returns the
+     * pc of the next instruction. Loops seldom run them. Without them run is small enough for the
+     * JIT to compile it again quickly when a program starts running other instructions.
+     */
+    @SuppressWarnings("unchecked")
+    private int step(Chunk chunk, MyLangEnviroment env, int pc) {
+        final Object[] r = env.slots;
+        final int[] code = chunk.code;
+        final Object[] k = chunk.constants;
+        switch(code[pc]) {
+            case Opcode.NEW_CELL -> {
+                if(!(r[code[pc + 1]] instanceof Cell)) {
+                    r[code[pc + 1]] = new Cell(r[code[pc + 1]]);
+                }
+                pc += 2;
+            }
+            case Opcode.GET_GLOBAL -> {
+                r[code[pc + 1]] = env.getVariable((String) k[code[pc + 2]], interpreter);
+                pc += 3;
+            }
+            case Opcode.SET_GLOBAL -> {
+                env.setVariable((String) k[code[pc + 1]], r[code[pc + 2]], interpreter);
+                pc += 3;
+            }
+            case Opcode.POW -> {
+                r[code[pc + 1]] = Math.pow((double) r[code[pc + 2]], (double) r[code[pc + 3]]);
+                pc += 4;
+            }
+            case Opcode.XOR -> {
+                r[code[pc + 1]] = truthy(r[code[pc + 2]]) ^ truthy(r[code[pc + 3]]);
+                pc += 4;
+            }
+            case Opcode.IN -> {
+                r[code[pc + 1]] = interpreter.contains(r[code[pc + 2]], r[code[pc + 3]]);
+                pc += 4;
+            }
+            case Opcode.NEG -> {
+                r[code[pc + 1]] = -(double) r[code[pc + 2]];
+                pc += 3;
+            }
+            case Opcode.POS -> {
+                r[code[pc + 1]] = +(double) r[code[pc + 2]];
+                pc += 3;
+            }
+            case Opcode.NEW_LIST -> {
+                int first = code[pc + 2], count = code[pc + 3];
+                List<Object> list = new PersistentVector();
+                for(int i = 0; i < count; i++) {
+                    list.add(r[first + i]);
+                }
+                r[code[pc + 1]] = list;
+                pc += 4;
+            }
+            case Opcode.LIST_ADD_ALL -> {
+                var collection = r[code[pc + 2]];
+                if(collection instanceof List<?> list) {
+                    ((List<Object>) r[code[pc + 1]]).addAll(list);
+                } else {
+                    throw new InterpreterError("Invalid type for spread operator: "+collection.getClass(), interpreter.callStack);
+                }
+                pc += 3;
+            }
+            case Opcode.NEW_TUPLE -> {
+                int first = code[pc + 2], count = code[pc + 3];
+                var tuple = new Object[count];
+                System.arraycopy(r, first, tuple, 0, count);
+                r[code[pc + 1]] = tuple;
+                pc += 4;
+            }
+            case Opcode.SET_INDEX -> {
+                interpreter.setIndex(r[code[pc + 1]], r[code[pc + 2]], r[code[pc + 3]]);
+                pc += 4;
+            }
+            case Opcode.SET_PROPERTY -> {
+                chunk.propertyCaches[code[pc + 2]].set((MyLangObject) r[code[pc + 1]], r[code[pc + 3]], interpreter);
+                pc += 4;
+            }
+            case Opcode.RANGE -> {
+                r[code[pc + 1]] = interpreter.range(r[code[pc + 2]], r[code[pc + 4]], r[code[pc + 3]]);
+                pc += 5;
+            }
+            case Opcode.ITER -> {
+                var collection = r[code[pc + 2]];
+                if(collection instanceof List<?> list) {
+                    r[code[pc + 1]] = list.iterator();
+                } else {
+                    throw new InterpreterError("Invalid list type: " + collection.getClass(), interpreter.callStack);
+                }
+                pc += 3;
+            }
+            case Opcode.CLOSURE -> {
+                var template = (BytecodeCompiler.FunctionTemplate) k[code[pc + 2]];
+                var parameters = template.parameters();
+                r[code[pc + 1]] = compiler.wrap(new MyLangFunction(
+                        template.name(),
+                        parameters.names(),
+                        parameters.varargsName(),
+                        parameters.optionals(),
+                        parameters.optionalNamed(),
+                        env.capture(template.layout().captures),
+                        template.body(),
+                        template.layout(),
+                        chunk.fileName));
+                pc += 3;
+            }
+            case Opcode.MATCH_EQ -> pc = r[code[pc + 1]].equals(k[code[pc + 2]]) ? pc + 4 : code[pc + 3];
+            case Opcode.MATCH_STRING -> pc = k[code[pc + 2]].equals(Rope.flatten(r[code[pc + 1]])) ? pc + 4 : code[pc + 3];
+            case Opcode.MATCH_TUPLE -> pc = r[code[pc + 1]] instanceof Object[] tuple && tuple.length == code[pc + 2]
+                ? pc + 4 : code[pc + 3];
+            case Opcode.MATCH_VARIANT -> pc = r[code[pc + 1]] instanceof EnumVariantObject o
+                    && o.variant().getName() == k[code[pc + 2]]
+                ? pc + 4 : code[pc + 3];
+            case Opcode.GET_ELEMENT -> {
+                var whole = r[code[pc + 2]];
+                r[code[pc + 1]] = whole instanceof Object[] tuple
+                    ? tuple[code[pc + 3]]
+                    : ((EnumVariantObject) whole).fields()[code[pc + 3]];
+                pc += 4;
+            }
+            case Opcode.FAIL_MATCH -> throw new InterpreterError(
+                    "Non exhaustive match while matching "+MyLangInterpreter.stringify(r[code[pc + 1]]), interpreter.callStack);
+            case Opcode.FAIL_WILDCARD -> throw new InterpreterError(
+                    "Reached Wildcard on line "+code[pc + 1], interpreter.callStack);
+            case Opcode.FAIL_THIS -> throw new InterpreterError(
+                    "Cannot use 'this' outside of a class.", interpreter.callStack);
+            default -> throw new IllegalStateException("Invalid opcode "+code[pc]+" in "+chunk.name);
+        }
+        return pc;
+    }
+}
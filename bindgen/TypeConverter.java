@@ -6,7 +6,6 @@ import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
 import java.lang.reflect.WildcardType;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 
 public class TypeConverter {
@@ -43,7 +42,7 @@ public class TypeConverter {
                 throw new RuntimeException("Cannot convert wildcard type: "+t);
             }
             case ParameterizedType p -> {
-                if(p.getRawType().equals(ArrayList.class)) {
+                if(TypeMangler.isListType(p.getRawType())) {
                     return convert(p.getActualTypeArguments()[0]) + "[]"; // Special case for builtin list type
                 }
                 if(p.getRawType().equals(HashMap.class)) {
@@ -5,7 +5,11 @@ import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
 import java.lang.reflect.WildcardType;
+
 import java.util.ArrayList;
+import java.util.List;
+
+import std.runtime.DequeList;
 
 public class TypeMangler {
     public static String stringify(Type type) {
@@ -23,7 +27,7 @@ public class TypeMangler {
                 return "Unknown";
             }
             case ParameterizedType p -> {
-                if(p.getRawType().equals(ArrayList.class)) {
+                if(isListType(p.getRawType())) {
                     return "List"+stringify(p.getActualTypeArguments()[0]); // Special case for builtin list type
                 }
                 StringBuilder builder = new StringBuilder(stringify(p.getRawType()));
@@ -39,6 +43,10 @@ public class TypeMangler {
             }
         }
     }
+    // Java lists that MyLang lists are passed as: ArrayList by the bytecode backend, DequeList by the source backend
+    static boolean isListType(Type raw) {
+        return raw.equals(ArrayList.class) || raw.equals(List.class) || raw.equals(DequeList.class);
+    }
     private static String potentialPrimitive(Class<?> c) {
         if(c.equals(void.class) || c.equals(Void.class)) {
             return "Void";
@@ -0,0 +1,26 @@
+package mylmyl;
+
+public class AsmHelp {
+    public static Object create_field_init_value() {
+        return null;
+    }
+
+    public static Object field_iv_string(String value) {
+        return value;
+    }
+    public static Object field_iv_number(double value) {
+        return value;
+    }
+    public static Object field_iv_int(int value) {
+        return value;
+    }
+    public static Object field_iv_long(long value) {
+        return value;
+    }
+    public static Object const_float(float val) {
+        return val;
+    }
+    public static String null_str() {
+        return null;
+    }
+}
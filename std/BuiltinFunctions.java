@@ -4,20 +4,21 @@ import static std.runtime.Functions.panic;
 
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.ArrayList;
 import java.util.Arrays;
 
+import std.runtime.DequeList;
+
 public class BuiltinFunctions {
     public static Void move_line_up() {
         System.out.print("\033[1A\033[2K");
         return null;
     }
-    public static String join(String sep, ArrayList<String> lst) {
+    public static String join(String sep, DequeList<String> lst) {
         return String.join(sep, lst);
     }
-    public static ArrayList<String> split(String to_be_splitted, String splitter) {
+    public static DequeList<String> split(String to_be_splitted, String splitter) {
         var result = to_be_splitted.split(splitter);
-        return new ArrayList<>(Arrays.asList(result));
+        return new DequeList<>(Arrays.asList(result));
     }
     public static double len(String str) {
         return (double) str.length();
@@ -118,7 +118,7 @@ public class _implicit {
             return __builder.toString();
         } 
     }
-    public static <T> boolean any(ArrayList<T> list, mylmyl.__generated_Main.__var64<T, Boolean> pred) {
+    public static <T> boolean any(DequeList<T> list, mylmyl.__generated_Main.__var64<T, Boolean> pred) {
         __var69: for(var __var68 : list) {
             final T t;
             t = __var68;
@@ -140,7 +140,7 @@ public class _implicit {
         
     }
     
-    public static <T> boolean all(ArrayList<T> list, mylmyl.__generated_Main.__var64<T, Boolean> pred) {
+    public static <T> boolean all(DequeList<T> list, mylmyl.__generated_Main.__var64<T, Boolean> pred) {
         __var72: for(var __var71 : list) {
             final T t;
             t = __var71;
@@ -190,10 +190,10 @@ public class _implicit {
         std.BuiltinFunctions.move_line_up();
         return null;
     }
-    public static String join(String __var78, ArrayList<String> __var79) {
+    public static String join(String __var78, DequeList<String> __var79) {
         return std.BuiltinFunctions.join(__var78, __var79);
     }
-    public static ArrayList<String> split(String __var80, String __var81) {
+    public static DequeList<String> split(String __var80, String __var81) {
         return std.BuiltinFunctions.split(__var80, __var81);
     }
     public static double len(String __var82) {
@@ -11,7 +11,7 @@ public class _process {
         std.runtime.Functions.exit(__var904);
         return null;
     }
-    public static ArrayList<String> args() {
+    public static DequeList<String> args() {
         return std.runtime.Functions.args();
     }
     
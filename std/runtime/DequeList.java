@@ -0,0 +1,156 @@
+package std.runtime;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+// The list type of compiled programs. The elements are stored in a ring buffer, so besides
+// indexing and push/pop, prepend and dequeue at the front are amortized O(1) as well.
+public class DequeList<T> extends AbstractList<T> implements RandomAccess {
+    private Object[] elements;
+    private int head = 0;
+    private int size = 0;
+
+    public DequeList() {
+        this(8);
+    }
+
+    public DequeList(int capacity) {
+        elements = new Object[Integer.highestOneBit(Math.max(capacity, 1) * 2 - 1)];
+    }
+
+    public DequeList(Collection<? extends T> collection) {
+        this(collection.size());
+        for(T t : collection) {
+            addLast(t);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        Objects.checkIndex(index, size);
+        return (T) elements[(head + index) & (elements.length - 1)];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T set(int index, T element) {
+        Objects.checkIndex(index, size);
+        int slot = (head + index) & (elements.length - 1);
+        T previous = (T) elements[slot];
+        elements[slot] = element;
+        return previous;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean add(T element) {
+        addLast(element);
+        return true;
+    }
+
+    @Override
+    public void add(int index, T element) {
+        if(index == size) {
+            addLast(element);
+            return;
+        } else if(index == 0) {
+            addFirst(element);
+            return;
+        }
+        Objects.checkIndex(index, size);
+        if(index < size / 2) {
+            addFirst(get(0));
+            for(int i = 1; i < index; i++) {
+                set(i, get(i + 1));
+            }
+        } else {
+            addLast(get(size - 1));
+            for(int i = size - 2; i > index; i--) {
+                set(i, get(i - 1));
+            }
+        }
+        set(index, element);
+    }
+
+    @Override
+    public T remove(int index) {
+        Objects.checkIndex(index, size);
+        if(index == 0) {
+            return removeFirst();
+        } else if(index == size - 1) {
+            return removeLast();
+        }
+        T removed = get(index);
+        if(index < size / 2) {
+            for(int i = index; i > 0; i--) {
+                set(i, get(i - 1));
+            }
+            removeFirst();
+        } else {
+            for(int i = index; i < size - 1; i++) {
+                set(i, get(i + 1));
+            }
+            removeLast();
+        }
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        elements = new Object[8];
+        head = 0;
+        size = 0;
+        modCount++;
+    }
+
+    public void addFirst(T element) {
+        ensureCapacity();
+        head = (head - 1) & (elements.length - 1);
+        elements[head] = element;
+        size++;
+        modCount++;
+    }
+
+    public void addLast(T element) {
+        ensureCapacity();
+        elements[(head + size) & (elements.length - 1)] = element;
+        size++;
+        modCount++;
+    }
+
+    public T removeFirst() {
+        T first = get(0);
+        elements[head] = null;
+        head = (head + 1) & (elements.length - 1);
+        size--;
+        modCount++;
+        return first;
+    }
+
+    public T removeLast() {
+        T last = get(size - 1);
+        elements[(head + size - 1) & (elements.length - 1)] = null;
+        size--;
+        modCount++;
+        return last;
+    }
+
+    private void ensureCapacity() {
+        if(size < elements.length) {
+            return;
+        }
+        var grown = new Object[elements.length * 2];
+        for(int i = 0; i < size; i++) {
+            grown[i] = elements[(head + i) & (elements.length - 1)];
+        }
+        elements = grown;
+        head = 0;
+    }
+}
@@ -1,6 +1,5 @@
 package std.runtime;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 
 public class Functions {
@@ -37,48 +36,48 @@ public class Functions {
         return (int) l;
     }
 
-    public static ArrayList<Double> __range(double start, double end) {
-        ArrayList<Double> lst = new ArrayList<>();
+    public static DequeList<Double> __range(double start, double end) {
+        DequeList<Double> lst = new DequeList<>();
         if(end < start) return lst;
         for (double i = start; i < end; i++) {
             lst.add(i);
         }
         return lst;
     }
-    public static ArrayList<Float> __range(float start, float end) {
-        ArrayList<Float> lst = new ArrayList<>();
+    public static DequeList<Float> __range(float start, float end) {
+        DequeList<Float> lst = new DequeList<>();
         if(end < start) return lst;
         for (float i = start; i < end; i++) {
             lst.add(i);
         }
         return lst;
     }
-    public static ArrayList<Long> __range(long start, long end) {
-        ArrayList<Long> lst = new ArrayList<>();
+    public static DequeList<Long> __range(long start, long end) {
+        DequeList<Long> lst = new DequeList<>();
         if(end < start) return lst;
         for (long i = start; i < end; i++) {
             lst.add(i);
         }
         return lst;
     }
-    public static ArrayList<Integer> __range(int start, int end) {
-        ArrayList<Integer> lst = new ArrayList<>();
+    public static DequeList<Integer> __range(int start, int end) {
+        DequeList<Integer> lst = new DequeList<>();
         if(end < start) return lst;
         for (int i = start; i < end; i++) {
             lst.add(i);
         }
         return lst;
     }
-    public static ArrayList<Short> __range(short start, short end) {
-        ArrayList<Short> lst = new ArrayList<>();
+    public static DequeList<Short> __range(short start, short end) {
+        DequeList<Short> lst = new DequeList<>();
         if(end < start) return lst;
         for (short i = start; i < end; i++) {
             lst.add(i);
         }
         return lst;
     }
-    public static ArrayList<Byte> __range(byte start, byte end) {
-        ArrayList<Byte> lst = new ArrayList<>();
+    public static DequeList<Byte> __range(byte start, byte end) {
+        DequeList<Byte> lst = new DequeList<>();
         if(end < start) return lst;
         for (byte i = start; i < end; i++) {
             lst.add(i);
@@ -97,15 +96,15 @@ public class Functions {
         System.exit(code);
     }
 
-    public static ArrayList<String> args() {
+    public static DequeList<String> args() {
         return __cli_args;
     }
 
-    private static ArrayList<String> __cli_args;
+    private static DequeList<String> __cli_args;
 
     public static void __init_runtime(String[] args) {
         var args_list = Arrays.asList(args);
-        __cli_args = new ArrayList<>(args_list);
+        __cli_args = new DequeList<>(args_list);
     }
 
     public static boolean __equal(double a, double b) {return a == b;}